@@ -0,0 +1,178 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.core.launching;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.pde.core.plugin.IPluginModelBase;
+import org.eclipse.pde.core.plugin.PluginRegistry;
+import org.eclipse.pde.core.plugin.TargetPlatform;
+import org.eclipse.pde.launching.IPDELauncherConstants;
+
+/**
+ * Fingerprint of everything Equinox resolves on a launch: the selected
+ * bundles with their version, location and modification time, the
+ * workspace bundles and the target platform. The OSGi configuration area
+ * (resolver state, bundle cache) is only cleared if the fingerprint changed
+ * since the last successful launch into the same area. Launch configurations
+ * of the same DPU share an area, so the fingerprint is kept per area.
+ * 
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-28
+ */
+public final class ConfigAreaFingerprint {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private ConfigAreaFingerprint() {
+    }
+
+    /**
+     * @param configuration
+     * @return hex encoded SHA-1 of the bundle set
+     * @throws CoreException
+     */
+    public static String compute(ILaunchConfiguration configuration) throws CoreException {
+        List<String> entries = new ArrayList<>();
+        entries.add("target=" + TargetPlatform.getLocation());
+        entries.add("os=" + TargetPlatform.getOS() + "/" + TargetPlatform.getWS() + "/" + TargetPlatform.getOSArch());
+        for (String bundle : bundleIds(configuration.getAttribute(IPDELauncherConstants.TARGET_BUNDLES, "")))
+            entries.add(describe(bundle, PluginRegistry.findModel(bundle)));
+        for (String bundle : bundleIds(configuration.getAttribute(IPDELauncherConstants.WORKSPACE_BUNDLES, "")))
+            entries.add(describe(bundle, PluginRegistry.findModel(bundle)));
+        if (configuration.getAttribute(IPDELauncherConstants.AUTOMATIC_ADD, true)) {
+            for (IPluginModelBase model : PluginRegistry.getWorkspaceModels())
+                entries.add(describe(model.getPluginBase().getId(), model));
+        }
+        // Order of the attributes doesn't matter
+        Collections.sort(entries);
+        return sha1(entries);
+    }
+
+    /**
+     * Compares the fingerprint with the one stored for the configuration
+     * area of the configuration.
+     * 
+     * @param configuration
+     * @param fingerprint
+     * @return true if the fingerprint changed or no previous one is known
+     * @throws CoreException
+     */
+    public static boolean changed(ILaunchConfiguration configuration, String fingerprint) throws CoreException {
+        Path file = storedFile(configuration);
+        try {
+            return !Files.exists(file) || !fingerprint.equals(new String(Files.readAllBytes(file), UTF8));
+        } catch (IOException e) {
+            // Clear the area
+            return true;
+        }
+    }
+
+    /**
+     * Stores the fingerprint for the configuration area of the
+     * configuration. Call only after the launch succeeded, otherwise the
+     * area of a failed launch is kept.
+     * 
+     * @param configuration
+     * @param fingerprint
+     * @throws CoreException
+     */
+    public static void store(ILaunchConfiguration configuration, String fingerprint) throws CoreException {
+        Path file = storedFile(configuration);
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, fingerprint.getBytes(UTF8));
+        } catch (IOException e) {
+            // Not stored, next launch clears the area again
+        }
+    }
+
+    /**
+     * Kept in the state location of this plug-in, because the configuration
+     * area itself is deleted when it is cleared. Named after the area, PDE
+     * uses one per configuration name if none is set.
+     */
+    private static Path storedFile(ILaunchConfiguration configuration) throws CoreException {
+        String area = configuration.getAttribute(IPDELauncherConstants.CONFIG_LOCATION, "");
+        if (area.isEmpty())
+            area = "name:" + configuration.getName();
+        Path stateLocation = Platform.getStateLocation(Platform.getBundle(DPULaunchConfigurationDelegate.PLUGIN_ID)).toFile()
+                .toPath();
+        return stateLocation.resolve("fingerprints").resolve(sha1(Collections.singletonList(area)));
+    }
+
+    /**
+     * @param entries
+     * @return hex encoded SHA-1 of the entries, each terminated by a newline
+     */
+    private static String sha1(List<String> entries) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (String entry : entries) {
+                digest.update(entry.getBytes(UTF8));
+                digest.update((byte) '\n');
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest())
+                hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    /**
+     * @param bundles - id[*version][@startlevel:autostart], comma separated
+     * @return bundle ids
+     */
+    static List<String> bundleIds(String bundles) {
+        List<String> ids = new ArrayList<>();
+        for (String bundle : bundles.split(",")) {
+            String id = bundle.trim();
+            int end = id.length();
+            if (id.indexOf('@') >= 0)
+                end = id.indexOf('@');
+            if (id.indexOf('*') >= 0)
+                end = Math.min(end, id.indexOf('*'));
+            id = id.substring(0, end);
+            if (!id.isEmpty())
+                ids.add(id);
+        }
+        return ids;
+    }
+
+    private static String describe(String id, IPluginModelBase model) {
+        if (model == null)
+            return id + "=missing";
+        String location = model.getInstallLocation();
+        long modified = 0;
+        if (location != null) {
+            File file = new File(location);
+            // Directory bundles change with their manifest
+            File manifest = new File(file, "META-INF/MANIFEST.MF");
+            modified = file.isDirectory() ? manifest.lastModified() : file.lastModified();
+        }
+        return id + "=" + model.getPluginBase().getVersion() + "@" + location + ":" + modified;
+    }
+}
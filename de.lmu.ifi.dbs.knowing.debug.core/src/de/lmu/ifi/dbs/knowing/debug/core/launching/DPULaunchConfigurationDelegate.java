@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -33,6 +34,7 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.pde.launching.IPDELauncherConstants;
 import org.eclipse.pde.launching.OSGiLaunchConfigurationDelegate;
 import org.eclipse.sapphire.modeling.ResourceStoreException;
 import org.eclipse.sapphire.modeling.xml.RootXmlResource;
@@ -46,6 +48,8 @@ import com.typesafe.config.ConfigFactory;
 
 import de.lmu.ifi.dbs.knowing.core.model.IDataProcessingUnit;
 import de.lmu.ifi.dbs.knowing.core.model.IParameter;
+import de.lmu.ifi.dbs.knowing.debug.presenter.DebugSettings;
+import de.lmu.ifi.dbs.knowing.debug.presenter.ExecutionPlan;
 import de.lmu.ifi.dbs.knowing.launcher.LaunchConfiguration;
 
 /**
@@ -61,6 +65,9 @@ public class DPULaunchConfigurationDelegate extends OSGiLaunchConfigurationDeleg
 
     private static final Logger log = LoggerFactory.getLogger(PLUGIN_ID);
 
+    /** Run tokens identify the result commit files of a launch */
+    private static final Random runTokens = new Random();
+
     /* ======================================= */
     /* = Constants are only internally used = */
     /* = see knowing.launcher/reference.conf = */
@@ -75,6 +82,9 @@ public class DPULaunchConfigurationDelegate extends OSGiLaunchConfigurationDeleg
 
     public static final String DPU_PARAMETERS = "knowing.dpu.parameters";
 
+    /** Map of debug options. Written as dpu.debug.* to the application.conf */
+    public static final String DPU_DEBUG_OPTIONS = "knowing.dpu.debug";
+
     @Override
     public void launch(ILaunchConfiguration configuration, String mode, ILaunch launch, IProgressMonitor monitor) throws CoreException {
         monitor.subTask("Loading Data Processing Unit");
@@ -88,7 +98,7 @@ public class DPULaunchConfigurationDelegate extends OSGiLaunchConfigurationDeleg
 
         IDataProcessingUnit dpu = null;
         try {
-            dpu = loadDPU(dpuFile);
+            dpu = DPUModelCache.snapshot(dpuFile);
         } catch (ResourceStoreException e) {
             throw new CoreException(new Status(IStatus.ERROR, PLUGIN_ID, "Error loading DPU!", e));
         }
@@ -109,22 +119,99 @@ public class DPULaunchConfigurationDelegate extends OSGiLaunchConfigurationDeleg
         for (IParameter p : parameters) {
             confMap.put("dpu.parameters." + p.getKey().getContent(), p.getValue().getContent());
         }
-        Config config = ConfigFactory.parseMap(confMap);
 
-        // Write application.conf to execution path root
-        Path applicationConf = executionPath.resolve("application.conf");
-        try (Writer w = Files.newBufferedWriter(applicationConf, Charset.defaultCharset())) {
-            w.write(config.root().render());
+        // Parsed and checked once, the launcher builds the DPU from the plan
+        monitor.subTask("Compiling execution plan");
+        try {
+            Path plan = ExecutionPlan.planFile(executionPath);
+            ExecutionPlan.compile(dpu, parametersToString(parameters)).write(plan);
+            confMap.put(ExecutionPlan.PLAN_KEY(), plan.toAbsolutePath().toString());
+        } catch (IllegalArgumentException e) {
+            throw new CoreException(new Status(IStatus.ERROR, PLUGIN_ID, e.getMessage(), e));
         } catch (IOException e) {
-            log.error("IOError on writing application.conf to " + applicationConf, e);
+            log.warn("Could not write execution plan. Launcher loads the DPU.", e);
+        }
+
+        Map<String, String> debugOptions = configuration.getAttribute(DPU_DEBUG_OPTIONS, Collections.EMPTY_MAP);
+        for (Map.Entry<String, String> option : debugOptions.entrySet()) {
+            confMap.put(DebugSettings.PREFIX() + option.getKey(), option.getValue());
+        }
+        confMap.put(DebugSettings.RUN_TOKEN(), runTokens.nextLong());
+
+        // Stream status events over a loopback socket, the progress file is the fallback
+        if (ProgressChannels.isEnabled(configuration)) {
+            try {
+                confMap.put(DebugSettings.PROGRESS_ENDPOINT(), ProgressChannels.open(launch));
+            } catch (IOException e) {
+                log.warn("Could not open progress channel. Using progress file.", e);
+            }
+        }
+
+        // Only the bundles providing the factories of the DPU
+        ILaunchConfigurationWorkingCopy copy = configuration.getWorkingCopy();
+        String targetBundles = configuration.getAttribute(IPDELauncherConstants.TARGET_BUNDLES, "");
+        String selectedBundles = FactoryBundles.select(dpu, targetBundles);
+        copy.setAttribute(IPDELauncherConstants.TARGET_BUNDLES, selectedBundles);
+        if (!selectedBundles.equals(targetBundles)) {
+            // The selection starts the bundles it uses, everything else is activated lazily
+            copy.setAttribute(IPDELauncherConstants.AUTOMATIC_ADD, false);
+            copy.setAttribute(IPDELauncherConstants.DEFAULT_AUTO_START, false);
         }
+        monitor.subTask("Checking bundles");
+        String fingerprint = ConfigAreaFingerprint.compute(copy);
+
+        // Run in the warm runtime of this configuration, if it runs the same bundles
+        boolean warm = Boolean.parseBoolean(debugOptions.get(DebugSettings.optionKey(DebugSettings.WARM())));
+        if (warm) {
+            launch.setAttribute(WarmRuntimes.WARM_RUN, Boolean.TRUE.toString());
+            if (WarmRuntimes.isAvailable(configuration, fingerprint)) {
+                Path applicationConf = writeApplicationConf(executionPath, confMap);
+                if (WarmRuntimes.submit(configuration, launch, applicationConf)) {
+                    log.info("Running " + dpu.getName().getContent() + " in warm runtime");
+                    return;
+                }
+            }
+            try {
+                // Stops a runtime with other bundles
+                confMap.put(DebugSettings.WARM_ENDPOINT(), WarmRuntimes.open(configuration, launch, fingerprint));
+            } catch (IOException e) {
+                log.warn("Could not open warm runtime control channel. Runtime stops after the run.", e);
+                launch.setAttribute(WarmRuntimes.WARM_RUN, Boolean.FALSE.toString());
+            }
+        }
+
+        Path applicationConf = writeApplicationConf(executionPath, confMap);
 
         // Set application.conf path
         String arguments = vmArguments + " -D" + LaunchConfiguration.APPLICATION_CONF_FILE() + "=" + applicationConf.toAbsolutePath();
-        ILaunchConfigurationWorkingCopy copy = configuration.getWorkingCopy();
         copy.setAttribute(LaunchConfiguration.VM_ARGUMENTS_KEY(), arguments);
+
+        // Keep resolver state and bundle cache as long as the bundles are unchanged
+        boolean changed = ConfigAreaFingerprint.changed(copy, fingerprint);
+        copy.setAttribute(IPDELauncherConstants.CONFIG_CLEAR_AREA, changed);
+        if (changed)
+            log.info("Bundles changed. Clearing configuration area.");
         super.launch(copy, mode, launch, monitor);
+        ConfigAreaFingerprint.store(copy, fingerprint);
+
+    }
 
+    /**
+     * Writes the application.conf to the execution path root.
+     * 
+     * @param executionPath
+     * @param confMap
+     * @return path of the application.conf
+     */
+    private static Path writeApplicationConf(Path executionPath, Map<String, Object> confMap) {
+        Config config = ConfigFactory.parseMap(confMap);
+        Path applicationConf = executionPath.resolve(DebugSettings.APPLICATION_CONF());
+        try (Writer w = Files.newBufferedWriter(applicationConf, Charset.defaultCharset())) {
+            w.write(config.root().render());
+        } catch (IOException e) {
+            log.error("IOError on writing application.conf to " + applicationConf, e);
+        }
+        return applicationConf;
     }
 
     public static IFile findDPUFile(String projectName, String relativePath) {
@@ -0,0 +1,166 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.core.launching;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.sapphire.modeling.ResourceStoreException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.lmu.ifi.dbs.knowing.core.model.IDataProcessingUnit;
+
+/**
+ * Parsed DPUs shared by launches, launch tabs and the presenter view. An
+ * entry is valid as long as the modification stamp of the file doesn't
+ * change. A resource change listener drops entries of changed, moved and
+ * deleted files.
+ * <p>
+ * Launches and the presenter view only read the DPU, so they share the
+ * cached snapshot, which must never be modified. The snapshot is a copy of
+ * the parsed model, so all its properties are set before it is shared.
+ * Launch tabs edit the DPU and get their own copy, made while holding the
+ * lock of the snapshot. Copying the model is still much cheaper than
+ * parsing the file again.
+ * </p>
+ * 
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-29
+ */
+public final class DPUModelCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DPUModelCache.class);
+
+    private static final Map<IFile, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private static boolean listening;
+
+    private DPUModelCache() {
+    }
+
+    /**
+     * @param dpuFile
+     * @return shared DPU, which must not be modified. The file is parsed
+     *         only if it changed.
+     * @throws ResourceStoreException
+     */
+    public static IDataProcessingUnit snapshot(IFile dpuFile) throws ResourceStoreException {
+        Snapshot snapshot = load(dpuFile);
+        return snapshot == null ? DPULaunchConfigurationDelegate.loadDPU(dpuFile) : snapshot.dpu;
+    }
+
+    /**
+     * @param dpuFile
+     * @return copy of the DPU owned by the caller, the file is parsed only
+     *         if it changed
+     * @throws ResourceStoreException
+     */
+    public static IDataProcessingUnit get(IFile dpuFile) throws ResourceStoreException {
+        Snapshot snapshot = load(dpuFile);
+        // Freshly parsed and not shared
+        return snapshot == null ? DPULaunchConfigurationDelegate.loadDPU(dpuFile) : snapshot.copy();
+    }
+
+    /**
+     * @param location - absolute file location, e.g. dpu.uri
+     * @return workspace file or null if the location is outside the workspace
+     */
+    public static IFile findFile(URI location) {
+        IFile[] files = ResourcesPlugin.getWorkspace().getRoot().findFilesForLocationURI(location);
+        return files.length == 0 ? null : files[0];
+    }
+
+    public static void invalidate(IFile dpuFile) {
+        snapshots.remove(dpuFile);
+    }
+
+    /**
+     * @return current snapshot or null if the file has no modification stamp
+     */
+    private static Snapshot load(IFile dpuFile) throws ResourceStoreException {
+        listen();
+        long stamp = dpuFile.getModificationStamp();
+        if (stamp == IResource.NULL_STAMP)
+            return null;
+        Snapshot snapshot = snapshots.get(dpuFile);
+        if (snapshot != null && snapshot.stamp == stamp)
+            return snapshot;
+        snapshot = new Snapshot(stamp, DPULaunchConfigurationDelegate.loadDPU(dpuFile));
+        snapshots.put(dpuFile, snapshot);
+        return snapshot;
+    }
+
+    private static synchronized void listen() {
+        if (listening)
+            return;
+        ResourcesPlugin.getWorkspace().addResourceChangeListener(new IResourceChangeListener() {
+
+            @Override
+            public void resourceChanged(IResourceChangeEvent event) {
+                if (snapshots.isEmpty() || event.getDelta() == null)
+                    return;
+                try {
+                    event.getDelta().accept(new IResourceDeltaVisitor() {
+
+                        @Override
+                        public boolean visit(IResourceDelta delta) throws CoreException {
+                            IResource resource = delta.getResource();
+                            if (resource.getType() != IResource.FILE)
+                                return true;
+                            if (delta.getKind() == IResourceDelta.REMOVED
+                                    || (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0)
+                                invalidate((IFile) resource);
+                            return false;
+                        }
+                    });
+                } catch (CoreException e) {
+                    log.warn("Error on visiting resource delta. Clearing DPU cache.", e);
+                    snapshots.clear();
+                }
+            }
+        }, IResourceChangeEvent.POST_CHANGE);
+        listening = true;
+    }
+
+    private static class Snapshot {
+
+        final long stamp;
+        final IDataProcessingUnit dpu;
+
+        /**
+         * @param parsed - freshly parsed DPU, not shared yet
+         */
+        Snapshot(long stamp, IDataProcessingUnit parsed) {
+            this.stamp = stamp;
+            this.dpu = copy(parsed);
+        }
+
+        synchronized IDataProcessingUnit copy() {
+            return copy(dpu);
+        }
+
+        private static IDataProcessingUnit copy(IDataProcessingUnit dpu) {
+            IDataProcessingUnit copy = IDataProcessingUnit.TYPE.instantiate();
+            copy.copy(dpu);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.core.launching;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.osgi.service.resolver.BundleDescription;
+import org.eclipse.osgi.service.resolver.ExportPackageDescription;
+import org.eclipse.pde.core.plugin.IPluginModelBase;
+import org.eclipse.pde.core.plugin.PluginRegistry;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.ServiceReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.lmu.ifi.dbs.knowing.core.factory.TFactory;
+import de.lmu.ifi.dbs.knowing.core.model.IDataProcessingUnit;
+import de.lmu.ifi.dbs.knowing.core.model.INode;
+import de.lmu.ifi.dbs.knowing.core.model.NodeType;
+
+/**
+ * Computes the bundles a DPU needs from the factory ids of its nodes.
+ * Factories are mapped to the bundles registering them in the IDE. The
+ * index is built once and dropped whenever a factory is (un)registered.
+ * <p>
+ * All bundles of the launch configuration which don't provide factories
+ * are kept. Factory bundles are only kept if the DPU uses them. Their
+ * dependencies are added with lazy activation. Used bundles are started,
+ * the launch delegate turns off automatic start and workspace bundles for
+ * the reduced selection, so nothing else is activated eagerly.
+ * </p>
+ * <p>
+ * Presenters are replaced by the debug presenter in the launched runtime,
+ * so presenter nodes need the debug presenter bundle and not the bundle
+ * registering their factory id. The bundles of the runtime itself are
+ * always kept with their start settings, even if they register factories
+ * the DPU doesn't use.
+ * </p>
+ * 
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-29
+ */
+public final class FactoryBundles {
+
+    private static final Logger log = LoggerFactory.getLogger(FactoryBundles.class);
+
+    /** Start level and autostart of added dependencies */
+    private static final String LAZY = "@default:false";
+    private static final String STARTED = "@default:true";
+
+    /** Provides the presenters of the launched runtime */
+    private static final String DEBUG_PRESENTER = "de.lmu.ifi.dbs.knowing.debug.presenter";
+
+    /** Needed by every launch */
+    private static final Set<String> RUNTIME = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            "de.lmu.ifi.dbs.knowing.core", "de.lmu.ifi.dbs.knowing.launcher", DEBUG_PRESENTER,
+            "de.lmu.ifi.dbs.knowing.debug.launcher")));
+
+    /** factory id -> bundle symbolic name */
+    private static volatile Map<String, String> index;
+    private static boolean listening;
+
+    private FactoryBundles() {
+    }
+
+    /**
+     * @param dpu
+     * @param targetBundles - as in IPDELauncherConstants.TARGET_BUNDLES
+     * @return the reduced bundles or targetBundles if a factory of the DPU
+     *         is unknown
+     */
+    public static String select(IDataProcessingUnit dpu, String targetBundles) {
+        Map<String, String> factories = index();
+        Set<String> used = new LinkedHashSet<>(RUNTIME);
+        for (INode node : dpu.getNodes()) {
+            // The SWT presenters register the same ids, the index may name either
+            if (node.getType().getContent() == NodeType.PRESENTER) {
+                used.add(DEBUG_PRESENTER);
+                continue;
+            }
+            String factoryId = node.getFactoryId().getContent();
+            String bundle = factories.get(factoryId);
+            if (bundle == null) {
+                log.warn("No bundle provides factory " + factoryId + ". Launching all bundles.");
+                return targetBundles;
+            }
+            used.add(bundle);
+        }
+        Set<String> providers = new HashSet<>(factories.values());
+
+        StringBuilder selected = new StringBuilder();
+        Set<String> added = new HashSet<>();
+        for (String entry : targetBundles.split(",")) {
+            if (entry.trim().isEmpty())
+                continue;
+            String id = ConfigAreaFingerprint.bundleIds(entry).get(0);
+            if (providers.contains(id) && !used.contains(id))
+                continue;
+            append(selected, used.contains(id) ? started(entry.trim()) : entry.trim());
+            added.add(id);
+        }
+        for (String bundle : used) {
+            if (added.add(bundle))
+                append(selected, bundle + STARTED);
+        }
+        for (String bundle : dependencies(used)) {
+            if (added.add(bundle))
+                append(selected, bundle + LAZY);
+        }
+        return selected.toString();
+    }
+
+    /**
+     * @return factory id -> bundle symbolic name, cached
+     */
+    public static Map<String, String> index() {
+        Map<String, String> current = index;
+        if (current != null)
+            return current;
+        BundleContext context = FrameworkUtil.getBundle(FactoryBundles.class).getBundleContext();
+        listen(context);
+        Map<String, String> result = new HashMap<>();
+        try {
+            Collection<ServiceReference<TFactory>> references = context.getServiceReferences(TFactory.class, null);
+            for (ServiceReference<TFactory> reference : references) {
+                TFactory factory = context.getService(reference);
+                if (factory == null)
+                    continue;
+                result.put(factory.id(), reference.getBundle().getSymbolicName());
+                context.ungetService(reference);
+            }
+        } catch (InvalidSyntaxException e) {
+            // no filter
+        }
+        index = Collections.unmodifiableMap(result);
+        return index;
+    }
+
+    private static synchronized void listen(BundleContext context) {
+        if (listening)
+            return;
+        try {
+            context.addServiceListener(new ServiceListener() {
+
+                @Override
+                public void serviceChanged(ServiceEvent event) {
+                    index = null;
+                }
+            }, "(objectClass=" + TFactory.class.getName() + ")");
+            listening = true;
+        } catch (InvalidSyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return required bundles, bundles exporting imported packages and
+     *         fragments of the bundles, transitively
+     */
+    private static Set<String> dependencies(Set<String> bundles) {
+        Set<String> result = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>(bundles);
+        while (!pending.isEmpty()) {
+            IPluginModelBase model = PluginRegistry.findModel(pending.pop());
+            if (model == null || model.getBundleDescription() == null)
+                continue;
+            BundleDescription description = model.getBundleDescription();
+            for (BundleDescription required : description.getResolvedRequires())
+                add(required, result, pending);
+            for (ExportPackageDescription imported : description.getResolvedImports())
+                add(imported.getExporter(), result, pending);
+            for (BundleDescription fragment : description.getFragments())
+                add(fragment, result, pending);
+        }
+        return result;
+    }
+
+    private static void add(BundleDescription bundle, Set<String> result, Deque<String> pending) {
+        if (bundle != null && result.add(bundle.getSymbolicName()))
+            pending.push(bundle.getSymbolicName());
+    }
+
+    /**
+     * @return entry with autostart, an explicit setting and the start level
+     *         are kept
+     */
+    private static String started(String entry) {
+        if (entry.indexOf('@') < 0)
+            return entry + STARTED;
+        if (entry.endsWith(":default"))
+            return entry.substring(0, entry.length() - "default".length()) + "true";
+        return entry;
+    }
+
+    private static void append(StringBuilder bundles, String entry) {
+        if (bundles.length() > 0)
+            bundles.append(',');
+        bundles.append(entry);
+    }
+}
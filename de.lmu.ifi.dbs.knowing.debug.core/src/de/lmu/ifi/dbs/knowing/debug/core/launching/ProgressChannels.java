@@ -0,0 +1,161 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.core.launching;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.ILaunch;
+import org.eclipse.debug.core.ILaunchConfiguration;
+
+import de.lmu.ifi.dbs.knowing.debug.presenter.DebugSettings;
+
+/**
+ * Loopback server sockets the runtime streams its status events to. The
+ * launch delegate opens one per launch before the runtime starts, the
+ * DebugPresenterView takes it over.
+ * <p>
+ * Launches started from the launch dialog are added before the delegate
+ * runs, so the view waits in {@link #take(ILaunch, long)} until the channel
+ * is opened. Channels which are not taken within
+ * <code>UNCLAIMED_TIMEOUT</code> are closed.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-10
+ * @see de.lmu.ifi.dbs.knowing.debug.presenter.SocketUIFactory
+ */
+public final class ProgressChannels {
+
+    /** Milliseconds an opened channel waits to be taken */
+    public static final long UNCLAIMED_TIMEOUT = 60000;
+
+    /** Milliseconds between checks if a waiting launch was terminated */
+    private static final long POLL_INTERVAL = 200;
+
+    /** Guarded by itself */
+    private static final Map<ILaunch, ServerSocket> channels = new HashMap<>();
+
+    private static final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ProgressChannelReaper");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private ProgressChannels() {
+    }
+
+    /**
+     * @param configuration
+     * @return true if the socket channel is selected for the configuration.
+     *         Configurations without the option keep the progress file.
+     * @throws CoreException
+     */
+    public static boolean isEnabled(ILaunchConfiguration configuration) throws CoreException {
+        Map<String, String> options = configuration.getAttribute(DPULaunchConfigurationDelegate.DPU_DEBUG_OPTIONS,
+                Collections.<String, String> emptyMap());
+        String channel = options.get(DebugSettings.optionKey(DebugSettings.PROGRESS_CHANNEL()));
+        return DebugSettings.CHANNEL_SOCKET().equals(channel);
+    }
+
+    /**
+     * Binds a server socket on an ephemeral loopback port.
+     *
+     * @param launch
+     * @return endpoint as host:port
+     * @throws IOException
+     */
+    public static String open(final ILaunch launch) throws IOException {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        final ServerSocket server = new ServerSocket();
+        server.bind(new InetSocketAddress(loopback, 0), 1);
+        ServerSocket old;
+        synchronized (channels) {
+            old = channels.put(launch, server);
+            channels.notifyAll();
+        }
+        if (old != null)
+            old.close();
+        reaper.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                synchronized (channels) {
+                    if (channels.get(launch) != server)
+                        return;
+                    channels.remove(launch);
+                }
+                close(server);
+            }
+        }, UNCLAIMED_TIMEOUT, TimeUnit.MILLISECONDS);
+        return loopback.getHostAddress() + ":" + server.getLocalPort();
+    }
+
+    /**
+     * Waits until the channel of the launch is opened. The caller is
+     * responsible for closing the returned socket.
+     *
+     * @param launch
+     * @param timeout - milliseconds
+     * @return server socket of the launch or null if none was opened within
+     *         the timeout or the launch terminated
+     * @throws InterruptedException
+     */
+    public static ServerSocket take(ILaunch launch, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (channels) {
+            while (!channels.containsKey(launch)) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0 || launch.isTerminated())
+                    return null;
+                channels.wait(Math.min(wait, POLL_INTERVAL));
+            }
+            return channels.remove(launch);
+        }
+    }
+
+    /**
+     * Closes the server socket of the launch, if not taken yet.
+     *
+     * @param launch
+     */
+    public static void close(ILaunch launch) {
+        ServerSocket server;
+        synchronized (channels) {
+            server = channels.remove(launch);
+        }
+        if (server != null)
+            close(server);
+    }
+
+    private static void close(ServerSocket server) {
+        try {
+            server.close();
+        } catch (IOException e) {
+            // nothing to do
+        }
+    }
+}
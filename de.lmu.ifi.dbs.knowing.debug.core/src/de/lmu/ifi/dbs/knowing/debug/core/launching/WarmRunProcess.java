@@ -0,0 +1,125 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.core.launching;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.PlatformObject;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.debug.core.DebugEvent;
+import org.eclipse.debug.core.DebugException;
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.ILaunch;
+import org.eclipse.debug.core.model.IProcess;
+import org.eclipse.debug.core.model.IStreamsProxy;
+
+/**
+ * Stands for a run in a warm runtime, which has no process of its own. A
+ * launch without processes never terminates, so this process is added to
+ * the launch and terminated when the run is over. Terminating it by hand
+ * stops the warm runtime, as a single run can't be cancelled.
+ * 
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ * @see WarmRuntimes
+ */
+public final class WarmRunProcess extends PlatformObject implements IProcess {
+
+    private final ILaunch launch;
+    private final String label;
+    private final Runnable stopRuntime;
+    private final Map<String, String> attributes = new HashMap<>();
+
+    private volatile boolean terminated;
+
+    /**
+     * @param launch
+     * @param label
+     * @param stopRuntime - called if the user terminates the run
+     */
+    WarmRunProcess(ILaunch launch, String label, Runnable stopRuntime) {
+        this.launch = launch;
+        this.label = label;
+        this.stopRuntime = stopRuntime;
+        fireEvent(DebugEvent.CREATE);
+    }
+
+    @Override
+    public String getLabel() {
+        return label;
+    }
+
+    @Override
+    public ILaunch getLaunch() {
+        return launch;
+    }
+
+    @Override
+    public IStreamsProxy getStreamsProxy() {
+        return null;
+    }
+
+    @Override
+    public synchronized void setAttribute(String key, String value) {
+        attributes.put(key, value);
+    }
+
+    @Override
+    public synchronized String getAttribute(String key) {
+        return attributes.get(key);
+    }
+
+    @Override
+    public int getExitValue() throws DebugException {
+        if (!terminated)
+            throw new DebugException(new Status(IStatus.ERROR, DPULaunchConfigurationDelegate.PLUGIN_ID, "Run not finished"));
+        return 0;
+    }
+
+    @Override
+    public boolean canTerminate() {
+        return !terminated;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    @Override
+    public void terminate() throws DebugException {
+        if (terminated)
+            return;
+        stopRuntime.run();
+        finished();
+    }
+
+    /**
+     * Marks the run as finished, which terminates the launch.
+     */
+    void finished() {
+        synchronized (this) {
+            if (terminated)
+                return;
+            terminated = true;
+        }
+        fireEvent(DebugEvent.TERMINATE);
+    }
+
+    private void fireEvent(int kind) {
+        DebugPlugin plugin = DebugPlugin.getDefault();
+        if (plugin != null)
+            plugin.fireDebugEventSet(new DebugEvent[] { new DebugEvent(this, kind) });
+    }
+}
@@ -0,0 +1,274 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.core.launching;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.debug.core.ILaunch;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.debug.core.model.IProcess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import scala.Tuple2;
+import de.lmu.ifi.dbs.knowing.debug.presenter.ControlChannel;
+
+/**
+ * Launcher runtimes kept alive between launches of the same launch
+ * configuration. The first warm launch starts the runtime as usual and
+ * opens a control channel, which the runtime connects to. Further launches
+ * send their application.conf over the channel instead of starting a new
+ * runtime, as long as the runtime was started with the same bundles. Such
+ * a launch gets a WarmRunProcess, which terminates when the run is over.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-27
+ * @see ControlChannel
+ */
+public final class WarmRuntimes {
+
+    /** Launch attribute. Set to "true" if the launch runs in a warm runtime */
+    public static final String WARM_RUN = "de.lmu.ifi.dbs.knowing.debug.core.warm";
+
+    /** Milliseconds the runtime has to connect after it was started */
+    private static final int ACCEPT_TIMEOUT = 120000;
+
+    private static final Logger log = LoggerFactory.getLogger(WarmRuntimes.class);
+
+    private static final Map<String, WarmRuntime> runtimes = new ConcurrentHashMap<>();
+
+    private WarmRuntimes() {
+    }
+
+    /**
+     * Binds the control channel for a new runtime and waits in the
+     * background until the runtime connects.
+     * 
+     * @param configuration
+     * @param launch - starting the runtime process
+     * @param fingerprint - of the bundles the runtime is started with
+     * @return endpoint as host:port
+     * @throws IOException
+     */
+    public static String open(ILaunchConfiguration configuration, ILaunch launch, String fingerprint) throws IOException {
+        close(configuration);
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        final ServerSocket server = new ServerSocket();
+        server.bind(new InetSocketAddress(loopback, 0), 1);
+        final WarmRuntime runtime = new WarmRuntime(launch, fingerprint);
+        runtimes.put(configuration.getName(), runtime);
+
+        Thread acceptThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try (ServerSocket s = server) {
+                    s.setSoTimeout(ACCEPT_TIMEOUT);
+                    runtime.connected(s.accept());
+                    log.info("Warm runtime connected");
+                } catch (IOException e) {
+                    log.warn("Warm runtime didn't connect", e);
+                }
+            }
+        });
+        acceptThread.setName("WarmRuntimeAcceptThread");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        return loopback.getHostAddress() + ":" + server.getLocalPort();
+    }
+
+    /**
+     * @param configuration
+     * @param fingerprint - of the bundles the launch needs
+     * @return true if a connected runtime with the same bundles is alive
+     *         for the configuration
+     */
+    public static boolean isAvailable(ILaunchConfiguration configuration, String fingerprint) {
+        WarmRuntime runtime = runtimes.get(configuration.getName());
+        return runtime != null && runtime.isAlive() && runtime.fingerprint.equals(fingerprint);
+    }
+
+    /**
+     * Runs the DPU of the application.conf in the warm runtime and adds a
+     * WarmRunProcess to the launch.
+     * 
+     * @param configuration
+     * @param launch - of the run
+     * @param applicationConf
+     * @return false if no runtime is available
+     * @throws CoreException if the previous run is still running or its
+     *             results are still presented
+     */
+    public static boolean submit(final ILaunchConfiguration configuration, ILaunch launch, Path applicationConf)
+            throws CoreException {
+        WarmRuntime runtime = runtimes.get(configuration.getName());
+        if (runtime == null || !runtime.isAlive())
+            return false;
+        if (runtime.isBusy())
+            throw new CoreException(new Status(IStatus.ERROR, DPULaunchConfigurationDelegate.PLUGIN_ID,
+                    "The previous run of " + configuration.getName() + " hasn't finished yet"));
+        WarmRunProcess process = new WarmRunProcess(launch, configuration.getName() + " [warm runtime]", new Runnable() {
+
+            @Override
+            public void run() {
+                close(configuration);
+            }
+        });
+        try {
+            runtime.run(process, ControlChannel.run(applicationConf.toAbsolutePath().toString()));
+        } catch (IOException e) {
+            log.warn("Warm runtime not reachable", e);
+            close(configuration);
+            return false;
+        }
+        launch.addProcess(process);
+        return true;
+    }
+
+    /**
+     * Terminates the WarmRunProcess of the launch, if any. The runtime
+     * keeps running.
+     * 
+     * @param launch
+     */
+    public static void finished(ILaunch launch) {
+        for (IProcess process : launch.getProcesses()) {
+            if (process instanceof WarmRunProcess)
+                ((WarmRunProcess) process).finished();
+        }
+    }
+
+    /**
+     * Stops the runtime of the configuration, if any.
+     * 
+     * @param configuration
+     */
+    public static void close(ILaunchConfiguration configuration) {
+        WarmRuntime runtime = runtimes.remove(configuration.getName());
+        if (runtime != null)
+            runtime.close();
+    }
+
+    /**
+     * @param launch
+     * @return true if the launch runs in a warm runtime, which must not be
+     *         terminated after the run
+     */
+    public static boolean isWarm(ILaunch launch) {
+        return Boolean.parseBoolean(launch.getAttribute(WARM_RUN));
+    }
+
+    private static class WarmRuntime implements Runnable {
+
+        private final ILaunch launch;
+        private final String fingerprint;
+        private volatile Socket socket;
+        private volatile Writer writer;
+
+        /** Run in progress, finished if the runtime reports a failure */
+        private volatile WarmRunProcess current;
+
+        WarmRuntime(ILaunch launch, String fingerprint) {
+            this.launch = launch;
+            this.fingerprint = fingerprint;
+        }
+
+        void connected(Socket socket) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), Charset.defaultCharset()));
+            this.socket = socket;
+            Thread readerThread = new Thread(this);
+            readerThread.setName("WarmRuntimeReaderThread");
+            readerThread.setDaemon(true);
+            readerThread.start();
+        }
+
+        boolean isAlive() {
+            return socket != null && !socket.isClosed() && !launch.isTerminated();
+        }
+
+        /**
+         * @return true until the process of the last run is finished
+         */
+        boolean isBusy() {
+            WarmRunProcess process = current;
+            return process != null && !process.isTerminated();
+        }
+
+        void run(WarmRunProcess process, String command) throws IOException {
+            current = process;
+            send(command);
+        }
+
+        /**
+         * Reads the failures reported by the runtime. A run which failed
+         * doesn't send a Shutdown event, so its process is finished here.
+         */
+        @Override
+        public void run() {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), Charset.defaultCharset()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Tuple2<String, String> command = ControlChannel.parse(line);
+                    if (ControlChannel.FAILED().equals(command._1())) {
+                        log.error("Run failed in warm runtime: " + command._2());
+                        finishCurrent();
+                    }
+                }
+            } catch (IOException e) {
+                // closed
+            } finally {
+                // The runtime is gone, so is the run
+                finishCurrent();
+            }
+        }
+
+        synchronized void send(String command) throws IOException {
+            writer.write(command);
+            writer.write('\n');
+            writer.flush();
+        }
+
+        void close() {
+            finishCurrent();
+            if (socket == null)
+                return;
+            try {
+                send(ControlChannel.STOP());
+                socket.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+
+        private void finishCurrent() {
+            WarmRunProcess process = current;
+            if (process != null)
+                process.finished();
+        }
+    }
+}
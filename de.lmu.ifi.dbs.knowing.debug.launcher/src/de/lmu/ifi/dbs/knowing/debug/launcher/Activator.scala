@@ -11,14 +11,16 @@
 package de.lmu.ifi.dbs.knowing.debug.launcher
 
 import org.osgi.framework.{ BundleContext, BundleActivator }
-import de.lmu.ifi.dbs.knowing.debug.presenter.DebugUIFactory
+import de.lmu.ifi.dbs.knowing.debug.presenter.{ DebugUIFactory, DebugSettings, ExecutionPlan, SocketUIFactory }
 import de.lmu.ifi.dbs.knowing.launcher.LaunchConfiguration
 import de.lmu.ifi.dbs.knowing.core.util.DPUUtil
 import de.lmu.ifi.dbs.knowing.core.service.IEvaluateService
 import de.lmu.ifi.dbs.knowing.core.factory.UIFactory
+import de.lmu.ifi.dbs.knowing.core.model.IDataProcessingUnit
 import de.lmu.ifi.dbs.knowing.core.exceptions.ValidationException
-import com.typesafe.config.ConfigFactory
+import com.typesafe.config.{ Config, ConfigFactory }
 import akka.actor.{ ActorSystem, TypedProps, TypedActor }
+import java.io.IOException
 import java.net.URI
 import java.nio.file.Paths
 import org.slf4j.LoggerFactory
@@ -35,6 +37,8 @@ class Activator extends BundleActivator {
 
     val log = LoggerFactory.getLogger(Activator.PLUGIN_ID)
 
+    private var warmRuntime: WarmRuntime = _
+
     def start(context: BundleContext) = {
 
         val configFile = System.getProperty(LaunchConfiguration.APPLICATION_CONF_FILE)
@@ -42,27 +46,69 @@ class Activator extends BundleActivator {
         listFactories(context)
 
         val config = ConfigFactory.load()
-        val launchConfig = new LaunchConfiguration(config)
-        val dpu = launchConfig.dpu
+        val system = run(context, config)
+
+        val settings = DebugSettings(config)
+        if (settings.warm && !settings.warmEndpoint.isEmpty) {
+            warmRuntime = new WarmRuntime(context, settings.warmEndpoint, system, run(context, _))
+            warmRuntime.start()
+        }
+    }
+
+    def stop(context: BundleContext) = {
+        log.info("Stopping DebugLauncher Bundle")
+        if (warmRuntime != null)
+            warmRuntime.close()
+    }
+
+    /**
+     * Evaluates the DPU of the config on a new ActorSystem.
+     *
+     * @return the ActorSystem or None if the DPU could not be evaluated
+     */
+    def run(context: BundleContext, config: Config): Option[ActorSystem] = {
+        val (dpu, executionPath) = load(config)
         val reference = Option(context.getServiceReference(classOf[IEvaluateService]))
         if (reference.isDefined) {
             try {
                 val evaluateService = context.getService(reference.get)
                 //Only use default ActorSystem()
                 val name = "debug-system" + System.currentTimeMillis
-                val uiFactory = TypedActor(ActorSystem(name, config, classOf[ActorSystem].getClassLoader))
-                    .typedActorOf(TypedProps(classOf[UIFactory[_]], new DebugUIFactory(launchConfig.executionPath)))
+                val settings = DebugSettings(config)
+                val debugFactory = if (settings.isStreamingProgress)
+                    new SocketUIFactory(executionPath, settings)
+                else
+                    new DebugUIFactory(executionPath, settings)
+                val system = ActorSystem(name, config, classOf[ActorSystem].getClassLoader)
+                val uiFactory = TypedActor(system).typedActorOf(TypedProps(classOf[UIFactory[_]], debugFactory))
 
                 log.info("Starting evaluation on ActorSystem " + name)
-                evaluateService.evaluate(dpu, Paths.get(launchConfig.executionPath).toUri, uiFactory, null, null, null, null)
+                evaluateService.evaluate(dpu, Paths.get(executionPath).toUri, uiFactory, null, null, null, null)
+                return Some(system)
             } catch {
                 case e: ValidationException => log.error(e.getErrors.toString);
             }
         }
+        None
     }
 
-    def stop(context: BundleContext) = {
-        log.info("Stopping DebugLauncher Bundle")
+    /**
+     * Builds the DPU from the execution plan compiled by the IDE. Falls
+     * back to parsing the DPU file if there is no plan.
+     *
+     * @return (dpu, executionPath)
+     */
+    private def load(config: Config): (IDataProcessingUnit, String) = {
+        if (config.hasPath(ExecutionPlan.PLAN_KEY)) {
+            val plan = Paths.get(config.getString(ExecutionPlan.PLAN_KEY))
+            try {
+                return (ExecutionPlan.read(plan).toDPU, config.getString("dpu.executionpath"))
+            } catch {
+                case e: IOException => log.warn("Could not read execution plan " + plan + ". Loading DPU.", e)
+            }
+        }
+        val launchConfig = new LaunchConfiguration(config)
+        (launchConfig.dpu, launchConfig.executionPath)
     }
 
     private def listFactories(context: BundleContext) = {
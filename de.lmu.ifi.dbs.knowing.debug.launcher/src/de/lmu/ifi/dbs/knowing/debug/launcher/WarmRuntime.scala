@@ -0,0 +1,154 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.launcher
+
+import java.io.{ BufferedReader, BufferedWriter, File, IOException, InputStreamReader, OutputStreamWriter, Writer }
+import java.net.{ InetSocketAddress, Socket }
+import java.nio.charset.Charset
+import java.util.concurrent.{ TimeUnit, TimeoutException }
+import org.osgi.framework.BundleContext
+import org.slf4j.LoggerFactory
+import com.typesafe.config.{ Config, ConfigFactory }
+import akka.actor.ActorSystem
+import akka.util.Duration
+import de.lmu.ifi.dbs.knowing.debug.presenter.ControlChannel
+
+/**
+ * Keeps the launcher runtime alive after the first run. Connects to the
+ * control channel of the IDE and runs every requested DPU on its own
+ * ActorSystem. The ActorSystem of the previous run is shut down before the
+ * next run starts. A run is rejected if the previous one doesn't terminate
+ * in time. The framework stops if the IDE sends stop or closes the
+ * channel. A run which fails to start is reported back to the IDE and the
+ * runtime waits for the next command.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-27
+ * @see ControlChannel
+ */
+class WarmRuntime(context: BundleContext, endpoint: String, first: Option[ActorSystem], runDPU: Config => Option[ActorSystem])
+	extends Runnable {
+
+	import WarmRuntime._
+
+	private val log = LoggerFactory.getLogger(classOf[WarmRuntime])
+
+	private var system = first
+	@volatile private var socket: Socket = _
+	@volatile private var writer: Writer = _
+	@volatile private var closed = false
+
+	def start() {
+		val thread = new Thread(this, "WarmRuntime")
+		thread.setDaemon(true)
+		thread.start()
+	}
+
+	def run() {
+		try {
+			socket = connect(endpoint)
+			val reader = new BufferedReader(new InputStreamReader(socket.getInputStream, Charset.defaultCharset))
+			writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream, Charset.defaultCharset))
+			log.info("Warm runtime connected to " + endpoint)
+			var line = reader.readLine()
+			while (line != null && execute(line))
+				line = reader.readLine()
+		} catch {
+			case e: IOException => if (!closed) log.error("Control channel failed", e)
+		} finally {
+			shutdown()
+			if (!closed) {
+				log.info("Stopping warm runtime")
+				context.getBundle(0).stop()
+			}
+		}
+	}
+
+	/** Called when the framework stops */
+	def close() {
+		closed = true
+		shutdown()
+		if (socket != null)
+			socket.close()
+	}
+
+	/**
+	 * @return false if the runtime should stop
+	 */
+	private def execute(line: String): Boolean = ControlChannel.parse(line) match {
+		case (ControlChannel.RUN, applicationConf) if !shutdown() =>
+			reply(ControlChannel.failed("Previous run didn't terminate, rejected " + applicationConf))
+			true
+		case (ControlChannel.RUN, applicationConf) =>
+			try {
+				// Only the defaults, nothing of the previous run
+				val config = ConfigFactory.load(ConfigFactory.parseFile(new File(applicationConf)))
+				log.info("Running " + applicationConf)
+				system = runDPU(config)
+				if (system.isEmpty)
+					reply(ControlChannel.failed("No DPU in " + applicationConf))
+			} catch {
+				case e: Exception =>
+					log.error("Run of " + applicationConf + " failed", e)
+					reply(ControlChannel.failed(e.toString))
+			}
+			true
+		case (ControlChannel.STOP, _) => false
+		case (command, _) =>
+			log.warn("Unknown command " + command)
+			true
+	}
+
+	private def reply(line: String) = synchronized {
+		try {
+			writer.write(line)
+			writer.write('\n')
+			writer.flush()
+		} catch {
+			case e: IOException => log.warn("Could not report to " + endpoint, e)
+		}
+	}
+
+	/**
+	 * @return false if the ActorSystem of the previous run didn't terminate
+	 *         within the TERMINATION_TIMEOUT
+	 */
+	private def shutdown(): Boolean = synchronized {
+		system match {
+			case Some(previous) =>
+				previous.shutdown()
+				try {
+					previous.awaitTermination(Duration(TERMINATION_TIMEOUT, TimeUnit.MILLISECONDS))
+					system = None
+					true
+				} catch {
+					case e: TimeoutException =>
+						log.warn("Previous run didn't terminate within " + TERMINATION_TIMEOUT + "ms")
+						false
+				}
+			case None => true
+		}
+	}
+
+	private def connect(endpoint: String): Socket = {
+		val separator = endpoint.lastIndexOf(':')
+		val socket = new Socket
+		socket.connect(new InetSocketAddress(endpoint.substring(0, separator), endpoint.substring(separator + 1).toInt))
+		socket
+	}
+}
+
+object WarmRuntime {
+
+	/** Milliseconds the ActorSystem of the previous run has to terminate */
+	val TERMINATION_TIMEOUT = 30000L
+}
@@ -0,0 +1,158 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SparseInstance;
+import weka.core.Utils;
+import weka.core.converters.ArffSaver;
+import weka.core.converters.Saver;
+
+/**
+ * Generates datasets for the ARFF writer and writes them with the
+ * incremental ArffSaver for reference. Read datasets are compared by
+ * value.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+final class ArffData {
+
+    /** Values the number formatting has to get right */
+    static final double[] NUMBERS = { 0.0, -0.0, 1.0, -1.0, 0.5, -0.5, 1e-7, -1e-7, 4e-7, 5e-7, -5e-7, 0.0000015,
+            123456.1234565, -98765.4321, 1e12, 9.2e12, 9.3e12, -9.3e12, 1e15, 1e300, -1e300, Double.MIN_VALUE,
+            Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Math.PI, -Math.E,
+            0.1 + 0.2, 2.675, 1.0000005, 0.9999995, 10, 100, 1000000 };
+
+    static final double[] WEIGHTS = { 1.0, 1.0, 1.0, 0.0, 0.5, 2.0, -1.0, 1e-7, 1e15, 1.0000001 };
+
+    private ArffData() {
+    }
+
+    /**
+     * @param rows
+     * @param seed
+     * @return numeric, nominal, string and date attributes with missing
+     *         values and weights
+     */
+    static Instances mixed(int rows, long seed) {
+        Random random = new Random(seed);
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("x"));
+        attributes.add(new Attribute("class", Arrays.asList("a", "b c", "d'e", "f,g", "{h}", "ü")));
+        attributes.add(new Attribute("comment", (List<String>) null));
+        attributes.add(new Attribute("date", "yyyy-MM-dd HH:mm:ss"));
+        attributes.add(new Attribute("y"));
+        Instances data = new Instances("mixed data", attributes, rows);
+        Attribute comment = data.attribute(2);
+        for (int i = 0; i < rows; i++) {
+            double[] values = new double[attributes.size()];
+            values[0] = random.nextInt(4) == 0 ? NUMBERS[random.nextInt(NUMBERS.length)] : random.nextGaussian() * 1000;
+            values[1] = random.nextInt(6);
+            values[2] = comment.addStringValue(random.nextBoolean() ? "plain" : "line " + i + ", 'quoted'");
+            values[3] = 1340000000000.0 + random.nextInt(1000000) * 1000.0;
+            values[4] = random.nextDouble() * Math.pow(10, random.nextInt(20) - 10);
+            for (int j = 0; j < values.length; j++)
+                if (random.nextInt(15) == 0)
+                    values[j] = Utils.missingValue();
+            double weight = WEIGHTS[random.nextInt(WEIGHTS.length)];
+            Instance instance = random.nextInt(20) == 0 ? new SparseInstance(weight, values) : new DenseInstance(weight,
+                    values);
+            data.add(instance);
+        }
+        return data;
+    }
+
+    /**
+     * @param rows
+     * @param columns - numeric
+     * @param seed
+     * @return numeric attributes and a nominal class, as most results
+     */
+    static Instances numeric(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        for (int i = 0; i < columns; i++)
+            attributes.add(new Attribute("x" + i));
+        attributes.add(new Attribute("class", Arrays.asList("first", "second", "third")));
+        Instances data = new Instances("numeric", attributes, rows);
+        for (int i = 0; i < rows; i++) {
+            double[] values = new double[columns + 1];
+            for (int j = 0; j < columns; j++)
+                values[j] = random.nextGaussian() * 100;
+            values[columns] = random.nextInt(3);
+            data.add(new DenseInstance(1.0, values));
+        }
+        return data;
+    }
+
+    /**
+     * Writes the data as the writers did before the ArffResultWriter.
+     */
+    static void save(Instances data, File file) throws IOException {
+        ArffSaver saver = new ArffSaver();
+        saver.setRetrieval(Saver.INCREMENTAL);
+        saver.setInstances(new Instances(data, 0));
+        saver.setFile(file);
+        for (Instance instance : data)
+            saver.writeIncremental(instance);
+        saver.writeIncremental(null);
+    }
+
+    static void write(Instances data, File file) throws IOException {
+        ArffResultWriter writer = new ArffResultWriter(file.toPath());
+        try {
+            writer.writeHeader(data);
+            for (Instance instance : data)
+                writer.write(instance);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Compares weights and values. Nominal and string values are compared
+     * as text, because the string indices depend on the reader.
+     */
+    static void assertSameData(Instances expected, Instances actual) {
+        assertEquals(expected.relationName(), actual.relationName());
+        assertEquals(expected.numAttributes(), actual.numAttributes());
+        assertEquals(expected.numInstances(), actual.numInstances());
+        for (int row = 0; row < expected.numInstances(); row++) {
+            Instance e = expected.instance(row);
+            Instance a = actual.instance(row);
+            assertEquals("weight of row " + row, e.weight(), a.weight(), 0.0);
+            for (int i = 0; i < expected.numAttributes(); i++) {
+                String message = "row " + row + ", attribute " + i;
+                assertEquals(message, e.isMissing(i), a.isMissing(i));
+                if (e.isMissing(i))
+                    continue;
+                if (expected.attribute(i).isNominal() || expected.attribute(i).isString())
+                    assertEquals(message, e.stringValue(i), a.stringValue(i));
+                else
+                    assertEquals(message, e.value(i), a.value(i), 0.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import java.io.File;
+
+import weka.core.Instances;
+
+/**
+ * Compares the ArffResultWriter with the incremental ArffSaver on a
+ * typical numeric result. The writer is expected to be at least three
+ * times faster.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ * @see Benchmark
+ */
+public class ArffResultWriterBenchmark {
+
+    private static final int ROWS = 100000;
+    private static final int COLUMNS = 10;
+    private static final double TARGET_SPEEDUP = 3.0;
+
+    public static void main(String[] args) throws Exception {
+        final Instances data = ArffData.numeric(ROWS, COLUMNS, 1);
+        final File file = File.createTempFile("benchmark", ".arff");
+        file.deleteOnExit();
+
+        double saver = Benchmark.measure("ArffSaver", ROWS, new Benchmark.Task() {
+
+            @Override
+            public long run() throws Exception {
+                ArffData.save(data, file);
+                return file.length();
+            }
+        });
+        double writer = Benchmark.measure("ArffResultWriter", ROWS, new Benchmark.Task() {
+
+            @Override
+            public long run() throws Exception {
+                ArffData.write(data, file);
+                return file.length();
+            }
+        });
+        Benchmark.report(saver, writer, TARGET_SPEEDUP);
+    }
+}
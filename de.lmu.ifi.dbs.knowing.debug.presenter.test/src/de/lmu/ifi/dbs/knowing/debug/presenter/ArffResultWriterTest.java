@@ -0,0 +1,102 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+/**
+ * The ArffResultWriter must produce the same bytes as the incremental
+ * ArffSaver.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+public class ArffResultWriterTest {
+
+    private File expected;
+    private File actual;
+
+    @Before
+    public void setUp() throws IOException {
+        expected = File.createTempFile("saver", ".arff");
+        actual = File.createTempFile("writer", ".arff");
+    }
+
+    @After
+    public void tearDown() {
+        expected.delete();
+        actual.delete();
+    }
+
+    @Test
+    public void numbers() throws IOException {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("value"));
+        Instances data = new Instances("numbers", attributes, ArffData.NUMBERS.length * 2);
+        for (double value : ArffData.NUMBERS) {
+            data.add(new DenseInstance(1.0, new double[] { value }));
+            data.add(new DenseInstance(1.0, new double[] { -value }));
+        }
+        assertSameOutput(data);
+    }
+
+    @Test
+    public void weights() throws IOException {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("value"));
+        Instances data = new Instances("weights", attributes, ArffData.NUMBERS.length);
+        for (double weight : ArffData.NUMBERS)
+            data.add(new DenseInstance(weight, new double[] { 1.0 }));
+        assertSameOutput(data);
+    }
+
+    @Test
+    public void mixedAttributes() throws IOException {
+        for (long seed = 0; seed < 5; seed++)
+            assertSameOutput(ArffData.mixed(2000, seed));
+    }
+
+    @Test
+    public void largerThanBuffer() throws IOException {
+        assertSameOutput(ArffData.numeric(30000, 8, 7));
+    }
+
+    @Test
+    public void emptyDataset() throws IOException {
+        assertSameOutput(ArffData.numeric(0, 3, 0));
+    }
+
+    private void assertSameOutput(Instances data) throws IOException {
+        ArffData.save(data, expected);
+        ArffData.write(data, actual);
+        byte[] saver = Files.readAllBytes(expected.toPath());
+        byte[] writer = Files.readAllBytes(actual.toPath());
+        if (saver.length == writer.length)
+            assertArrayEquals(saver, writer);
+        else // shows the first difference
+            assertEquals(new String(saver), new String(writer));
+    }
+}
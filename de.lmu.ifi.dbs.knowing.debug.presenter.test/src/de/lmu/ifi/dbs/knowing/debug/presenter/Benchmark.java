@@ -0,0 +1,82 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+/**
+ * Minimal timing harness for the benchmarks in this fragment. Each task is
+ * run for a number of warmup rounds, so the JIT has compiled the hot paths,
+ * and then measured. The best round is reported, which is the least
+ * disturbed by GC and other processes.
+ * <p>
+ * Benchmarks are plain main classes and not part of the test run. Start
+ * them as Java application with the classpath of this fragment, e.g. from
+ * the IDE, with <code>-server -Xmx1g</code>.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+public final class Benchmark {
+
+    public static final int WARMUP_ROUNDS = 10;
+    public static final int MEASURED_ROUNDS = 10;
+
+    /** Results are consumed here, so the JIT can't drop the work */
+    public static volatile long sink;
+
+    private Benchmark() {
+    }
+
+    /**
+     * @param name
+     * @param operations - per round, for the time per operation
+     * @param task
+     * @return nanoseconds per operation of the best round
+     * @throws Exception
+     */
+    public static double measure(String name, int operations, Task task) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+            sink += task.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            sink += task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double perOperation = (double) best / operations;
+        System.out.println(String.format("%-40s %12.1f ns/op %10.1f ms/round", name, perOperation, best / 1e6));
+        return perOperation;
+    }
+
+    /**
+     * Prints the speedup of the candidate and whether it reaches the target.
+     *
+     * @param baseline - ns/op
+     * @param candidate - ns/op
+     * @param target - required speedup, e.g. 3.0
+     * @return speedup
+     */
+    public static double report(double baseline, double candidate, double target) {
+        double speedup = baseline / candidate;
+        System.out.println(String.format("speedup %.2fx (target %.1fx) %s", speedup, target, speedup >= target ? "OK" : "MISSED"));
+        return speedup;
+    }
+
+    public interface Task {
+
+        /**
+         * @return any value depending on the work done
+         * @throws Exception
+         */
+        long run() throws Exception;
+    }
+}
@@ -0,0 +1,87 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+/**
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+public class ClassCountResultWriterTest {
+
+    @Test
+    public void sumsWeightsPerClass() {
+        Instances data = dataset();
+        data.add(new DenseInstance(1.0, new double[] { 1.0, 0 }));
+        data.add(new DenseInstance(2.0, new double[] { 2.0, 0 }));
+        data.add(new DenseInstance(1.0, new double[] { 3.0, 2 }));
+        data.add(new DenseInstance(1.0, new double[] { 4.0, Utils.missingValue() }));
+
+        CollectingResultWriter result = new CollectingResultWriter();
+        ClassCountResultWriter writer = new ClassCountResultWriter(result);
+        writer.writeHeader(data);
+        writer.write(data);
+        writer.close();
+
+        assertTrue(result.closed);
+        assertEquals(3, result.rows.size());
+        assertCount(result.rows.get(0), 0, 3.0);
+        assertCount(result.rows.get(1), 2, 1.0);
+        assertTrue(result.rows.get(2).isMissing(1));
+        assertEquals(1.0, result.rows.get(2).weight(), 0.0);
+        for (Instance row : result.rows)
+            assertTrue(row.isMissing(0));
+    }
+
+    @Test
+    public void passesThroughWithoutClass() {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("x"));
+        Instances data = new Instances("numeric", attributes, 2);
+        data.add(new DenseInstance(1.0, new double[] { 1.0 }));
+        data.add(new DenseInstance(1.0, new double[] { 2.0 }));
+
+        CollectingResultWriter result = new CollectingResultWriter();
+        ClassCountResultWriter writer = new ClassCountResultWriter(result);
+        writer.writeHeader(data);
+        writer.write(data);
+        writer.close();
+
+        assertEquals(2, result.rows.size());
+        assertEquals(2.0, result.rows.get(1).value(0), 0.0);
+    }
+
+    private static void assertCount(Instance row, int value, double count) {
+        assertEquals(value, row.value(1), 0.0);
+        assertEquals(count, row.weight(), 0.0);
+    }
+
+    private static Instances dataset() {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("x"));
+        attributes.add(new Attribute("class", Arrays.asList("a", "b", "c")));
+        return new Instances("classes", attributes, 4);
+    }
+}
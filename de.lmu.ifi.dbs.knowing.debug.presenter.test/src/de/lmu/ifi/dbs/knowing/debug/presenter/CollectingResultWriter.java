@@ -0,0 +1,63 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Keeps everything written in memory.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+class CollectingResultWriter implements ResultWriter {
+
+    Instances rows;
+    boolean closed;
+
+    @Override
+    public void writeHeader(Instances header) {
+        if (rows == null)
+            rows = new Instances(header, 0);
+    }
+
+    @Override
+    public void write(Instance instance) {
+        rows.add(instance);
+    }
+
+    @Override
+    public void write(Instances instances) {
+        for (Instance instance : instances)
+            write(instance);
+    }
+
+    @Override
+    public long position() {
+        return rows == null ? 0 : rows.size();
+    }
+
+    @Override
+    public int pending() {
+        return 0;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
@@ -0,0 +1,133 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Rows written by the ColumnarResultWriter must be read back unchanged by
+ * the ColumnarReader.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+public class ColumnarResultWriterTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("writer", ColumnarFormat.EXTENSION());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void mixedAttributes() throws IOException {
+        for (long seed = 0; seed < 3; seed++)
+            assertRoundTrip(ArffData.mixed(2000, seed));
+    }
+
+    @Test
+    public void partialLastGroup() throws IOException {
+        assertRoundTrip(ArffData.mixed(ColumnarFormat.GROUP_SIZE() * 2 + 17, 3));
+    }
+
+    @Test
+    public void emptyDataset() throws IOException {
+        assertRoundTrip(ArffData.numeric(0, 3, 0));
+    }
+
+    @Test
+    public void flushKeepsGroupsFull() throws IOException {
+        Instances data = ArffData.numeric(10, 3, 1);
+        ColumnarResultWriter writer = new ColumnarResultWriter(file.toPath());
+        try {
+            writer.writeHeader(data);
+            long header = writer.position();
+            for (Instance instance : data)
+                writer.write(instance);
+            writer.flush();
+            assertEquals(header, writer.position());
+            assertEquals(10, writer.pending());
+        } finally {
+            writer.close();
+        }
+        ArffData.assertSameData(data, read());
+    }
+
+    @Test
+    public void liveFlushWritesPendingRows() throws IOException {
+        Instances data = ArffData.numeric(10, 3, 2);
+        ColumnarResultWriter writer = new ColumnarResultWriter(file.toPath(), true);
+        try {
+            writer.writeHeader(data);
+            for (Instance instance : data)
+                writer.write(instance);
+            writer.flush();
+            assertEquals(0, writer.pending());
+            ArffData.assertSameData(data, read());
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void containerWithoutHeader() throws IOException {
+        ColumnarReader reader = new ColumnarReader(file.toPath());
+        try {
+            assertFalse(reader.hasHeader());
+            Instances rows = reader.readAll();
+            assertEquals(0, rows.numAttributes());
+            assertEquals(0, rows.numInstances());
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void assertRoundTrip(Instances data) throws IOException {
+        ColumnarResultWriter writer = new ColumnarResultWriter(file.toPath());
+        try {
+            writer.writeHeader(data);
+            for (Instance instance : data)
+                writer.write(instance);
+        } finally {
+            writer.close();
+        }
+        ArffData.assertSameData(data, read());
+    }
+
+    private Instances read() throws IOException {
+        ColumnarReader reader = new ColumnarReader(file.toPath());
+        try {
+            assertTrue(reader.hasHeader());
+            return reader.readAll();
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.lmu.ifi.dbs.knowing.core.model.IDataProcessingUnit;
+import de.lmu.ifi.dbs.knowing.core.model.IEdge;
+import de.lmu.ifi.dbs.knowing.core.model.INode;
+import de.lmu.ifi.dbs.knowing.core.model.IParameter;
+import de.lmu.ifi.dbs.knowing.core.model.IProperty;
+import de.lmu.ifi.dbs.knowing.core.model.NodeType;
+
+/**
+ * Plans compiled from a DPU must be read back unchanged, with the nodes in
+ * execution order. Invalid DPUs must not compile.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+public class ExecutionPlanTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("execution", ".plan");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        StringBuilder query = new StringBuilder();
+        while (query.length() < 70000)
+            query.append("SELECT ä, € FROM results; ");
+
+        // document order is the reverse of the execution order
+        IDataProcessingUnit dpu = dpu("pipeline");
+        addParameter(dpu, "threshold", "0.5");
+        addParameter(dpu, "iterations", "10");
+        addNode(dpu, "presenter", NodeType.PRESENTER);
+        addNode(dpu, "filter", NodeType.PROCESSOR);
+        INode loader = addNode(dpu, "loader", NodeType.LOADER);
+        IProperty property = loader.getProperties().addNewElement();
+        property.setKey("query");
+        property.setValue(query.toString());
+        addEdge(dpu, "filter2presenter", "filter", "presenter");
+        IEdge edge = addEdge(dpu, "loader2filter", "loader", "filter");
+        edge.setSourcePort("train");
+
+        Map<String, String> launchParameters = Collections.singletonMap("threshold", "0.9");
+        ExecutionPlan.compile(dpu, launchParameters).write(file);
+        ExecutionPlan plan = ExecutionPlan.read(file);
+
+        assertEquals("pipeline", plan.name());
+        assertEquals(2, plan.parameters().length);
+        assertEquals("threshold", plan.parameters()[0]._1());
+        assertEquals("0.9", plan.parameters()[0]._2());
+        assertEquals("iterations", plan.parameters()[1]._1());
+        assertEquals("10", plan.parameters()[1]._2());
+
+        assertEquals(3, plan.nodes().length);
+        assertEquals("loader", plan.nodes()[0].id());
+        assertEquals("filter", plan.nodes()[1].id());
+        assertEquals("presenter", plan.nodes()[2].id());
+        assertEquals("loader.factory", plan.nodes()[0].factoryId());
+        assertEquals(NodeType.LOADER, plan.toDPU().getNodes().get(0).getType().getContent());
+        assertEquals("query", plan.nodes()[0].properties()[0]._1());
+        assertEquals(query.toString(), plan.nodes()[0].properties()[0]._2());
+
+        assertEquals(2, plan.edges().length);
+        assertEquals("filter2presenter", plan.edges()[0].id());
+        assertEquals(1, plan.edges()[0].source());
+        assertEquals(2, plan.edges()[0].target());
+        assertEquals("", plan.edges()[0].sourcePort());
+        assertEquals("loader2filter", plan.edges()[1].id());
+        assertEquals(0, plan.edges()[1].source());
+        assertEquals(1, plan.edges()[1].target());
+        assertEquals("train", plan.edges()[1].sourcePort());
+    }
+
+    @Test
+    public void duplicateNodeIsRejected() {
+        IDataProcessingUnit dpu = dpu("duplicate");
+        addNode(dpu, "loader", NodeType.LOADER);
+        addNode(dpu, "loader", NodeType.PROCESSOR);
+        assertInvalid(dpu, "Duplicate node loader");
+    }
+
+    @Test
+    public void duplicateEdgeIsRejected() {
+        IDataProcessingUnit dpu = dpu("duplicate");
+        addNode(dpu, "loader", NodeType.LOADER);
+        addNode(dpu, "presenter", NodeType.PRESENTER);
+        addEdge(dpu, "edge", "loader", "presenter");
+        addEdge(dpu, "edge", "loader", "presenter");
+        assertInvalid(dpu, "Duplicate edge edge");
+    }
+
+    @Test
+    public void unknownNodeIsRejected() {
+        IDataProcessingUnit dpu = dpu("unknown");
+        addNode(dpu, "loader", NodeType.LOADER);
+        addEdge(dpu, "edge", "loader", "presenter");
+        assertInvalid(dpu, "Edge edge has unknown target presenter");
+    }
+
+    private static void assertInvalid(IDataProcessingUnit dpu, String error) {
+        try {
+            ExecutionPlan.compile(dpu, null);
+            fail("Invalid DPU compiled");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(error));
+        }
+    }
+
+    private static IDataProcessingUnit dpu(String name) {
+        IDataProcessingUnit dpu = IDataProcessingUnit.TYPE.instantiate();
+        dpu.setName(name);
+        return dpu;
+    }
+
+    private static void addParameter(IDataProcessingUnit dpu, String key, String value) {
+        IParameter parameter = dpu.getParameters().addNewElement();
+        parameter.setKey(key);
+        parameter.setValue(value);
+    }
+
+    private static INode addNode(IDataProcessingUnit dpu, String id, NodeType type) {
+        INode node = dpu.getNodes().addNewElement();
+        node.setId(id);
+        node.setFactoryId(id + ".factory");
+        node.setType(type);
+        return node;
+    }
+
+    private static IEdge addEdge(IDataProcessingUnit dpu, String id, String source, String target) {
+        IEdge edge = dpu.getEdges().addNewElement();
+        edge.setId(id);
+        edge.setSource(source);
+        edge.setTarget(target);
+        return edge;
+    }
+}
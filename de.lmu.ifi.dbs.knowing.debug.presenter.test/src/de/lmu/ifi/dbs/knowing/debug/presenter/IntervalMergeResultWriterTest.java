@@ -0,0 +1,92 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+
+/**
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+public class IntervalMergeResultWriterTest {
+
+    @Test
+    public void mergesOverlappingAndTouching() {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("from"));
+        attributes.add(new Attribute("to"));
+        Instances data = new Instances("intervals", attributes, 6);
+        add(data, 0, 2, -1);
+        add(data, 5, 6, -1);
+        add(data, 2, 3, -1);
+        add(data, 10, 8, -1);
+        add(data, 1, 1.5, -1);
+
+        Instances merged = merge(data);
+        assertEquals(3, merged.size());
+        assertEquals("0,3,{3}", merged.get(0).toString());
+        assertEquals("5,6", merged.get(1).toString());
+        assertEquals("8,10", merged.get(2).toString());
+
+        // Spans all
+        add(data, -1, 20, -1);
+        merged = merge(data);
+        assertEquals(1, merged.size());
+        assertEquals("-1,20,{6}", merged.get(0).toString());
+    }
+
+    @Test
+    public void mergesPerClass() {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("from"));
+        attributes.add(new Attribute("to"));
+        attributes.add(new Attribute("class", Arrays.asList("a", "b")));
+        Instances data = new Instances("intervals", attributes, 4);
+        add(data, 0, 2, 0);
+        add(data, 1, 3, 0);
+        add(data, 1, 3, 1);
+        add(data, 4, 5, 0);
+
+        Instances merged = merge(data);
+        assertEquals(3, merged.size());
+        assertEquals("0,3,a,{2}", merged.get(0).toString());
+        assertEquals("4,5,a", merged.get(1).toString());
+        assertEquals("1,3,b", merged.get(2).toString());
+    }
+
+    private static Instances merge(Instances data) {
+        CollectingResultWriter result = new CollectingResultWriter();
+        IntervalMergeResultWriter writer = new IntervalMergeResultWriter(result);
+        writer.writeHeader(data);
+        writer.write(data);
+        writer.close();
+        return result.rows;
+    }
+
+    private static void add(Instances data, double from, double to, int value) {
+        double[] values = new double[data.numAttributes()];
+        values[0] = from;
+        values[1] = to;
+        if (value >= 0)
+            values[2] = value;
+        data.add(new DenseInstance(1.0, values));
+    }
+}
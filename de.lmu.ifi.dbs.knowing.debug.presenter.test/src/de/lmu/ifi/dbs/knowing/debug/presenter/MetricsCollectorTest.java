@@ -0,0 +1,121 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+
+import com.typesafe.config.ConfigFactory;
+
+import de.lmu.ifi.dbs.knowing.core.events.Finished;
+import de.lmu.ifi.dbs.knowing.core.events.Progress;
+import de.lmu.ifi.dbs.knowing.core.events.Ready;
+import de.lmu.ifi.dbs.knowing.core.events.Running;
+
+/**
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+public class MetricsCollectorTest {
+
+    private static ActorSystem system;
+
+    @BeforeClass
+    public static void startSystem() {
+        ClassLoader loader = ActorSystem.class.getClassLoader();
+        system = ActorSystem.create("metrics", ConfigFactory.load(loader), loader);
+    }
+
+    @AfterClass
+    public static void stopSystem() {
+        system.shutdown();
+    }
+
+    @Test
+    public void timesNode() {
+        NodeMetrics node = new NodeMetrics("node");
+        node.update(new Ready(), 0);
+        node.update(new Running(), 100);
+        node.update(new Progress("work", 10, 100), 200);
+        node.update(new Progress("work", 30, 100), 400);
+        node.update(new Finished(), 500);
+
+        assertEquals(400, node.wallTime());
+        assertEquals(100, node.queuedTime());
+        assertEquals(5, node.events());
+        // 20 units in 200 ms, in the bucket [64, 127]
+        assertEquals(1, node.rates().size());
+        assertEquals(127, node.rates().percentile(0.5));
+    }
+
+    @Test
+    public void skipsWriterStatus() {
+        NodeMetrics node = new NodeMetrics("presenter");
+        node.update(new Running(), 0);
+        node.update(new Progress("work", 10, 100), 100);
+        node.update(WriterStatus.queue(5, 16), 150);
+        node.update(WriterStatus.rate(1024 * 1024), 150);
+        node.update(new Progress("work", 20, 100), 200);
+
+        assertEquals(3, node.events());
+        assertEquals(1, node.rates().size());
+        assertEquals(127, node.rates().percentile(0.99));
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.percentile(0.5));
+        for (int i = 1; i <= 1000; i++)
+            histogram.add(i);
+        // Upper bound of the power of two bucket
+        assertEquals(511, histogram.percentile(0.5));
+        assertEquals(1023, histogram.percentile(0.99));
+        assertEquals(1, histogram.percentile(0.0));
+    }
+
+    @Test
+    public void writesOneLinePerNode() throws IOException {
+        ActorRef loader = system.actorFor("/user/loader");
+        ActorRef presenter = system.actorFor("/user/presenter");
+        Path file = Files.createTempFile("metrics", ".txt");
+        try {
+            MetricsCollector collector = new MetricsCollector(file);
+            collector.append(loader, new Running(), 1000);
+            collector.append(presenter, new Running(), 1100);
+            collector.append(loader, new Finished(), 1200);
+            collector.append(presenter, new Finished(), 1500);
+            collector.close();
+
+            List<String> lines = Files.readAllLines(file, Charset.defaultCharset());
+            assertEquals(4, lines.size());
+            assertEquals("# makespan=500ms nodes=2", lines.get(0));
+            assertTrue(lines.get(2).startsWith(loader.path().toString() + "\t200\t0\t2\t"));
+            assertTrue(lines.get(3).startsWith(presenter.path().toString() + "\t400\t0\t2\t"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import weka.core.Instance;
+import weka.core.Instances;
+
+/**
+ * Pages read through the index must match the rows written by the
+ * IndexingResultWriter, across row groups and at the end of the container.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+public class PagedResultReaderTest {
+
+    private static final int PAGE = 1000;
+
+    /** Two full row groups and a partial one */
+    private static final int ROWS = ColumnarFormat.GROUP_SIZE() * 2 + 17;
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("paged");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (String name : directory.toFile().list())
+            Files.delete(directory.resolve(name));
+        Files.delete(directory);
+    }
+
+    @Test
+    public void columnarPages() throws IOException {
+        assertPages(directory.resolve("node" + ColumnarFormat.EXTENSION()), 100);
+    }
+
+    @Test
+    public void arffPages() throws IOException {
+        assertPages(directory.resolve("node.arff"), 100);
+    }
+
+    @Test
+    public void indexIntervalLargerThanPage() throws IOException {
+        assertPages(directory.resolve("node.arff"), PAGE * 3);
+    }
+
+    private void assertPages(Path container, int interval) throws IOException {
+        Instances data = ArffData.mixed(ROWS, 7);
+        ResultWriter writer = new IndexingResultWriter(open(container), ResultIndex.indexFile(container), interval);
+        writer.writeHeader(data);
+        for (Instance instance : data)
+            writer.write(instance);
+        writer.close();
+
+        assertEquals(ROWS, ResultIndex.read(ResultIndex.indexFile(container)).size());
+        PagedResultReader reader = new PagedResultReader(container);
+        try {
+            assertEquals(ROWS, reader.size());
+            // the last page is partial
+            for (int first = 0; first < ROWS; first += PAGE)
+                assertPage(data, reader, first, PAGE);
+            // across the row group boundary
+            assertPage(data, reader, ColumnarFormat.GROUP_SIZE() - 50, 100);
+            assertPage(data, reader, ROWS - 1, PAGE);
+            assertEquals(0, reader.read(ROWS, PAGE).numInstances());
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void assertPage(Instances data, PagedResultReader reader, int first, int count) {
+        Instances expected = new Instances(data, first, Math.min(count, ROWS - first));
+        ArffData.assertSameData(expected, reader.read(first, count));
+    }
+
+    private static ResultWriter open(Path container) {
+        if (container.getFileName().toString().endsWith(ColumnarFormat.EXTENSION()))
+            return new ColumnarResultWriter(container);
+        return new ArffResultWriter(container);
+    }
+}
@@ -0,0 +1,105 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ArffLoader;
+
+/**
+ * The ParallelArffReader must read the same data as the ArffLoader.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+public class ParallelArffReaderTest {
+
+    /** Small chunks, so every file is split */
+    private static final int CHUNK_SIZE = 4096;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("reader", ".arff");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void denseRows() throws IOException {
+        for (long seed = 0; seed < 3; seed++)
+            assertSameAsLoader(dense(ArffData.mixed(2000, seed)));
+    }
+
+    @Test
+    public void sparseRows() throws IOException {
+        assertSameAsLoader(ArffData.mixed(2000, 3));
+    }
+
+    @Test
+    public void numericRows() throws IOException {
+        assertSameAsLoader(ArffData.numeric(20000, 4, 4));
+    }
+
+    @Test
+    public void emptyDataset() throws IOException {
+        assertSameAsLoader(ArffData.numeric(0, 3, 0));
+    }
+
+    @Test
+    public void invalidDateReportsLine() throws IOException {
+        String arff = "@relation dates\n\n@attribute d date 'yyyy-MM-dd'\n\n@data\n'2012-06-30'\n'2012-07-01'\n'invalid'\n";
+        Files.write(file.toPath(), Arrays.asList(arff), Charset.defaultCharset());
+        try {
+            reader().read();
+            fail("Invalid date was read");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("line 8"));
+        }
+    }
+
+    private void assertSameAsLoader(Instances data) throws IOException {
+        ArffData.save(data, file);
+        ArffLoader loader = new ArffLoader();
+        loader.setFile(file);
+        ArffData.assertSameData(loader.getDataSet(), reader().read());
+    }
+
+    private ParallelArffReader reader() {
+        return new ParallelArffReader(file.toPath(), Charset.defaultCharset(), CHUNK_SIZE);
+    }
+
+    private static Instances dense(Instances data) {
+        Instances dense = new Instances(data, data.numInstances());
+        for (Instance instance : data)
+            dense.add(new DenseInstance(instance));
+        return dense;
+    }
+}
@@ -0,0 +1,115 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import scala.Tuple2;
+import de.lmu.ifi.dbs.knowing.core.events.Status;
+
+/**
+ * Compares parsing progress lines from the read buffer with the parser the
+ * reader used before: decode each line to a String, split it and match the
+ * status string. The old parser is kept here as {@link SplitParser}, so the
+ * baseline doesn't change with ProgressLineParser.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ * @see Benchmark
+ */
+public class ProgressLineParserBenchmark {
+
+    private static final int LINES = 200000;
+    private static final int ACTORS = 100;
+
+    public static void main(String[] args) throws Exception {
+        List<String> lines = ProgressLines.generate(LINES, ACTORS, false, 1);
+        StringBuilder text = new StringBuilder();
+        for (String line : lines)
+            text.append(line).append('\n');
+        final byte[] bytes = text.toString().getBytes(ProgressLines.UTF8);
+        final int[] starts = new int[lines.size()];
+        final int[] lengths = new int[lines.size()];
+        int line = 0;
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                starts[line] = start;
+                lengths[line++] = i - start;
+                start = i + 1;
+            }
+        }
+
+        // Both parsers must agree, otherwise the comparison is meaningless
+        SplitParser oldParser = new SplitParser();
+        ProgressLineParser newParser = new ProgressLineParser(ProgressLines.UTF8);
+        for (int i = 0; i < starts.length; i++) {
+            Tuple2<String, Status> expected = oldParser.parse(new String(bytes, starts[i], lengths[i], ProgressLines.UTF8));
+            Tuple2<String, Status> actual = newParser.parse(bytes, starts[i], lengths[i]);
+            if (expected == null ? actual != null : !expected.equals(actual))
+                throw new AssertionError("Line " + i + ": " + expected + " != " + actual);
+        }
+
+        double strings = Benchmark.measure("Split String lines (old)", lines.size(), new Benchmark.Task() {
+
+            @Override
+            public long run() {
+                SplitParser parser = new SplitParser();
+                long hash = 0;
+                for (int i = 0; i < starts.length; i++)
+                    hash += hash(parser.parse(new String(bytes, starts[i], lengths[i], ProgressLines.UTF8)));
+                return hash;
+            }
+        });
+        double buffer = Benchmark.measure("Bytes from read buffer", lines.size(), new Benchmark.Task() {
+
+            @Override
+            public long run() {
+                ProgressLineParser parser = new ProgressLineParser(ProgressLines.UTF8);
+                long hash = 0;
+                for (int i = 0; i < starts.length; i++)
+                    hash += hash(parser.parse(bytes, starts[i], lengths[i]));
+                return hash;
+            }
+        });
+        Benchmark.report(strings, buffer, 1.0);
+    }
+
+    private static int hash(Tuple2<String, Status> event) {
+        return event == null ? 0 : System.identityHashCode(event._2());
+    }
+
+    /**
+     * The String parser before the byte parser was added.
+     */
+    static class SplitParser {
+
+        private final List<String> paths = new ArrayList<>();
+
+        Tuple2<String, Status> parse(String line) {
+            int separator = line.indexOf(';');
+            if (line.charAt(0) == ProgressLineParser.DEFINE()) {
+                int id = Integer.parseInt(line.substring(1, separator));
+                while (paths.size() <= id)
+                    paths.add(null);
+                paths.set(id, line.substring(separator + 1));
+                return null;
+            } else if (Character.isDigit(line.charAt(0))) {
+                String path = paths.get(Integer.parseInt(line.substring(0, separator)));
+                return new Tuple2<String, Status>(path, ProgressReader.parseStatus(line.substring(separator + 1)));
+            } else {
+                return ProgressReader.parseLine(line);
+            }
+        }
+    }
+}
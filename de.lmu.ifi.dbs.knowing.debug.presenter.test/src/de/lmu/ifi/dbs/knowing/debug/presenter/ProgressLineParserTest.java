@@ -0,0 +1,144 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import scala.Tuple2;
+import de.lmu.ifi.dbs.knowing.core.events.ExceptionEvent;
+import de.lmu.ifi.dbs.knowing.core.events.Progress;
+import de.lmu.ifi.dbs.knowing.core.events.Status;
+
+/**
+ * The byte parser must return the same results, and fail with the same
+ * exceptions, as ProgressReader.parseStatus.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+public class ProgressLineParserTest {
+
+    @Test
+    public void generatedLinesEqualStringParser() {
+        for (long seed = 0; seed < 20; seed++)
+            assertEquivalent(ProgressLines.generate(5000, 50, true, seed));
+    }
+
+    @Test
+    public void linesInSharedBuffer() {
+        // The reader passes lines as slices of its read buffer
+        List<String> lines = ProgressLines.generate(1000, 10, false, 42);
+        StringBuilder text = new StringBuilder();
+        for (String line : lines)
+            text.append(line).append('\n');
+        byte[] bytes = text.toString().getBytes(ProgressLines.UTF8);
+
+        ProgressLineParser parser = new ProgressLineParser(ProgressLines.UTF8);
+        Map<Integer, String> paths = new HashMap<>();
+        int start = 0;
+        int line = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n')
+                continue;
+            Tuple2<String, Status> actual = parser.parse(bytes, start, i - start);
+            assertLine(lines.get(line++), paths, actual);
+            start = i + 1;
+        }
+        assertEquals(lines.size(), line);
+    }
+
+    @Test
+    public void sameTaskIsShared() {
+        ProgressLineParser parser = new ProgressLineParser(ProgressLines.UTF8);
+        parse(parser, "@0;akka://system/user/node");
+        Tuple2<String, Status> first = parse(parser, "0;Progress(train,1,10)");
+        Tuple2<String, Status> second = parse(parser, "0;Progress(train,2,10)");
+        assertEquals(first._1(), second._1());
+        if (task(first) != task(second))
+            fail("Task of the same actor is decoded twice");
+    }
+
+    private static void assertEquivalent(List<String> lines) {
+        ProgressLineParser parser = new ProgressLineParser(ProgressLines.UTF8);
+        Map<Integer, String> paths = new HashMap<>();
+        for (String line : lines) {
+            Tuple2<String, Status> actual;
+            try {
+                actual = parse(parser, line);
+            } catch (RuntimeException e) {
+                assertSameFailure(line, e);
+                continue;
+            }
+            assertLine(line, paths, actual);
+        }
+    }
+
+    /**
+     * Expected results are computed with ProgressReader only.
+     */
+    private static void assertLine(String line, Map<Integer, String> paths, Tuple2<String, Status> actual) {
+        if (line.charAt(0) == ProgressLineParser.DEFINE()) {
+            int separator = line.indexOf(';');
+            paths.put(Integer.valueOf(line.substring(1, separator)), line.substring(separator + 1));
+            assertNull(line, actual);
+            return;
+        }
+        Tuple2<String, Status> expected;
+        if (Character.isDigit(line.charAt(0))) {
+            int separator = line.indexOf(';');
+            String path = paths.get(Integer.valueOf(line.substring(0, separator)));
+            expected = new Tuple2<>(path, ProgressReader.parseStatus(line.substring(separator + 1)));
+        } else {
+            expected = ProgressReader.parseLine(line);
+        }
+        assertEquals(line, expected._1(), actual._1());
+        assertStatus(line, expected._2(), actual._2());
+    }
+
+    private static void assertStatus(String line, Status expected, Status actual) {
+        // Exceptions don't implement equals
+        if (expected instanceof ExceptionEvent) {
+            assertEquals(line, expected.getClass(), actual.getClass());
+            assertEquals(line, expected.toString(), actual.toString());
+        } else {
+            assertEquals(line, expected, actual);
+        }
+    }
+
+    private static void assertSameFailure(String line, RuntimeException actual) {
+        int separator = line.indexOf(';');
+        try {
+            ProgressReader.parseStatus(line.substring(separator + 1));
+        } catch (RuntimeException expected) {
+            assertEquals(line, expected.getClass(), actual.getClass());
+            return;
+        }
+        fail("Byte parser failed, String parser didn't: " + line + " " + actual);
+    }
+
+    private static Tuple2<String, Status> parse(ProgressLineParser parser, String line) {
+        byte[] bytes = line.getBytes(ProgressLines.UTF8);
+        return parser.parse(bytes, 0, bytes.length);
+    }
+
+    private static String task(Tuple2<String, Status> event) {
+        return ((Progress) event._2()).task();
+    }
+}
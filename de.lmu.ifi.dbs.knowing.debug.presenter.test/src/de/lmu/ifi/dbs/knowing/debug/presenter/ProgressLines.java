@@ -0,0 +1,94 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates lines of the text progress protocol as written by the
+ * ProgressWriter, including the edge cases the byte parser hands over to
+ * the String parser.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+final class ProgressLines {
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final String[] STATES = { "Created()", "Ready()", "Waiting()", "Running()", "Finished()", "Shutdown()",
+            "UpdateUI()" };
+    private static final String[] TASKS = { "", "load", "train model", "übersetzen", "a;b", "cross validation 10/10" };
+
+    private ProgressLines() {
+    }
+
+    /**
+     * @param count - number of event lines
+     * @param actors - number of defined actor paths
+     * @param edgeCases - include lines with full paths, exceptions, commas
+     *            in tasks and numbers which don't fit an int
+     * @param seed
+     * @return lines without line separator, definitions first
+     */
+    static List<String> generate(int count, int actors, boolean edgeCases, long seed) {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<>(count + actors);
+        for (int id = 0; id < actors; id++)
+            lines.add(ProgressLineParser.DEFINE() + Integer.toString(id) + ";" + path(id));
+        for (int i = 0; i < count; i++) {
+            int id = random.nextInt(actors);
+            String status;
+            int kind = random.nextInt(edgeCases ? 12 : 10);
+            if (kind < 4) {
+                status = STATES[random.nextInt(STATES.length)];
+            } else if (kind < 10) {
+                // Same task repeated, as in a real run
+                String task = TASKS[id % TASKS.length];
+                status = "Progress(" + task + "," + random.nextInt(1000) + "," + (1000 + random.nextInt(1000)) + ")";
+            } else {
+                status = edgeCase(random);
+            }
+            if (edgeCases && random.nextInt(20) == 0)
+                lines.add(path(id) + ";" + status);
+            else
+                lines.add(id + ";" + status);
+        }
+        return lines;
+    }
+
+    private static String edgeCase(Random random) {
+        switch (random.nextInt(7)) {
+        case 0:
+            return "Progress(a,b," + random.nextInt(10) + ")";
+        case 1:
+            return "Progress(task,-" + random.nextInt(1000) + ",+" + random.nextInt(1000) + ")";
+        case 2:
+            return "Progress(task,2147483647,-2147483648)";
+        case 3:
+            return "Progress(task,9999999999,1)";
+        case 4:
+            return "Progress(task,,1)";
+        case 5:
+            return "Progress(" + TASKS[3] + random.nextInt(3) + ",1,2)";
+        default:
+            return "ExceptionEvent(java.lang.Exception: failed,details " + random.nextInt(10) + ")";
+        }
+    }
+
+    static String path(int id) {
+        return "akka://debug-system/user/supervisor/nöde-" + id;
+    }
+}
@@ -0,0 +1,157 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import weka.core.Attribute;
+
+/**
+ * Compares the approximate statistics with exact ones on known
+ * distributions.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+public class ResultStatisticsTest {
+
+    private static final int ROWS = 100000;
+
+    /** Maximum difference of the rank of a quantile estimate */
+    private static final double RANK_ERROR = 0.02;
+
+    /** Three standard errors of a HyperLogLog with p = 12 */
+    private static final double DISTINCT_ERROR = 3 * 1.04 / Math.sqrt(1 << 12);
+
+    @Test
+    public void quantilesOfUniformValues() {
+        Random random = new Random(0);
+        double[] values = new double[ROWS];
+        for (int i = 0; i < ROWS; i++)
+            values[i] = random.nextDouble();
+        assertQuantiles(values);
+    }
+
+    @Test
+    public void quantilesOfGaussianValues() {
+        Random random = new Random(1);
+        double[] values = new double[ROWS];
+        for (int i = 0; i < ROWS; i++)
+            values[i] = random.nextGaussian() * 100;
+        assertQuantiles(values);
+    }
+
+    @Test
+    public void quantilesOfSortedValues() {
+        double[] values = new double[ROWS];
+        for (int i = 0; i < ROWS; i++)
+            values[i] = i;
+        assertQuantiles(values);
+    }
+
+    @Test
+    public void distinctNumbers() {
+        for (int distinct : new int[] { 100, 1000, 10000, ROWS, 10 * ROWS }) {
+            HyperLogLog hll = new HyperLogLog(12);
+            for (int i = 0; i < distinct; i++) {
+                hll.add((double) i);
+                // duplicates don't count
+                hll.add((double) i);
+            }
+            assertDistinct(distinct, hll.estimate());
+        }
+    }
+
+    @Test
+    public void distinctStrings() {
+        for (int distinct : new int[] { 100, 1000, 10000, ROWS }) {
+            HyperLogLog hll = new HyperLogLog(12);
+            for (int i = 0; i < distinct; i++)
+                hll.add("value " + i);
+            assertDistinct(distinct, hll.estimate());
+        }
+    }
+
+    @Test
+    public void varianceWithLargeOffset() {
+        Random random = new Random(2);
+        double[] values = new double[ROWS];
+        AttributeStatistics statistics = new AttributeStatistics(new Attribute("x"));
+        for (int i = 0; i < ROWS; i++) {
+            values[i] = 1e9 + random.nextGaussian() * 10;
+            statistics.add(values[i]);
+        }
+
+        double sum = 0;
+        for (double value : values)
+            sum += value;
+        double mean = sum / ROWS;
+        double squares = 0;
+        for (double value : values)
+            squares += (value - mean) * (value - mean);
+        double variance = squares / (ROWS - 1);
+
+        assertEquals(mean, statistics.average(), mean * 1e-12);
+        assertEquals(variance, statistics.variance(), variance * 1e-6);
+    }
+
+    @Test
+    public void varianceOfFewValues() {
+        AttributeStatistics statistics = new AttributeStatistics(new Attribute("x"));
+        assertTrue(Double.isNaN(statistics.variance()));
+        for (double value : new double[] { 2, 4, 4, 4, 5, 5, 7, 9 })
+            statistics.add(value);
+        assertEquals(5.0, statistics.average(), 0.0);
+        assertEquals(32.0 / 7, statistics.variance(), 1e-12);
+    }
+
+    /**
+     * Every estimated percentile must have a rank within RANK_ERROR of the
+     * requested one.
+     */
+    private static void assertQuantiles(double[] values) {
+        QuantileSketch sketch = new QuantileSketch(QuantileSketch.DEFAULT_K(), new Random(42));
+        for (double value : values)
+            sketch.add(value);
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (int percent = 1; percent < 100; percent++) {
+            double q = percent / 100.0;
+            double estimate = sketch.quantile(q);
+            double rank = rank(sorted, estimate) / (double) sorted.length;
+            assertEquals("p" + percent, q, rank, RANK_ERROR);
+        }
+    }
+
+    /**
+     * @return number of values less than or equal to value
+     */
+    private static int rank(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0)
+            return -index - 1;
+        while (index < sorted.length && sorted[index] == value)
+            index++;
+        return index;
+    }
+
+    private static void assertDistinct(int expected, long estimate) {
+        double error = Math.abs(estimate - expected) / (double) expected;
+        assertTrue(expected + " distinct values estimated as " + estimate, error <= DISTINCT_ERROR);
+    }
+}
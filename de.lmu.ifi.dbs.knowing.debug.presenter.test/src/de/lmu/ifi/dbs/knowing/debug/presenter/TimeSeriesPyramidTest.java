@@ -0,0 +1,218 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Utils;
+import de.lmu.ifi.dbs.knowing.core.processing.INodeProperties;
+
+/**
+ * Builds pyramids from a numeric series and compares the buckets with the
+ * aggregates of the rows.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+public class TimeSeriesPyramidTest {
+
+    private static final int FANOUT = 16;
+
+    /** Three levels, the last bucket of each level is partial */
+    private static final int ROWS = FANOUT * FANOUT * 3 + 5;
+
+    private Path directory;
+    private Path container;
+    private Path pyramid;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("pyramid");
+        container = directory.resolve("series" + ColumnarFormat.EXTENSION());
+        pyramid = TimeSeriesPyramid.pyramidFile(container);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files)
+                Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void levelsAggregateBuckets() throws IOException {
+        write(new CollectingResultWriter(), series(ROWS), ROWS);
+        TimeSeriesPyramid levels = new TimeSeriesPyramid(pyramid);
+        try {
+            assertEquals(3, levels.depth());
+            assertEquals(ROWS / FANOUT + 1, levels.buckets(0));
+            assertEquals(4, levels.buckets(1));
+            assertEquals(1, levels.buckets(2));
+            // the finest level with at most maxPoints buckets is read
+            assertBuckets(levels.read(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 1000), FANOUT);
+            assertBuckets(levels.read(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 10), FANOUT * FANOUT);
+            assertBuckets(levels.read(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 1), ROWS);
+        } finally {
+            levels.close();
+        }
+    }
+
+    @Test
+    public void spillsAndMergesRuns() throws IOException {
+        Instances series = series(1000);
+        series.randomize(new Random(0));
+        CollectingResultWriter sorted = new CollectingResultWriter();
+        // ten runs and the buffer
+        write(sorted, series, 99);
+
+        assertTrue(sorted.closed);
+        assertEquals(1000, sorted.rows.numInstances());
+        for (int i = 0; i < 1000; i++) {
+            Instance row = sorted.rows.instance(i);
+            assertEquals(i, row.value(0), 0.0);
+            assertEquals(weight(i), row.weight(), 0.0);
+            if (Double.isNaN(value(i)))
+                assertTrue(row.isMissing(1));
+            else
+                assertEquals(value(i), row.value(1), 0.0);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                assertFalse("Temporary file left: " + name, name.contains(".run") || name.contains(".level"));
+            }
+        }
+    }
+
+    @Test
+    public void loaderReadsRowsIfTheyFit() throws IOException {
+        write(new ColumnarResultWriter(container), series(ROWS), ROWS);
+        Instances rows = load(null, null, ROWS);
+        assertEquals(2, rows.numAttributes());
+        assertEquals(ROWS, rows.numInstances());
+    }
+
+    @Test
+    public void loaderReadsLevelIfRowsDontFit() throws IOException {
+        write(new ColumnarResultWriter(container), series(ROWS), ROWS);
+        Instances buckets = load(null, null, 100);
+        assertEquals(4, buckets.numAttributes());
+        assertEquals(ROWS / FANOUT + 1, buckets.numInstances());
+    }
+
+    @Test
+    public void loaderReadsIndexedRowsOfRange() throws IOException {
+        ResultWriter indexed = new IndexingResultWriter(new ColumnarResultWriter(container),
+                ResultIndex.indexFile(container), 64);
+        write(indexed, series(ROWS), ROWS);
+        Instances rows = load("100", "199", 200);
+        assertEquals(2, rows.numAttributes());
+        // level 0 buckets overlapping the range
+        assertEquals(96, rows.instance(0).value(0), 0.0);
+        assertEquals(208 - 96, rows.numInstances());
+    }
+
+    private void write(ResultWriter container, Instances series, int sortBuffer) throws IOException {
+        TimeSeriesPyramidWriter writer = new TimeSeriesPyramidWriter(container, pyramid, sortBuffer, FANOUT);
+        writer.writeHeader(series);
+        for (Instance instance : series)
+            writer.write(instance);
+        writer.close();
+    }
+
+    private Instances load(String from, String to, int points) {
+        Properties properties = new Properties();
+        properties.setProperty(INodeProperties.FILE(), pyramid.toString());
+        properties.setProperty(PyramidLoader.CONTAINER(), container.toString());
+        properties.setProperty(PyramidLoader.POINTS(), Integer.toString(points));
+        if (from != null)
+            properties.setProperty(PyramidLoader.FROM(), from);
+        if (to != null)
+            properties.setProperty(PyramidLoader.TO(), to);
+        PyramidLoader loader = new PyramidLoader();
+        loader.configure(properties);
+        return loader.getDataSet();
+    }
+
+    /**
+     * Each bucket must have the mean, min and max of the rows it covers.
+     *
+     * @param rows - per bucket
+     */
+    private static void assertBuckets(Instances buckets, int rows) {
+        assertEquals(4, buckets.numAttributes());
+        assertEquals((ROWS + rows - 1) / rows, buckets.numInstances());
+        for (int b = 0; b < buckets.numInstances(); b++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            double sum = 0;
+            int n = 0;
+            for (int i = b * rows; i < Math.min((b + 1) * rows, ROWS); i++) {
+                double value = value(i);
+                if (Double.isNaN(value))
+                    continue;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                sum += value;
+                n++;
+            }
+            Instance bucket = buckets.instance(b);
+            String message = "bucket " + b + " of " + rows + " rows";
+            assertEquals(message, b * rows, bucket.value(0), 0.0);
+            assertEquals(message, sum / n, bucket.value(1), 1e-9);
+            assertEquals(message, min, bucket.value(2), 0.0);
+            assertEquals(message, max, bucket.value(3), 0.0);
+        }
+    }
+
+    /**
+     * @return time and value, sorted by time
+     */
+    private static Instances series(int rows) {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        attributes.add(new Attribute("time"));
+        attributes.add(new Attribute("value"));
+        Instances series = new Instances("series", attributes, rows);
+        for (int i = 0; i < rows; i++)
+            series.add(new DenseInstance(weight(i), new double[] { i, value(i) }));
+        return series;
+    }
+
+    /** Every 50th value is missing */
+    private static double value(int time) {
+        return time % 50 == 7 ? Utils.missingValue() : (time * 37) % 101 - 50;
+    }
+
+    private static double weight(int time) {
+        return time % 3 + 1;
+    }
+}
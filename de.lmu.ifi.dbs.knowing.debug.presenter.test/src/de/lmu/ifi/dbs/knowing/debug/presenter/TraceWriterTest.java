@@ -0,0 +1,128 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+
+import com.typesafe.config.ConfigFactory;
+
+import de.lmu.ifi.dbs.knowing.core.events.Created;
+import de.lmu.ifi.dbs.knowing.core.events.Finished;
+import de.lmu.ifi.dbs.knowing.core.events.Progress;
+import de.lmu.ifi.dbs.knowing.core.events.Running;
+
+/**
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+public class TraceWriterTest {
+
+    private static ActorSystem system;
+
+    @BeforeClass
+    public static void startSystem() {
+        ClassLoader loader = ActorSystem.class.getClassLoader();
+        system = ActorSystem.create("trace", ConfigFactory.load(loader), loader);
+    }
+
+    @AfterClass
+    public static void stopSystem() {
+        system.shutdown();
+    }
+
+    @Test
+    public void writesSpansPerState() throws Exception {
+        ActorRef actor = system.actorFor("/user/loader");
+        StringWriter out = new StringWriter();
+        TraceWriter trace = new TraceWriter(out);
+        trace.append(actor, new Created(), 1000);
+        trace.append(actor, new Running(), 1010);
+        trace.append(actor, new Progress("work", 5, 10), 1020);
+        trace.append(actor, new Finished(), 1030);
+        trace.close();
+
+        String json = out.toString();
+        assertTrue(json.startsWith("["));
+        assertTrue(json.endsWith("\n]\n"));
+        assertTrue(json.contains("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":1,\"args\":{\"name\":\""
+                + actor.path() + "\"}}"));
+        // Microseconds relative to the first event
+        assertTrue(json.contains("{\"name\":\"Created\",\"ph\":\"X\",\"pid\":1,\"tid\":1,\"ts\":0,\"dur\":10000}"));
+        assertTrue(json.contains("{\"name\":\"Running\",\"ph\":\"X\",\"pid\":1,\"tid\":1,\"ts\":10000,\"dur\":20000}"));
+        assertTrue(json.contains("{\"name\":\"" + actor.path() + " work\",\"ph\":\"C\""));
+        assertTrue(json.contains("\"args\":{\"worked\":5,\"work\":10}"));
+        // No span for the final state
+        assertFalse(json.contains("\"name\":\"Finished\""));
+    }
+
+    @Test
+    public void oneTrackPerActor() throws Exception {
+        ActorRef first = system.actorFor("/user/first");
+        ActorRef second = system.actorFor("/user/second");
+        StringWriter out = new StringWriter();
+        TraceWriter trace = new TraceWriter(out);
+        trace.append(first, new Running(), 0);
+        trace.append(second, new Running(), 5);
+        trace.append(first, new Finished(), 10);
+        trace.append(second, new Finished(), 20);
+        trace.close();
+
+        String json = out.toString();
+        assertEquals(2, count(json, "\"name\":\"thread_name\""));
+        assertTrue(json.contains("{\"name\":\"Running\",\"ph\":\"X\",\"pid\":1,\"tid\":1,\"ts\":0,\"dur\":10000}"));
+        assertTrue(json.contains("{\"name\":\"Running\",\"ph\":\"X\",\"pid\":1,\"tid\":2,\"ts\":5000,\"dur\":15000}"));
+    }
+
+    @Test
+    public void separatesCountersOfActors() throws Exception {
+        ActorRef first = system.actorFor("/user/first");
+        ActorRef second = system.actorFor("/user/second");
+        StringWriter out = new StringWriter();
+        TraceWriter trace = new TraceWriter(out);
+        trace.append(first, new Progress("work", 1, 10), 0);
+        trace.append(second, new Progress("work", 2, 10), 0);
+        trace.close();
+
+        String json = out.toString();
+        assertEquals(1, count(json, "\"name\":\"" + first.path() + " work\""));
+        assertEquals(1, count(json, "\"name\":\"" + second.path() + " work\""));
+    }
+
+    @Test
+    public void escapesStrings() throws Exception {
+        ActorRef actor = system.actorFor("/user/loader");
+        StringWriter out = new StringWriter();
+        TraceWriter trace = new TraceWriter(out);
+        trace.append(actor, new Progress("a \"quoted\"\ttask", 1, 2), 0);
+        trace.close();
+
+        assertTrue(out.toString().contains("a \\\"quoted\\\"\\ttask"));
+    }
+
+    static int count(String s, String part) {
+        int count = 0;
+        for (int i = s.indexOf(part); i >= 0; i = s.indexOf(part, i + 1))
+            count++;
+        return count;
+    }
+}
@@ -0,0 +1,62 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import java.io.IOException;
+
+import akka.actor.ActorRef;
+import de.lmu.ifi.dbs.knowing.core.events.Status;
+
+/**
+ * Passes every event to all appenders, in the given order. All appenders are
+ * closed, even if one of them fails.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-14
+ *
+ */
+public class CompositeProgressAppender implements ProgressAppender {
+
+    private final ProgressAppender[] appenders;
+
+    public CompositeProgressAppender(ProgressAppender... appenders) {
+        this.appenders = appenders;
+    }
+
+    @Override
+    public void append(ActorRef actor, Status status, long timestamp) throws IOException {
+        for (ProgressAppender appender : appenders)
+            appender.append(actor, status, timestamp);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for (ProgressAppender appender : appenders)
+            appender.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        for (ProgressAppender appender : appenders) {
+            try {
+                appender.close();
+            } catch (IOException e) {
+                if (error == null)
+                    error = e;
+            }
+        }
+        if (error != null)
+            throw error;
+    }
+
+}
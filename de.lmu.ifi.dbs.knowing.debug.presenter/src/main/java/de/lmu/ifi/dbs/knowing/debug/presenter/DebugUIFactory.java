@@ -11,12 +11,13 @@
 package de.lmu.ifi.dbs.knowing.debug.presenter;
 
 import java.io.IOException;
-import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +26,7 @@ import akka.actor.ActorContext;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.actor.TypedActor;
+import de.lmu.ifi.dbs.knowing.core.events.Shutdown;
 import de.lmu.ifi.dbs.knowing.core.events.Status;
 import de.lmu.ifi.dbs.knowing.core.factory.UIFactory;
 import de.lmu.ifi.dbs.knowing.core.model.INode;
@@ -44,32 +46,93 @@ public class DebugUIFactory implements UIFactory<Path> {
     private ActorContext supervisorContext;
     private final Path executionPath;
     private final Path progressPath;
+    private final DebugSettings settings;
+    private ProgressSink progressSink;
 
-    public DebugUIFactory(Path executionPath) {
+    public DebugUIFactory(Path executionPath, DebugSettings settings) {
         log.debug("Created DebugUIFactory on path " + executionPath);
         this.executionPath = executionPath;
         this.progressPath = executionPath.resolve(PROGRESS_FILENAME);
+        this.settings = settings;
         try {
             Files.deleteIfExists(progressPath);
             Files.createFile(progressPath);
+            progressSink = createSink(settings);
         } catch (IOException e) {
             log.error("IOError creating DebugUIFactory", e);
         }
 
     }
 
+    public DebugUIFactory(Path executionPath) {
+        this(executionPath, DebugSettings.apply(executionPath));
+    }
+
+    public DebugUIFactory(String executionPath, DebugSettings settings) {
+        this(Paths.get(executionPath), settings);
+    }
+
     public DebugUIFactory(String executionPath) {
         this(Paths.get(executionPath));
     }
 
+    /**
+     * Called from the constructor.
+     * 
+     * @param settings
+     * @return sink writing to the progress file
+     * @throws IOException
+     */
+    protected ProgressSink createSink(DebugSettings settings) throws IOException {
+        return new ProgressSink(decorate(createAppender(settings), settings), settings.progressFlushInterval(),
+                settings.progressBatchSize());
+    }
+
+    /**
+     * Adds the appenders which observe the run, e.g. the metrics and the
+     * trace. If the trace file can't be created the run is not traced.
+     * 
+     * @param progress - appender writing the progress
+     * @param settings
+     * @return appender passing the events to all enabled appenders
+     * @throws IOException
+     */
+    protected ProgressAppender decorate(ProgressAppender progress, DebugSettings settings) throws IOException {
+        List<ProgressAppender> appenders = new ArrayList<>();
+        appenders.add(progress);
+        if (settings.metrics())
+            appenders.add(new MetricsCollector(executionPath.resolve(MetricsCollector.METRICS_FILENAME())));
+        if (settings.trace()) {
+            try {
+                appenders.add(new TraceWriter(executionPath.resolve(TraceWriter.TRACE_FILENAME())));
+            } catch (IOException e) {
+                log.error("IOError creating trace. Continuing without trace.", e);
+            }
+        }
+        if (appenders.size() == 1)
+            return progress;
+        return new CompositeProgressAppender(appenders.toArray(new ProgressAppender[appenders.size()]));
+    }
+
+    private ProgressAppender createAppender(DebugSettings settings) throws IOException {
+        if (settings.isBinaryProgress())
+            return new BinaryProgressWriter(progressPath);
+        return new ProgressWriter(Files.newBufferedWriter(progressPath, Charset.defaultCharset(), StandardOpenOption.APPEND));
+    }
+
     @Override
     public Path createContainer(INode node) {
         String nodeId = node.getId().getContent();
-        Path targetFile = executionPath.resolve(nodeId + ".arff");
+        Path targetFile = executionPath.resolve(nodeId + ResultWriter.extension(settings.resultFormat()));
         log.info("Created output file " + targetFile);
         try {
             Files.createDirectories(executionPath);
             Files.deleteIfExists(targetFile);
+            Files.deleteIfExists(CommittingResultWriter.commitFile(targetFile));
+            Files.deleteIfExists(ResultStatistics.statsFile(targetFile));
+            Files.deleteIfExists(TimeSeriesPyramid.pyramidFile(targetFile));
+            Files.deleteIfExists(ResultIndex.indexFile(targetFile));
+            Files.deleteIfExists(ResultWriter.doneFile(targetFile));
             Files.createFile(targetFile);
         } catch (IOException e) {
             log.error("IOError creating container targetfile " + targetFile, e);
@@ -80,13 +143,12 @@ public class DebugUIFactory implements UIFactory<Path> {
 
     @Override
     public void update(ActorRef actor, Status status) {
-        // open a new writer on every event? This is insane... NO.. THIS IS JAVA
-        try (Writer w = Files.newBufferedWriter(progressPath, Charset.defaultCharset(), StandardOpenOption.APPEND);
-                ProgressWriter log = new ProgressWriter(w)) {
-            log.write(actor, status);
-        } catch (IOException e) {
-            DebugUIFactory.log.error("IOError on appending to progress file", e);
-        }
+        if (progressSink == null)
+            return;
+        progressSink.offer(actor, status);
+        // Shutdown is the last event of a run. Write everything out.
+        if (status instanceof Shutdown)
+            progressSink.close();
     }
 
     @Override
@@ -0,0 +1,40 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+import akka.actor.ActorRef;
+import de.lmu.ifi.dbs.knowing.core.events.Status;
+
+/**
+ * Receives the status events drained by a {@link ProgressSink}. Appenders are
+ * only called from the sink's writer thread, so they don't need to be
+ * thread-safe.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-02
+ * @see ProgressSink
+ */
+public interface ProgressAppender extends Closeable, Flushable {
+
+    /**
+     * @param actor - the actor which changed its status
+     * @param status - the new status
+     * @param timestamp - time in milliseconds the event was received
+     * @throws IOException
+     */
+    void append(ActorRef actor, Status status, long timestamp) throws IOException;
+
+}
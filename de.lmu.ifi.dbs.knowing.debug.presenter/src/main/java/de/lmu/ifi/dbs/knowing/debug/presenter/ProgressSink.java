@@ -0,0 +1,198 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import akka.actor.ActorRef;
+import de.lmu.ifi.dbs.knowing.core.events.Status;
+
+/**
+ * Collects status events from any number of actor threads without blocking
+ * them. A single writer thread drains the queue in batches into one
+ * long-lived {@link ProgressAppender}.
+ * <p>
+ * Events are flushed at least every <code>flushInterval</code> milliseconds,
+ * or earlier when <code>batchSize</code> events are pending. An eager sink
+ * writes and flushes as soon as an event arrives.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-02
+ *
+ */
+public class ProgressSink implements Closeable {
+
+    /** Milliseconds */
+    public static final long DEFAULT_FLUSH_INTERVAL = 200;
+    public static final int DEFAULT_BATCH_SIZE = 512;
+
+    private static final Logger log = LoggerFactory.getLogger(ProgressSink.class);
+
+    private final Queue<ProgressEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    /** Offers between the closed check and the enqueue */
+    private final AtomicInteger offering = new AtomicInteger();
+
+    private final ProgressAppender appender;
+    private final long flushIntervalNanos;
+    private final int batchSize;
+    private final boolean eager;
+    private final Thread writer;
+
+    private volatile boolean closed;
+
+    public ProgressSink(ProgressAppender appender) {
+        this(appender, DEFAULT_FLUSH_INTERVAL, DEFAULT_BATCH_SIZE);
+    }
+
+    public ProgressSink(ProgressAppender appender, long flushInterval, int batchSize) {
+        this(appender, flushInterval, batchSize, false);
+    }
+
+    /**
+     * @param appender
+     * @param flushInterval - milliseconds
+     * @param batchSize
+     * @param eager - wake up the writer on every event. Trades throughput for
+     *            latency, e.g. for streaming to the IDE.
+     */
+    public ProgressSink(ProgressAppender appender, long flushInterval, int batchSize, boolean eager) {
+        if (flushInterval <= 0 || batchSize <= 0)
+            throw new IllegalArgumentException("flushInterval and batchSize must be positive");
+        this.appender = appender;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        this.batchSize = batchSize;
+        this.eager = eager;
+        this.writer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                drainLoop();
+            }
+        });
+        writer.setName("ProgressSinkWriter");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Enqueues the event. Never blocks the calling thread. Events accepted
+     * before {@link #close()} are always written.
+     *
+     * @param actor
+     * @param status
+     * @return false if the sink is already closed and the event was dropped
+     */
+    public boolean offer(ActorRef actor, Status status) {
+        // The writer waits for running offers before the last drain
+        offering.incrementAndGet();
+        try {
+            if (closed)
+                return false;
+            queue.offer(new ProgressEvent(actor, status, System.currentTimeMillis()));
+        } finally {
+            offering.decrementAndGet();
+        }
+        if (pending.incrementAndGet() >= batchSize || eager)
+            LockSupport.unpark(writer);
+        return true;
+    }
+
+    /**
+     * Writes all pending events, flushes and closes the appender. Blocks until
+     * the writer thread has finished.
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for progress writer to finish");
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void drainLoop() {
+        try {
+            while (!closed) {
+                drain();
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            // Offers which have seen closed == false are enqueued now
+            while (offering.get() > 0)
+                Thread.yield();
+            drain();
+        } catch (IOException e) {
+            closed = true;
+            log.error("IOError on writing progress. Discarding further events", e);
+            queue.clear();
+        } finally {
+            try {
+                appender.close();
+            } catch (IOException e) {
+                log.error("IOError on closing progress appender", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the queue content in chunks of <code>batchSize</code> and flushes
+     * after each chunk.
+     */
+    private void drain() throws IOException {
+        int written;
+        do {
+            written = 0;
+            ProgressEvent event;
+            while (written < batchSize && (event = queue.poll()) != null) {
+                appender.append(event.actor, event.status, event.timestamp);
+                written++;
+            }
+            if (written > 0) {
+                pending.addAndGet(-written);
+                appender.flush();
+            }
+        } while (written == batchSize);
+    }
+
+    private static final class ProgressEvent {
+
+        final ActorRef actor;
+        final Status status;
+        final long timestamp;
+
+        ProgressEvent(ActorRef actor, Status status, long timestamp) {
+            this.actor = actor;
+            this.status = status;
+            this.timestamp = timestamp;
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams status events to the IDE over a loopback socket instead of the
+ * progress file. The IDE listens on <code>dpu.debug.progress.endpoint</code>
+ * (host:port). Lines have the same format as in the progress file.
+ * <p>
+ * If the endpoint can't be reached the progress file is written as usual.
+ * A write which blocks longer than <code>WRITE_TIMEOUT</code>, e.g. because
+ * nobody reads the channel, closes the socket. Further events are discarded
+ * by the ProgressSink.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-10
+ *
+ */
+public class SocketUIFactory extends DebugUIFactory {
+
+    /** Milliseconds */
+    private static final int CONNECT_TIMEOUT = 5000;
+    /** Milliseconds */
+    private static final long WRITE_TIMEOUT = 10000;
+
+    private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ProgressChannelWatchdog");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private static final Logger log = LoggerFactory.getLogger(SocketUIFactory.class);
+
+    public SocketUIFactory(Path executionPath, DebugSettings settings) {
+        super(executionPath, settings);
+    }
+
+    public SocketUIFactory(String executionPath, DebugSettings settings) {
+        this(Paths.get(executionPath), settings);
+    }
+
+    @Override
+    protected ProgressSink createSink(DebugSettings settings) throws IOException {
+        String endpoint = settings.progressEndpoint();
+        try {
+            Socket socket = connect(endpoint);
+            OutputStream out = new TimedOutputStream(socket, WRITE_TIMEOUT);
+            ProgressWriter writer = new ProgressWriter(new BufferedWriter(new OutputStreamWriter(out, Charset.defaultCharset())));
+            log.info("Streaming progress to " + endpoint);
+            return new ProgressSink(decorate(writer, settings), settings.progressFlushInterval(), settings.progressBatchSize(),
+                    true);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Could not connect to progress endpoint [" + endpoint + "]. Writing progress file instead.", e);
+            return super.createSink(settings);
+        }
+    }
+
+    private static Socket connect(String endpoint) throws IOException {
+        int separator = endpoint.lastIndexOf(':');
+        if (separator < 0)
+            throw new IllegalArgumentException("Endpoint must be host:port");
+        String host = endpoint.substring(0, separator);
+        int port = Integer.parseInt(endpoint.substring(separator + 1));
+
+        Socket socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+        return socket;
+    }
+
+    /**
+     * Sockets have no write timeout. A watchdog closes the socket if a write
+     * doesn't return in time, which fails the write with an IOException.
+     * The check is cancelled when the stream is closed.
+     */
+    private static class TimedOutputStream extends FilterOutputStream {
+
+        private final Socket socket;
+        private final long timeoutNanos;
+        private final ScheduledFuture<?> check;
+
+        /** System.nanoTime() the current write started, 0 if none */
+        private volatile long writeStarted;
+
+        TimedOutputStream(final Socket socket, long timeout) throws IOException {
+            super(socket.getOutputStream());
+            this.socket = socket;
+            this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+            this.check = watchdog.scheduleWithFixedDelay(new Runnable() {
+
+                @Override
+                public void run() {
+                    long started = writeStarted;
+                    if (started != 0 && System.nanoTime() - started > timeoutNanos) {
+                        log.warn("Progress channel blocked. Closing it.");
+                        closeSocket();
+                    }
+                }
+            }, timeout, timeout / 4, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writeStarted = System.nanoTime();
+            try {
+                out.write(b, off, len);
+            } finally {
+                writeStarted = 0;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeStarted = System.nanoTime();
+            try {
+                out.flush();
+            } finally {
+                writeStarted = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            check.cancel(false);
+            socket.close();
+        }
+
+        private void closeSocket() {
+            check.cancel(false);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.Charset
+import java.nio.file.{ Path, StandardOpenOption }
+import weka.core.{ Attribute, Instance, Instances, SparseInstance, Utils }
+import weka.core.AbstractInstance
+
+/**
+ * Writes text ARFF in the same format as the incremental ArffSaver, but
+ * formats values directly into a reusable buffer. Nominal values are
+ * quoted once per header and numbers are formatted without temporary
+ * strings. Sparse instances use Instance.toString.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-18
+ */
+class ArffResultWriter(file: Path, charset: Charset) extends ResultWriter {
+
+	import ArffResultWriter._
+
+	def this(file: Path) = this(file, Charset.defaultCharset)
+
+	private val channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+		StandardOpenOption.TRUNCATE_EXISTING)
+	private val buffer = ByteBuffer.allocateDirect(BUFFER_SIZE)
+	private val digits = new Array[Byte](20)
+	private val lineSeparator = System.getProperty("line.separator").getBytes(charset)
+
+	private var header: Instances = _
+	private var types: Array[Int] = _
+	/** Quoted nominal values per attribute */
+	private var nominals: Array[Array[Array[Byte]]] = _
+
+	/** Bytes written to the channel */
+	private var written = 0L
+
+	def writeHeader(header: Instances) {
+		if (this.header != null)
+			return
+		this.header = new Instances(header, 0)
+		val attributes = header.numAttributes
+		types = Array.tabulate(attributes)(header.attribute(_).`type`)
+		nominals = Array.tabulate(attributes) { i =>
+			val attribute = header.attribute(i)
+			if (attribute.isNominal)
+				Array.tabulate(attribute.numValues)(v => Utils.quote(attribute.value(v)).getBytes(charset))
+			else
+				null
+		}
+		putBytes((this.header.toString + "\n").getBytes(charset))
+	}
+
+	def write(instance: Instance) {
+		if (instance.isInstanceOf[SparseInstance]) {
+			putBytes(instance.toStringMaxDecimalDigits(DECIMAL_PLACES).getBytes(charset))
+			putBytes(lineSeparator)
+			return
+		}
+		var i = 0
+		while (i < types.length) {
+			if (i > 0)
+				put(',')
+			if (instance.isMissing(i)) {
+				put('?')
+			} else types(i) match {
+				case Attribute.NUMERIC => putDouble(instance.value(i))
+				case Attribute.NOMINAL => putBytes(nominals(i)(instance.value(i).toInt))
+				case _ => putBytes(Utils.quote(instance.stringValue(i)).getBytes(charset))
+			}
+			i += 1
+		}
+		if (instance.weight != 1.0) {
+			put(',')
+			put('{')
+			putDouble(instance.weight)
+			put('}')
+		}
+		putBytes(lineSeparator)
+	}
+
+	def flush() {
+		buffer.flip()
+		while (buffer.hasRemaining)
+			written += channel.write(buffer)
+		buffer.clear()
+	}
+
+	def close() {
+		try {
+			flush()
+			channel.force(true)
+		} finally {
+			channel.close()
+		}
+	}
+
+	/** Bytes written so far, including the buffered ones */
+	def position: Long = written + buffer.position
+
+	/**
+	 * Same output as Utils.doubleToString(value, DECIMAL_PLACES).
+	 */
+	private def putDouble(value: Double) {
+		val scaled = value * SCALE
+		if (!(math.abs(scaled) < Long.MaxValue)) {
+			putBytes(String.valueOf(value).getBytes(charset))
+			return
+		}
+		val rounded = if (scaled > 0) (scaled + 0.5).toLong else -(math.abs(scaled) + 0.5).toLong
+		if (rounded == 0) {
+			put('0')
+			return
+		}
+		if (rounded < 0)
+			put('-')
+		val abs = math.abs(rounded)
+		putLong(abs / SCALE_LONG)
+		var fraction = abs % SCALE_LONG
+		if (fraction == 0)
+			return
+		put('.')
+		var places = DECIMAL_PLACES
+		// drop trailing zeros
+		while (fraction % 10 == 0) {
+			fraction /= 10
+			places -= 1
+		}
+		var divisor = POWERS(places - 1)
+		while (divisor > 0) {
+			put(('0' + fraction / divisor).toByte)
+			fraction %= divisor
+			divisor /= 10
+		}
+	}
+
+	private def putLong(value: Long) {
+		var v = value
+		var length = 0
+		do {
+			digits(length) = ('0' + v % 10).toByte
+			v /= 10
+			length += 1
+		} while (v > 0)
+		ensure(length)
+		while (length > 0) {
+			length -= 1
+			buffer.put(digits(length))
+		}
+	}
+
+	private def put(b: Char) {
+		ensure(1)
+		buffer.put(b.toByte)
+	}
+
+	private def put(b: Byte) {
+		ensure(1)
+		buffer.put(b)
+	}
+
+	private def putBytes(bytes: Array[Byte]) {
+		if (bytes.length > buffer.capacity) {
+			flush()
+			val wrapped = ByteBuffer.wrap(bytes)
+			while (wrapped.hasRemaining)
+				written += channel.write(wrapped)
+			return
+		}
+		ensure(bytes.length)
+		buffer.put(bytes)
+	}
+
+	private def ensure(bytes: Int) {
+		if (buffer.remaining < bytes)
+			flush()
+	}
+}
+
+object ArffResultWriter {
+
+	/** Same as the ArffSaver */
+	val DECIMAL_PLACES = AbstractInstance.s_numericAfterDecimalPoint
+
+	val BUFFER_SIZE = 1024 * 1024
+
+	private val SCALE = math.pow(10, DECIMAL_PLACES)
+	private val SCALE_LONG = SCALE.toLong
+	private val POWERS = Array.iterate(1L, DECIMAL_PLACES)(_ * 10)
+}
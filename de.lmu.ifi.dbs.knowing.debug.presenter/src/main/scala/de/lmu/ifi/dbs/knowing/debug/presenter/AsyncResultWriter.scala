@@ -0,0 +1,159 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.io.IOException
+import java.util.concurrent.{ ArrayBlockingQueue, TimeUnit }
+import org.slf4j.LoggerFactory
+import weka.core.{ Instance, Instances }
+
+/**
+ * Hands results to a dedicated I/O thread, which writes them with the
+ * given writer. The queue holds at most <code>capacity</code> batches.
+ * If it's full the caller blocks until the I/O thread caught up, so a
+ * slow disk slows down the producer instead of filling the heap.
+ * <p>
+ * The Instances passed to write must not be modified afterwards.
+ * Errors of the I/O thread are thrown by the next call.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-20
+ */
+class AsyncResultWriter(writer: ResultWriter, capacity: Int) extends ResultWriter {
+
+	import AsyncResultWriter._
+
+	private val queue = new ArrayBlockingQueue[Task](capacity)
+
+	@volatile private var error: Throwable = _
+	@volatile private var written = 0L
+
+	/** Nanoseconds callers spent waiting for a free slot */
+	@volatile private var blocked = 0L
+
+	private val started = System.nanoTime
+
+	private val thread = new Thread("ResultWriter") {
+		override def run() = writeLoop()
+	}
+	thread.setDaemon(true)
+	thread.start()
+
+	def writeHeader(header: Instances) = enqueue(Header(new Instances(header, 0)))
+
+	def write(instance: Instance) = enqueue(Row(instance))
+
+	override def write(instances: Instances) = enqueue(Rows(instances))
+
+	/** Returns immediately, the I/O thread flushes after the pending batches */
+	def flush() = enqueue(Flush)
+
+	/**
+	 * Writes all pending batches and closes the writer. Blocks until the
+	 * data is durable.
+	 */
+	def close() {
+		if (!thread.isAlive) {
+			checkError()
+			return
+		}
+		enqueue(Close)
+		try {
+			thread.join()
+		} catch {
+			case e: InterruptedException =>
+				Thread.currentThread.interrupt()
+				throw new IOException("Interrupted while closing result writer", e)
+		}
+		checkError()
+	}
+
+	def position: Long = written
+
+	/** Number of batches waiting for the I/O thread */
+	def queueDepth: Int = queue.size
+
+	def queueCapacity: Int = capacity
+
+	/** Average write throughput since creation */
+	def bytesPerSecond: Double = {
+		val seconds = (System.nanoTime - started) / 1e9
+		if (seconds <= 0) 0 else written / seconds
+	}
+
+	/** Milliseconds callers were blocked by back-pressure */
+	def blockedTime: Long = TimeUnit.NANOSECONDS.toMillis(blocked)
+
+	private def enqueue(task: Task) {
+		checkError()
+		if (queue.offer(task))
+			return
+		val start = System.nanoTime
+		try {
+			queue.put(task)
+		} catch {
+			case e: InterruptedException =>
+				Thread.currentThread.interrupt()
+				throw new IOException("Interrupted while waiting for result writer", e)
+		} finally {
+			blocked += System.nanoTime - start
+		}
+	}
+
+	private def checkError() {
+		val e = error
+		if (e != null)
+			throw new IOException("Error on writing results", e)
+	}
+
+	private def writeLoop() {
+		var running = true
+		try {
+			while (running) {
+				queue.take() match {
+					case Header(header) => writer.writeHeader(header)
+					case Row(instance) => writer.write(instance)
+					case Rows(instances) => writer.write(instances)
+					case Flush => writer.flush()
+					case Close => running = false
+				}
+				written = writer.position
+			}
+		} catch {
+			case e: Throwable =>
+				error = e
+				log.error("Error on writing results", e)
+				queue.clear()
+		} finally {
+			try {
+				writer.close()
+			} catch {
+				case e: IOException => if (error == null) error = e
+			}
+		}
+	}
+}
+
+object AsyncResultWriter {
+
+	val DEFAULT_QUEUE_SIZE = 16
+
+	private val log = LoggerFactory.getLogger(classOf[AsyncResultWriter])
+
+	private sealed trait Task
+	private case class Header(header: Instances) extends Task
+	private case class Row(instance: Instance) extends Task
+	private case class Rows(instances: Instances) extends Task
+	private case object Flush extends Task
+	private case object Close extends Task
+}
@@ -0,0 +1,155 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.ByteBuffer
+import java.nio.charset.Charset
+import java.nio.channels.FileChannel
+import java.nio.file.{ Files, Path, StandardOpenOption }
+import de.lmu.ifi.dbs.knowing.core.events._
+
+/**
+ * Layout of the binary .progress format.
+ *
+ * <pre>
+ * progress file := header record*
+ * header        := magic(int) version(short) reserved(short)
+ * record        := DEFINE id(int) path(string)
+ *                | opcode id(int) timestamp(long)
+ *                | PROGRESS id(int) timestamp(long) worked(int) work(int) task(string)
+ *                | TEXT id(int) timestamp(long) status.toString(string)
+ * string        := length(short) utf-8 bytes
+ *
+ * index file    := header entry*
+ * entry         := DEFINE id(int) path(string)
+ *                | BLOCK start(long) end(long) minTimestamp(long) maxTimestamp(long)
+ * </pre>
+ *
+ * Actor paths are dictionary coded. Each path is defined once in the
+ * progress file and in the index file, before it is used the first time.
+ * The index contains one BLOCK entry for every <code>INDEX_INTERVAL</code>
+ * records, so a reader can jump to a time range without decoding the
+ * records before. Both files are buffered separately, so while a run is
+ * writing, the index may not contain all DEFINE entries of the progress
+ * file yet. Readers then take the dictionary from the progress file.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-05
+ * @see BinaryProgressWriter
+ * @see BinaryProgressReader
+ */
+object BinaryProgressFormat {
+
+	val MAGIC = 0x4b505247 // KPRG
+	val INDEX_MAGIC = 0x4b505249 // KPRI
+	val VERSION: Short = 1
+	val HEADER_SIZE = 8
+
+	/** Read buffer of the readers, larger than the longest record */
+	val CHUNK_SIZE = 128 * 1024
+
+	val INDEX_SUFFIX = ".idx"
+	val INDEX_INTERVAL = 1024
+
+	val UTF8 = Charset.forName("UTF-8")
+
+	/* == Opcodes == */
+	val DEFINE: Byte = 0x01
+	val BLOCK: Byte = 0x02
+
+	val CREATED: Byte = 0x10
+	val READY: Byte = 0x11
+	val WAITING: Byte = 0x12
+	val RUNNING: Byte = 0x13
+	val FINISHED: Byte = 0x14
+	val SHUTDOWN: Byte = 0x15
+	val UPDATE_UI: Byte = 0x16
+	val PROGRESS: Byte = 0x20
+	val TEXT: Byte = 0x30
+
+	def opcode(status: Status): Byte = status match {
+		case Created() => CREATED
+		case Ready() => READY
+		case Waiting() => WAITING
+		case Running() => RUNNING
+		case Finished() => FINISHED
+		case Shutdown() => SHUTDOWN
+		case UpdateUI() => UPDATE_UI
+		case Progress(_, _, _) => PROGRESS
+		case _ => TEXT
+	}
+
+	/**
+	 * @return status for opcodes without payload, null otherwise
+	 */
+	def status(opcode: Byte): Status = opcode match {
+		case CREATED => Created()
+		case READY => Ready()
+		case WAITING => Waiting()
+		case RUNNING => Running()
+		case FINISHED => Finished()
+		case SHUTDOWN => Shutdown()
+		case UPDATE_UI => UpdateUI()
+		case _ => null
+	}
+
+	/**
+	 * @return Some(true) if the file starts with the binary progress magic,
+	 *         None if the file doesn't contain enough bytes to decide yet
+	 */
+	def isBinary(file: Path): Option[Boolean] = {
+		if (!Files.isRegularFile(file) || Files.size(file) < 4)
+			return None
+		val channel = FileChannel.open(file, StandardOpenOption.READ)
+		try {
+			val header = ByteBuffer.allocate(4)
+			while (header.hasRemaining && channel.read(header) >= 0) {}
+			header.flip()
+			if (header.remaining < 4) None else Some(header.getInt == MAGIC)
+		} finally {
+			channel.close()
+		}
+	}
+
+	def indexFile(progressFile: Path): Path = progressFile.resolveSibling(progressFile.getFileName + INDEX_SUFFIX)
+
+	def writeHeader(buffer: ByteBuffer, magic: Int) {
+		buffer.putInt(magic)
+		buffer.putShort(VERSION)
+		buffer.putShort(0)
+	}
+
+	def putString(buffer: ByteBuffer, bytes: Array[Byte]) {
+		buffer.putShort(bytes.length.toShort)
+		buffer.put(bytes)
+	}
+
+	/**
+	 * @return the string or null if the buffer doesn't contain all bytes
+	 */
+	def getString(buffer: ByteBuffer): String = {
+		if (buffer.remaining < 2)
+			return null
+		val length = buffer.getShort & 0xFFFF
+		if (buffer.remaining < length)
+			return null
+		val bytes = new Array[Byte](length)
+		buffer.get(bytes)
+		new String(bytes, UTF8)
+	}
+
+	/** Strings are limited to an unsigned short length */
+	def encode(s: String): Array[Byte] = {
+		val bytes = s.getBytes(UTF8)
+		if (bytes.length <= 0xFFFF) bytes else java.util.Arrays.copyOf(bytes, 0xFFFF)
+	}
+}
@@ -0,0 +1,229 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.{ ByteBuffer, BufferUnderflowException }
+import java.nio.channels.FileChannel
+import java.nio.file.{ Files, Path, StandardOpenOption }
+import java.util.{ ArrayList, List => JList }
+import scala.collection.mutable.ArrayBuffer
+import de.lmu.ifi.dbs.knowing.core.events._
+import BinaryProgressFormat._
+
+/**
+ * Reads files written with the BinaryProgressWriter. Records are read in
+ * chunks into one reused buffer, polling doesn't create mappings of the
+ * growing file. The block index is used to jump directly to a time range.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-05
+ * @see BinaryProgressWriter
+ */
+class BinaryProgressReader(file: Path) extends ProgressSource {
+
+	private val channel = FileChannel.open(file, StandardOpenOption.READ)
+
+	/** Holds at least one record of maximum length */
+	private val chunk = ByteBuffer.allocate(CHUNK_SIZE)
+
+	private val paths = new ArrayBuffer[String]
+	private val blocks = new ArrayBuffer[Block]
+
+	/** Bytes of the index file already read */
+	private var indexPosition = 0L
+
+	/** Position of readAllStatus */
+	private var cursor = HEADER_SIZE.toLong
+
+	/**
+	 * Reads complete records written since the last call.
+	 */
+	def readStatus(maxEvents: Int): JList[(String, Status)] = {
+		val result = new ArrayList[(String, Status)]
+		val size = channel.size
+		// truncated, start again
+		if (size < cursor) {
+			cursor = HEADER_SIZE
+			indexPosition = 0
+			paths.clear()
+			blocks.clear()
+		}
+		cursor = decode(cursor, size, Long.MinValue, Long.MaxValue, maxEvents, result)
+		result
+	}
+
+	/**
+	 * Reads all records with <code>from <= timestamp <= to</code>. Only the
+	 * blocks which may contain matching records are decoded.
+	 */
+	def read(from: Long, to: Long): JList[(String, Status)] = {
+		refreshIndex()
+		val end = channel.size
+		val first = blocks.indexWhere(_.max >= from)
+		val start = first match {
+			case -1 if blocks.isEmpty => HEADER_SIZE.toLong
+			case -1 => blocks.last.end
+			case i => blocks(i).start
+		}
+		// Unindexed tail must always be scanned
+		val last = blocks.indexWhere(_.min > to, math.max(first, 0))
+		val stop = if (last == -1) end else blocks(last).start
+
+		val result = new ArrayList[(String, Status)]
+		try {
+			decode(start, math.min(stop, end), from, to, Int.MaxValue, result)
+		} catch {
+			// The index may lag behind the progress file while the run is writing
+			case e: UnknownActorException =>
+				scanDictionary(start)
+				result.clear()
+				decode(start, math.min(stop, end), from, to, Int.MaxValue, result)
+		}
+		result
+	}
+
+	/**
+	 * @return (min, max) timestamp of the indexed records
+	 */
+	def indexedTimeRange: (Long, Long) = {
+		refreshIndex()
+		if (blocks.isEmpty) (0L, 0L) else (blocks.map(_.min).min, blocks.map(_.max).max)
+	}
+
+	def close() = channel.close()
+
+	/**
+	 * Decodes complete records in [start, end) and adds the ones in
+	 * the time range to result, until maxEvents have been added.
+	 *
+	 * @return position after the last decoded record
+	 */
+	private def decode(start: Long, end: Long, from: Long, to: Long, maxEvents: Int, result: JList[(String, Status)]): Long = {
+		val limit = result.size + maxEvents.toLong
+		scan(channel, start, end) { buffer =>
+			if (result.size < limit) {
+				decodeRecord(buffer, from, to, result)
+				true
+			} else false
+		}
+	}
+
+	/**
+	 * Reads [start, end) of the channel chunk by chunk and calls next for
+	 * every record, until it returns false.
+	 *
+	 * @return position after the last complete record
+	 */
+	private def scan(source: FileChannel, start: Long, end: Long)(next: ByteBuffer => Boolean): Long = {
+		var complete = start
+		var consumed = 1
+		var more = true
+		while (more && consumed > 0 && complete < end) {
+			fill(source, complete, end)
+			consumed = 0
+			try {
+				while (chunk.hasRemaining && { more = next(chunk); more })
+					consumed = chunk.position
+			} catch {
+				// the writer hasn't finished this record yet or it continues in the next chunk
+				case e: BufferUnderflowException =>
+			}
+			complete += consumed
+		}
+		complete
+	}
+
+	private def fill(source: FileChannel, position: Long, end: Long) {
+		chunk.clear()
+		chunk.limit(math.min(chunk.capacity.toLong, end - position).toInt)
+		while (chunk.hasRemaining && source.read(chunk, position + chunk.position) > 0) {}
+		chunk.flip()
+	}
+
+	private def decodeRecord(buffer: ByteBuffer, from: Long, to: Long, result: JList[(String, Status)]) {
+		val op = buffer.get
+		val id = buffer.getInt
+		if (op == DEFINE) {
+			val path = getString(buffer)
+			if (path == null)
+				throw new BufferUnderflowException
+			define(id, path)
+			return
+		}
+		val timestamp = buffer.getLong
+		val status = op match {
+			case PROGRESS =>
+				val worked = buffer.getInt
+				val work = buffer.getInt
+				val task = getString(buffer)
+				if (task == null)
+					throw new BufferUnderflowException
+				Progress(task, worked, work)
+			case TEXT =>
+				val text = getString(buffer)
+				if (text == null)
+					throw new BufferUnderflowException
+				ProgressReader.parseStatus(text)
+			case _ => BinaryProgressFormat.status(op)
+		}
+		if (timestamp >= from && timestamp <= to) {
+			if (id >= paths.size || paths(id) == null)
+				throw new UnknownActorException(id)
+			result.add((paths(id), status))
+		}
+	}
+
+	/**
+	 * Reads the DEFINE records of the progress file before <code>end</code>.
+	 */
+	private def scanDictionary(end: Long) {
+		decode(HEADER_SIZE, end, Long.MaxValue, Long.MinValue, Int.MaxValue, new ArrayList[(String, Status)])
+	}
+
+	private def define(id: Int, path: String) {
+		while (paths.size <= id)
+			paths += null
+		paths(id) = path
+	}
+
+	/**
+	 * Reads index entries appended since the last refresh.
+	 */
+	private def refreshIndex() {
+		val index = indexFile(file)
+		if (!Files.exists(index))
+			return
+		val indexChannel = FileChannel.open(index, StandardOpenOption.READ)
+		try {
+			val start = math.max(indexPosition, HEADER_SIZE)
+			indexPosition = scan(indexChannel, start, indexChannel.size) { buffer =>
+				buffer.get match {
+					case DEFINE =>
+						val id = buffer.getInt
+						val path = getString(buffer)
+						if (path == null)
+							throw new BufferUnderflowException
+						define(id, path)
+					case BLOCK =>
+						blocks += Block(buffer.getLong, buffer.getLong, buffer.getLong, buffer.getLong)
+				}
+				true
+			}
+		} finally {
+			indexChannel.close()
+		}
+	}
+
+	private case class Block(start: Long, end: Long, min: Long, max: Long)
+
+	private class UnknownActorException(id: Int) extends RuntimeException("Actor id " + id + " not defined yet")
+}
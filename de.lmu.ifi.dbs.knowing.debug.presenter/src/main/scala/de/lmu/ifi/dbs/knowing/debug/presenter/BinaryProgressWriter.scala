@@ -0,0 +1,129 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption.{ CREATE, TRUNCATE_EXISTING, WRITE }
+import scala.collection.mutable.HashMap
+import akka.actor.ActorRef
+import de.lmu.ifi.dbs.knowing.core.events._
+import BinaryProgressFormat._
+
+/**
+ * Writes status updates in the binary progress format and maintains
+ * the sparse block index next to the progress file.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-05
+ * @see BinaryProgressFormat
+ * @see BinaryProgressReader
+ */
+class BinaryProgressWriter(file: Path) extends ProgressAppender {
+
+	private val channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING)
+	private val indexChannel = FileChannel.open(indexFile(file), CREATE, WRITE, TRUNCATE_EXISTING)
+
+	// large enough for the longest possible record
+	private val buffer = ByteBuffer.allocateDirect(128 * 1024)
+	private val indexBuffer = ByteBuffer.allocateDirect(80 * 1024)
+
+	private val dictionary = new HashMap[ActorRef, Int]
+
+	/* == current index block == */
+	private var blockStart = HEADER_SIZE.toLong
+	private var blockCount = 0
+	private var blockMin = Long.MaxValue
+	private var blockMax = Long.MinValue
+
+	writeHeader(buffer, MAGIC)
+	writeHeader(indexBuffer, INDEX_MAGIC)
+
+	def append(actor: ActorRef, status: Status, timestamp: Long) {
+		val id = dictionary.getOrElseUpdate(actor, define(actor))
+		status match {
+			case Progress(task, worked, work) =>
+				val bytes = encode(task)
+				ensureCapacity(channel, buffer, 23 + bytes.length)
+				buffer.put(PROGRESS).putInt(id).putLong(timestamp)
+				buffer.putInt(worked).putInt(work)
+				putString(buffer, bytes)
+			case s =>
+				opcode(s) match {
+					case TEXT =>
+						val bytes = encode(s.toString)
+						ensureCapacity(channel, buffer, 15 + bytes.length)
+						buffer.put(TEXT).putInt(id).putLong(timestamp)
+						putString(buffer, bytes)
+					case op =>
+						ensureCapacity(channel, buffer, 13)
+						buffer.put(op).putInt(id).putLong(timestamp)
+				}
+		}
+		updateBlock(timestamp)
+	}
+
+	def flush() {
+		write(channel, buffer)
+		write(indexChannel, indexBuffer)
+	}
+
+	def close() = try {
+		flush()
+	} finally {
+		channel.close()
+		indexChannel.close()
+	}
+
+	private def define(actor: ActorRef): Int = {
+		val id = dictionary.size
+		val bytes = encode(actor.path.toString)
+		ensureCapacity(channel, buffer, 7 + bytes.length)
+		buffer.put(DEFINE).putInt(id)
+		putString(buffer, bytes)
+		ensureCapacity(indexChannel, indexBuffer, 7 + bytes.length)
+		indexBuffer.put(DEFINE).putInt(id)
+		putString(indexBuffer, bytes)
+		id
+	}
+
+	private def updateBlock(timestamp: Long) {
+		blockCount += 1
+		blockMin = math.min(blockMin, timestamp)
+		blockMax = math.max(blockMax, timestamp)
+		if (blockCount < INDEX_INTERVAL)
+			return
+		val end = position
+		ensureCapacity(indexChannel, indexBuffer, 33)
+		indexBuffer.put(BLOCK).putLong(blockStart).putLong(end).putLong(blockMin).putLong(blockMax)
+		blockStart = end
+		blockCount = 0
+		blockMin = Long.MaxValue
+		blockMax = Long.MinValue
+	}
+
+	/** Position in the file after the last buffered record */
+	private def position: Long = channel.position + buffer.position
+
+	private def ensureCapacity(ch: FileChannel, buf: ByteBuffer, bytes: Int) {
+		if (buf.remaining < bytes)
+			write(ch, buf)
+	}
+
+	private def write(ch: FileChannel, buf: ByteBuffer) {
+		buf.flip()
+		while (buf.hasRemaining)
+			ch.write(buf)
+		buf.clear()
+	}
+}
@@ -0,0 +1,88 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import weka.core.{ Attribute, DenseInstance, Instance, Instances, Utils }
+
+/**
+ * Counts the instances per class value and writes one instance per class
+ * value on close, carrying the count as its weight. All other attributes
+ * are missing. This is all a pie chart needs.
+ * <p>
+ * The class is the class attribute of the header or the last nominal
+ * attribute. Without any, instances are passed through unchanged.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-24
+ */
+class ClassCountResultWriter(writer: ResultWriter) extends ResultWriter {
+
+	private var header: Instances = _
+	private var classIndex = -1
+
+	/** Sum of weights per class value, last slot for missing */
+	private var counts: Array[Double] = _
+
+	def writeHeader(header: Instances) {
+		if (this.header != null)
+			return
+		this.header = new Instances(header, 0)
+		classIndex = ClassCountResultWriter.classIndex(header)
+		if (classIndex >= 0)
+			counts = new Array[Double](header.attribute(classIndex).numValues + 1)
+		writer.writeHeader(header)
+	}
+
+	def write(instance: Instance) {
+		if (classIndex < 0) {
+			writer.write(instance)
+			return
+		}
+		val value = if (instance.isMissing(classIndex)) counts.length - 1 else instance.value(classIndex).toInt
+		counts(value) += instance.weight
+	}
+
+	/** Nothing is written before close */
+	def flush() = if (classIndex < 0) writer.flush()
+
+	def close() {
+		try {
+			if (counts != null) {
+				for (value <- 0 until counts.length if counts(value) > 0) {
+					val values = Array.fill(header.numAttributes)(Utils.missingValue)
+					if (value < counts.length - 1)
+						values(classIndex) = value
+					val instance = new DenseInstance(counts(value), values)
+					instance.setDataset(header)
+					writer.write(instance)
+				}
+			}
+		} finally {
+			writer.close()
+		}
+	}
+
+	def position: Long = writer.position
+}
+
+object ClassCountResultWriter {
+
+	/**
+	 * @return class attribute or the last nominal attribute, -1 if none
+	 */
+	def classIndex(header: Instances): Int = {
+		if (header.classIndex >= 0 && header.classAttribute.isNominal)
+			return header.classIndex
+		(header.numAttributes - 1 to 0 by -1) find (header.attribute(_).isNominal) getOrElse -1
+	}
+}
@@ -0,0 +1,74 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.io.StringReader
+import java.nio.charset.Charset
+import weka.core.{ Attribute, Instances }
+
+/**
+ * Layout of the binary columnar result container.
+ *
+ * <pre>
+ * container := magic(int) version(int) headerLength(int) header group*
+ * header    := utf-8 ARFF header of the empty Instances
+ * group     := rows(int) column{attributes} weights strings
+ * column    := double{rows}
+ * weights   := double{rows}
+ * strings   := (length(int) utf-8 bytes){rows} for each string attribute
+ * </pre>
+ *
+ * Numeric and date values are stored as they are, nominal and string
+ * values as their index. Missing values are NaN. The values of string
+ * attributes follow the columns of a group, because their index is only
+ * valid in the writing Instances. Relational attributes are not supported
+ * and stored as missing.
+ * <p>
+ * Rows are written in groups of at most <code>GROUP_SIZE</code> rows, so
+ * a reader can decode one group with a single bulk read per column.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-18
+ * @see ColumnarResultWriter
+ * @see ColumnarReader
+ */
+object ColumnarFormat {
+
+	val MAGIC = 0x4b434f4c // KCOL
+	val VERSION = 1
+
+	/** magic, version and header length */
+	val PREAMBLE_SIZE = 12
+
+	val GROUP_SIZE = 4096
+
+	val EXTENSION = ".kcol"
+
+	val UTF8 = Charset.forName("UTF-8")
+
+	def encodeHeader(header: Instances): Array[Byte] = new Instances(header, 0).toString.getBytes(UTF8)
+
+	def decodeHeader(bytes: Array[Byte]): Instances = new Instances(new StringReader(new String(bytes, UTF8)))
+
+	/**
+	 * @return indices of the string attributes
+	 */
+	def stringAttributes(header: Instances): Array[Int] = {
+		(0 until header.numAttributes).filter(header.attribute(_).`type` == Attribute.STRING).toArray
+	}
+
+	/**
+	 * @return size of a group without the string values
+	 */
+	def groupSize(rows: Int, attributes: Int): Long = 4L + rows.toLong * (attributes + 1) * 8
+}
@@ -0,0 +1,40 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.file.{ Path, Paths }
+import java.util.Properties
+import de.lmu.ifi.dbs.knowing.core.processing.{ INodeProperties, TLoader }
+import weka.core.Instances
+
+/**
+ * Loads a binary columnar result container written by the DebugPresenter.
+ * The <code>file</code> property must be an absolute path, as set by the
+ * PresentationDPUBuilder.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-18
+ * @see ColumnarReader
+ */
+class ColumnarLoader extends TLoader {
+
+	private var file: Path = _
+
+	def getDataSet(): Instances = ColumnarReader.read(file)
+
+	def configure(properties: Properties) {
+		file = Paths.get(properties.getProperty(INodeProperties.FILE))
+	}
+
+	def reset() {}
+
+}
@@ -0,0 +1,198 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.io.{ Closeable, IOException }
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.channels.FileChannel.MapMode
+import java.nio.file.{ Path, StandardOpenOption }
+import java.util.ArrayList
+import weka.core.{ Attribute, DenseInstance, Instances }
+import ColumnarFormat._
+
+/**
+ * Reads the binary columnar container. The data section is memory mapped
+ * once and the columns of each row group are decoded with bulk reads. A
+ * container whose header hasn't been written yet, because the presenter
+ * got no rows, is read as an empty relation without attributes.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-18
+ * @see ColumnarFormat
+ */
+class ColumnarReader(file: Path) extends Closeable {
+
+	import ColumnarReader._
+
+	private val channel = FileChannel.open(file, StandardOpenOption.READ)
+
+	private val written = readHeader()
+
+	/** Structure of the container */
+	val header: Instances = written getOrElse new Instances(file.getFileName.toString, new ArrayList[Attribute], 0)
+
+	/** Position of the first row group */
+	val dataStart = channel.position
+	private val stringAttributes = ColumnarFormat.stringAttributes(header)
+
+	/** Mapped part of the file and its position */
+	private var mapped = ByteBuffer.allocate(0)
+	private var mappedStart = 0L
+
+	/** false if the header hasn't been written yet */
+	def hasHeader: Boolean = written.isDefined
+
+	/**
+	 * Reads all complete row groups.
+	 */
+	def readAll(): Instances = {
+		val result = new Instances(header, 0)
+		if (hasHeader)
+			read(dataStart, channel.size, result)
+		result
+	}
+
+	/**
+	 * Decodes the complete groups in [start, end) and adds them to result.
+	 *
+	 * @return position after the last complete group
+	 */
+	def read(start: Long, end: Long, result: Instances): Long = {
+		var position = start
+		var complete = true
+		while (complete && end - position >= 4) {
+			val groupEnd = readGroup(position, end, result)
+			complete = groupEnd > position
+			position = groupEnd
+		}
+		position
+	}
+
+	def close() = channel.close()
+
+	/**
+	 * @return position after the group or start if the group isn't complete
+	 */
+	private def readGroup(start: Long, end: Long, result: Instances): Long = {
+		val rows = mapped.getInt(map(start, 4))
+		val attributes = header.numAttributes
+		val fixedSize = groupSize(rows, attributes)
+		if (start + fixedSize > end)
+			return start
+
+		val offset = map(start, fixedSize)
+		val group = mapped.duplicate
+		group.limit(offset + fixedSize.toInt).position(offset + 4)
+		val doubles = group.slice.asDoubleBuffer
+		val columns = Array.ofDim[Double](attributes + 1, rows)
+		columns foreach (doubles.get(_))
+
+		var position = start + fixedSize
+		val strings = Array.ofDim[String](stringAttributes.length, rows)
+		for (s <- 0 until stringAttributes.length; row <- 0 until rows) {
+			readString(position, end) match {
+				case None => return start
+				case Some((value, next)) =>
+					strings(s)(row) = value
+					position = next
+			}
+		}
+
+		for (row <- 0 until rows) {
+			val values = new Array[Double](attributes)
+			var i = 0
+			while (i < attributes) {
+				values(i) = columns(i)(row)
+				i += 1
+			}
+			for (s <- 0 until stringAttributes.length) {
+				val value = strings(s)(row)
+				val index = stringAttributes(s)
+				values(index) = if (value == null) Double.NaN else result.attribute(index).addStringValue(value)
+			}
+			result.add(new DenseInstance(columns(attributes)(row), values))
+		}
+		position
+	}
+
+	/**
+	 * @return (value, position after the value) or None if incomplete
+	 */
+	private def readString(position: Long, end: Long): Option[(String, Long)] = {
+		if (position + 4 > end)
+			return None
+		val length = mapped.getInt(map(position, 4))
+		if (length < 0)
+			return Some((null, position + 4))
+		if (position + 4 + length > end)
+			return None
+		val bytes = new Array[Byte](length)
+		mapped.position(map(position + 4, length))
+		mapped.get(bytes)
+		Some((new String(bytes, UTF8), position + 4 + length))
+	}
+
+	/**
+	 * Maps the file from start to its end, at most <code>MAP_SIZE</code>
+	 * bytes, unless [start, start + length) is already mapped.
+	 *
+	 * @return offset of start in the mapped buffer
+	 */
+	private def map(start: Long, length: Long): Int = {
+		if (start < mappedStart || start + length > mappedStart + mapped.capacity) {
+			val size = math.max(length, math.min(channel.size - start, MAP_SIZE))
+			mapped = channel.map(MapMode.READ_ONLY, start, size)
+			mappedStart = start
+		}
+		(start - mappedStart).toInt
+	}
+
+	/**
+	 * @return header or None if it hasn't been written completely
+	 */
+	private def readHeader(): Option[Instances] = {
+		val preamble = ByteBuffer.allocate(PREAMBLE_SIZE)
+		channel.read(preamble, 0)
+		preamble.flip()
+		if (preamble.remaining < 4)
+			return None
+		if (preamble.getInt != MAGIC)
+			throw new IOException("Not a columnar result container: " + file)
+		if (preamble.remaining < 8)
+			return None
+		val version = preamble.getInt
+		if (version != VERSION)
+			throw new IOException("Unsupported container version " + version + ": " + file)
+		val bytes = ByteBuffer.allocate(preamble.getInt)
+		if (channel.size < PREAMBLE_SIZE + bytes.capacity)
+			return None
+		channel.read(bytes, PREAMBLE_SIZE)
+		channel.position(PREAMBLE_SIZE + bytes.capacity)
+		Some(decodeHeader(bytes.array))
+	}
+}
+
+object ColumnarReader {
+
+	/** Maximum bytes mapped at once */
+	val MAP_SIZE = 1L << 30
+
+	def read(file: Path): Instances = {
+		val reader = new ColumnarReader(file)
+		try {
+			reader.readAll()
+		} finally {
+			reader.close()
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.{ Path, StandardOpenOption }
+import weka.core.{ Attribute, Instance, Instances }
+import ColumnarFormat._
+
+/**
+ * Writes the binary columnar container. Rows are collected column by
+ * column and written as a group when <code>GROUP_SIZE</code> rows are
+ * pending or on close. A live container also writes the pending rows on
+ * flush, so they can be committed.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-18
+ * @see ColumnarFormat
+ */
+class ColumnarResultWriter(file: Path, live: Boolean) extends ResultWriter {
+
+	def this(file: Path) = this(file, false)
+
+	private val channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+		StandardOpenOption.TRUNCATE_EXISTING)
+
+	private var header: Instances = _
+	private var columns: Array[Array[Double]] = _
+	private var weights: Array[Double] = _
+	private var stringAttributes: Array[Int] = _
+	private var strings: Array[Array[Array[Byte]]] = _
+	private var rows = 0
+
+	private var buffer: ByteBuffer = _
+
+	/** Bytes written to the channel */
+	private var written = 0L
+
+	def writeHeader(header: Instances) {
+		if (this.header != null)
+			return
+		this.header = new Instances(header, 0)
+		val attributes = header.numAttributes
+		columns = Array.ofDim[Double](attributes, GROUP_SIZE)
+		weights = new Array[Double](GROUP_SIZE)
+		stringAttributes = ColumnarFormat.stringAttributes(header)
+		strings = Array.ofDim[Array[Byte]](stringAttributes.length, GROUP_SIZE)
+		buffer = ByteBuffer.allocateDirect(math.min(groupSize(GROUP_SIZE, attributes), 8L * 1024 * 1024).toInt)
+
+		val bytes = encodeHeader(header)
+		val preamble = ByteBuffer.allocate(PREAMBLE_SIZE + bytes.length)
+		preamble.putInt(MAGIC).putInt(VERSION).putInt(bytes.length).put(bytes).flip()
+		writeFully(preamble)
+	}
+
+	def write(instance: Instance) {
+		var i = 0
+		while (i < columns.length) {
+			val attribute = header.attribute(i)
+			columns(i)(rows) = if (attribute.`type` == Attribute.RELATIONAL) Double.NaN else instance.value(i)
+			i += 1
+		}
+		weights(rows) = instance.weight
+		var s = 0
+		while (s < stringAttributes.length) {
+			val index = stringAttributes(s)
+			strings(s)(rows) = if (instance.isMissing(index)) null else instance.stringValue(index).getBytes(UTF8)
+			s += 1
+		}
+		rows += 1
+		if (rows == GROUP_SIZE)
+			writeGroup()
+	}
+
+	def flush() {
+		if (live && rows > 0)
+			writeGroup()
+	}
+
+	def close() {
+		try {
+			if (rows > 0)
+				writeGroup()
+			channel.force(true)
+		} finally {
+			channel.close()
+		}
+	}
+
+	/** Bytes written so far */
+	def position: Long = written
+
+	/** Rows of the current group */
+	override def pending: Int = rows
+
+	private def writeGroup() {
+		put(_.putInt(rows))
+		columns foreach (column => putDoubles(column))
+		putDoubles(weights)
+		strings foreach { values =>
+			var row = 0
+			while (row < rows) {
+				val value = values(row)
+				if (value == null) {
+					put(_.putInt(-1))
+				} else {
+					put(_.putInt(value.length))
+					putBytes(value)
+				}
+				values(row) = null
+				row += 1
+			}
+		}
+		buffer.flip()
+		writeFully(buffer)
+		buffer.clear()
+		rows = 0
+	}
+
+	private def putDoubles(values: Array[Double]) {
+		var row = 0
+		while (row < rows) {
+			if (buffer.remaining < 8)
+				drain()
+			buffer.putDouble(values(row))
+			row += 1
+		}
+	}
+
+	private def putBytes(bytes: Array[Byte]) {
+		var offset = 0
+		while (offset < bytes.length) {
+			if (!buffer.hasRemaining)
+				drain()
+			val length = math.min(buffer.remaining, bytes.length - offset)
+			buffer.put(bytes, offset, length)
+			offset += length
+		}
+	}
+
+	private def put(f: ByteBuffer => Unit) {
+		if (buffer.remaining < 8)
+			drain()
+		f(buffer)
+	}
+
+	private def drain() {
+		buffer.flip()
+		writeFully(buffer)
+		buffer.clear()
+	}
+
+	private def writeFully(b: ByteBuffer) {
+		while (b.hasRemaining)
+			written += channel.write(b)
+	}
+}
@@ -0,0 +1,102 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.{ Path, StandardOpenOption }
+import weka.core.{ Instance, Instances }
+
+/**
+ * Appends a commit record to <code>container.commit</code> after every
+ * flush. A record marks the container bytes which are complete and may be
+ * read while the DPU is still running.
+ *
+ * <pre>
+ * commit file := token(long) record*
+ * record      := bytes(long) rows(long)
+ * </pre>
+ *
+ * The token identifies the run, so a reader never follows the commit file
+ * of a previous run. The last record of a closed container has
+ * <code>rows = END</code>.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-21
+ * @see LiveResultReader
+ */
+class CommittingResultWriter(writer: ResultWriter, commitFile: Path, runToken: Long) extends ResultWriter {
+
+	import CommittingResultWriter._
+
+	private val channel = FileChannel.open(commitFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+		StandardOpenOption.TRUNCATE_EXISTING)
+	private val record = ByteBuffer.allocate(RECORD_SIZE)
+
+	private var rows = 0L
+
+	writeToken()
+
+	def writeHeader(header: Instances) = writer.writeHeader(header)
+
+	def write(instance: Instance) {
+		writer.write(instance)
+		rows += 1
+	}
+
+	override def write(instances: Instances) {
+		writer.write(instances)
+		rows += instances.size
+	}
+
+	def flush() {
+		writer.flush()
+		commit(writer.position, rows)
+	}
+
+	def close() {
+		try {
+			writer.flush()
+			val bytes = writer.position
+			writer.close()
+			commit(bytes, END)
+		} finally {
+			channel.close()
+		}
+	}
+
+	def position: Long = writer.position
+
+	private def writeToken() {
+		val token = ByteBuffer.allocate(TOKEN_SIZE)
+		token.putLong(runToken).flip()
+		while (token.hasRemaining)
+			channel.write(token)
+	}
+
+	private def commit(bytes: Long, rows: Long) {
+		record.clear()
+		record.putLong(bytes).putLong(rows).flip()
+		while (record.hasRemaining)
+			channel.write(record)
+	}
+}
+
+object CommittingResultWriter {
+
+	val COMMIT_SUFFIX = ".commit"
+	val TOKEN_SIZE = 8
+	val RECORD_SIZE = 16
+	val END = -1L
+
+	def commitFile(container: Path): Path = container.resolveSibling(container.getFileName + COMMIT_SUFFIX)
+}
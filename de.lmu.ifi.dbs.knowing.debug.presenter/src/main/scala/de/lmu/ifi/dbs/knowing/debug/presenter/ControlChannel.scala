@@ -0,0 +1,48 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+/**
+ * Line based protocol between the IDE and a warm launcher runtime. The IDE
+ * listens on <code>dpu.debug.warm.endpoint</code>, the runtime connects
+ * after its first run and waits for commands:
+ * <ul>
+ * <li><code>run path</code> - run the DPU of the application.conf at path</li>
+ * <li><code>stop</code> - stop the runtime</li>
+ * </ul>
+ * The runtime stops, too, if the IDE closes the connection. It replies
+ * <ul>
+ * <li><code>failed message</code> - the last run failed to start</li>
+ * </ul>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-27
+ */
+object ControlChannel {
+
+	val RUN = "run"
+	val STOP = "stop"
+	val FAILED = "failed"
+
+	def run(applicationConf: String): String = RUN + " " + applicationConf
+
+	def failed(message: String): String = FAILED + " " + String.valueOf(message).replace('\n', ' ')
+
+	/**
+	 * @return (command, argument), argument is empty if none
+	 */
+	def parse(line: String): (String, String) = {
+		val separator = line.indexOf(' ')
+		if (separator < 0) (line.trim, "")
+		else (line.substring(0, separator), line.substring(separator + 1).trim)
+	}
+}
@@ -14,7 +14,6 @@ import de.lmu.ifi.dbs.knowing.core.processing.TPresenter
 import java.nio.file.{ Files, Path }
 import java.io.IOException
 import java.util.Properties
-import weka.core.converters.{ Saver, ArffSaver }
 import weka.core.Instances
 import org.slf4j.LoggerFactory
 
@@ -29,28 +28,29 @@ class DebugPresenter extends TPresenter[Path] {
 
   val name = "Debug Presenter"
 
-  private var saver: ArffSaver = _
+  private var writer: ResultWriter = _
   private var file: Path = _
   private var nodeId: String = _
 
+  /** Milliseconds. Last writer status sent */
+  private var lastReport = 0L
+  /** Bytes written at the last writer status */
+  private var lastPosition = 0L
+
   def buildPresentation(instances: Instances) = try {
     log.info("Writing instances[" + instances.relationName + " | " + instances.size + "] to file " + file)
-    saver.setInstances(new Instances(instances, 0))
-    for (i <- 0 until instances.size) {
-      saver.writeIncremental(instances.get(i))
-    }
+    writer.writeHeader(instances)
+    writer.write(instances)
     // Flush buffer
-    saver.getWriter.flush
+    writer.flush()
+    reportWriter()
   } catch {
     case e: IOException => log.error("Error on writing Instances[" + instances.relationName + "]", e)
   }
 
   def createContainer(file: Path) = try {
     this.file = file
-
-    saver = new ArffSaver
-    saver.setRetrieval(Saver.INCREMENTAL)
-    saver.setFile(file.toFile)
+    writer = createWriter(file, DebugSettings(file.getParent))
 
   } catch {
     case e: IOException =>
@@ -60,14 +60,57 @@ class DebugPresenter extends TPresenter[Path] {
 
   def configure(properties: Properties) {}
 
+  protected def createWriter(file: Path, settings: DebugSettings): ResultWriter =
+    ResultWriter.open(file, settings, (w: ResultWriter) => reduce(w, file, settings))
+
+  /**
+   * Presenters which only need a reduced or reordered form of the results
+   * aggregate or sort them here, before they are written and after they
+   * are summarized. Runs on the writer's thread if writing is asynchronous.
+   *
+   * @param file - container
+   */
+  protected def reduce(writer: ResultWriter, file: Path, settings: DebugSettings): ResultWriter = writer
+
+  /**
+   * Reports queue depth and throughput of an asynchronous writer, at most
+   * once per second. The throughput covers the time since the previous
+   * report, the first one the time since the writer was created.
+   */
+  private def reportWriter() = writer match {
+    case async: AsyncResultWriter =>
+      val now = System.currentTimeMillis
+      val elapsed = now - lastReport
+      if (elapsed >= 1000) {
+        val position = async.position
+        val bytesPerSecond = if (lastReport == 0) async.bytesPerSecond else (position - lastPosition) * 1000.0 / elapsed
+        lastReport = now
+        lastPosition = position
+        statusChanged(WriterStatus.queue(async.queueDepth, async.queueCapacity))
+        statusChanged(WriterStatus.rate(bytesPerSecond))
+      }
+    case _ =>
+  }
+
   override def postStop() = try {
-    saver.resetOptions
-    saver.resetStructure
-    saver.resetWriter
+    if (writer != null)
+      writer.close()
   } catch {
     case e: Exception =>
-      log.error("Error on resetting", e)
-      throwException(e, "Could not reset (close) ArffSaver")
+      log.error("Error on closing", e)
+      throwException(e, "Could not close result writer")
+  } finally {
+    markDone()
+  }
+
+  /**
+   * Tells the IDE that nothing more is written to the container, even if
+   * closing failed. Otherwise it would wait for the timeout.
+   */
+  private def markDone() = if (file != null) try {
+    Files.write(ResultWriter.doneFile(file), Array[Byte]())
+  } catch {
+    case e: IOException => log.error("Error on marking container " + file + " as done", e)
   }
 
   def sync(parent: Path)(syncFun: => Unit) = syncFun
@@ -80,3 +123,37 @@ class DebugPresenter extends TPresenter[Path] {
 
 }
 
+/**
+ * Writes the instance count per class only, if aggregation is enabled.
+ */
+class DebugPieChartPresenter extends DebugPresenter {
+
+  override val name = "Debug Pie Chart Presenter"
+
+  override protected def reduce(writer: ResultWriter, file: Path, settings: DebugSettings): ResultWriter =
+    if (settings.resultAggregate) new ClassCountResultWriter(writer) else writer
+}
+
+/**
+ * Writes the results sorted by time and a pyramid of aggregates.
+ */
+class DebugTimeSeriesPresenter extends DebugPresenter {
+
+  override val name = "Debug Time Series Presenter"
+
+  override protected def reduce(writer: ResultWriter, file: Path, settings: DebugSettings): ResultWriter =
+    new TimeSeriesPyramidWriter(writer, TimeSeriesPyramid.pyramidFile(file), settings.resultSortBuffer,
+      TimeSeriesPyramid.DEFAULT_FANOUT)
+}
+
+/**
+ * Writes the merged intervals per class only, if aggregation is enabled.
+ */
+class DebugTimeIntervalPresenter extends DebugPresenter {
+
+  override val name = "Debug Time Interval Presenter"
+
+  override protected def reduce(writer: ResultWriter, file: Path, settings: DebugSettings): ResultWriter =
+    if (settings.resultAggregate) new IntervalMergeResultWriter(writer) else writer
+}
+
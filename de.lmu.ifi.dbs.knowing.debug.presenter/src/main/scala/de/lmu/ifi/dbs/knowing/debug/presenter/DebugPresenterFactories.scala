@@ -12,7 +12,7 @@ package de.lmu.ifi.dbs.knowing.debug.presenter
 
 import de.lmu.ifi.dbs.knowing.presenter._
 import de.lmu.ifi.dbs.knowing.core.util.OSGIUtil
-import de.lmu.ifi.dbs.knowing.core.factory.TFactory
+import de.lmu.ifi.dbs.knowing.core.factory.{ TFactory, ProcessorFactory }
 import org.osgi.framework.{ ServiceRegistration, BundleContext }
 import scala.collection.mutable.ListBuffer
 import java.nio.file.Path
@@ -33,6 +33,11 @@ object DebugPresenterFactories {
     registrations += register(new DebugPresenterTableFactory, context)
     registrations += register(new DebugPresenterTimeIntervalFactory, context)
     registrations += register(new DebugPresenterTimeSeriesFactory, context)
+    registrations += register(new ColumnarLoaderFactory, context)
+    registrations += register(new ParallelArffLoaderFactory, context)
+    registrations += register(new LiveResultLoaderFactory, context)
+    registrations += register(new PyramidLoaderFactory, context)
+    registrations += register(new PagingLoaderFactory, context)
   }
 
   def unregisterAll() = registrations foreach (_.unregister)
@@ -43,10 +48,20 @@ object DebugPresenterFactories {
   }
 }
 
-class DebugPresenterPieChartFactory extends PresenterFactory(classOf[DebugPresenter], classOf[IPieChartPresenter[Path]])
+class DebugPresenterPieChartFactory extends PresenterFactory(classOf[DebugPieChartPresenter], classOf[IPieChartPresenter[Path]])
 
 class DebugPresenterTableFactory extends PresenterFactory(classOf[DebugPresenter], classOf[ITablePresenter[Path]])
 
-class DebugPresenterTimeIntervalFactory extends PresenterFactory(classOf[DebugPresenter], classOf[ITimeIntervalClassPresenter[Path]])
+class DebugPresenterTimeIntervalFactory extends PresenterFactory(classOf[DebugTimeIntervalPresenter], classOf[ITimeIntervalClassPresenter[Path]])
 
-class DebugPresenterTimeSeriesFactory extends PresenterFactory(classOf[DebugPresenter], classOf[ITimeSeriesPresenter[Path]])
\ No newline at end of file
+class DebugPresenterTimeSeriesFactory extends PresenterFactory(classOf[DebugTimeSeriesPresenter], classOf[ITimeSeriesPresenter[Path]])
+
+class ColumnarLoaderFactory extends ProcessorFactory(classOf[ColumnarLoader])
+
+class ParallelArffLoaderFactory extends ProcessorFactory(classOf[ParallelArffLoader])
+
+class LiveResultLoaderFactory extends ProcessorFactory(classOf[LiveResultLoader])
+
+class PyramidLoaderFactory extends ProcessorFactory(classOf[PyramidLoader])
+
+class PagingLoaderFactory extends ProcessorFactory(classOf[PagingLoader])
\ No newline at end of file
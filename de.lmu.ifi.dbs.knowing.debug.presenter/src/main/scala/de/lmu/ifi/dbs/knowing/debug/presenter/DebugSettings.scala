@@ -0,0 +1,204 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.file.{ Files, Path }
+import com.typesafe.config.{ Config, ConfigFactory }
+
+/**
+ * Debug options of a single launch. They are read from the
+ * application.conf the launch delegate writes into the execution path.
+ * Every option has a default, so an empty config is valid.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-02
+ */
+class DebugSettings(config: Config) {
+
+	import DebugSettings._
+
+	/** Milliseconds between two flushes of the progress file */
+	val progressFlushInterval = getLong(PROGRESS_FLUSH_INTERVAL, ProgressSink.DEFAULT_FLUSH_INTERVAL)
+
+	/** Maximum number of events written before a flush */
+	val progressBatchSize = getInt(PROGRESS_BATCH_SIZE, ProgressSink.DEFAULT_BATCH_SIZE)
+
+	/** text or binary */
+	val progressFormat = getString(PROGRESS_FORMAT, FORMAT_TEXT)
+
+	def isBinaryProgress = FORMAT_BINARY.equalsIgnoreCase(progressFormat)
+
+	/** host:port the IDE listens on for status events. Empty if streaming is disabled */
+	val progressEndpoint = getString(PROGRESS_ENDPOINT, "")
+
+	def isStreamingProgress = !progressEndpoint.isEmpty
+
+	/** Write per-node timings into the execution path */
+	val metrics = getBoolean(METRICS, true)
+
+	/** Write a timeline in the Chrome trace-event format into the execution path */
+	val trace = getBoolean(TRACE, true)
+
+	/** arff or columnar */
+	val resultFormat = getString(RESULT_FORMAT, RESULT_ARFF)
+
+	/** Write results on a separate I/O thread */
+	val resultAsync = getBoolean(RESULT_ASYNC, false)
+
+	/** Commit every result batch, so the IDE can present it while running */
+	val resultLive = getBoolean(RESULT_LIVE, false)
+
+	/** Write a <nodeId>.stats summary next to every result container */
+	val resultStats = getBoolean(RESULT_STATS, true)
+
+	/**
+	 * Pie chart and time interval presenters write class counts and merged
+	 * intervals only, weighted by the number of rows. The replaying
+	 * presenter has to sum up the weights.
+	 */
+	val resultAggregate = getBoolean(RESULT_AGGREGATE, false)
+
+	/** Rows a time series presenter sorts in memory before spilling a run */
+	val resultSortBuffer = getInt(RESULT_SORT_BUFFER, TimeSeriesPyramidWriter.DEFAULT_SORT_BUFFER)
+
+	/** Write a <nodeId>.index of row offsets next to every result container */
+	val resultIndex = getBoolean(RESULT_INDEX, true)
+
+	/** Rows between two index entries */
+	val resultIndexInterval = getInt(RESULT_INDEX_INTERVAL, ResultIndex.DEFAULT_INTERVAL)
+
+	/** Keep the launcher runtime alive and reuse it for further launches */
+	val warm = getBoolean(WARM, false)
+
+	/** host:port the IDE listens on for a warm runtime. Empty if not warm */
+	val warmEndpoint = getString(WARM_ENDPOINT, "")
+
+	/** Identifies the launch in the commit files. Set by the launch delegate */
+	val runToken = getLong(RUN_TOKEN, 0L)
+
+	/** Maximum number of result batches waiting for the I/O thread */
+	val resultQueueSize = getInt(RESULT_QUEUE_SIZE, AsyncResultWriter.DEFAULT_QUEUE_SIZE)
+
+	/**
+	 * @param nodeId - of the presenter
+	 * @return none, reservoir, head or tail
+	 */
+	def sampleMode(nodeId: String): String =
+		getString(sampleKey(nodeId, "mode"), getString(RESULT_SAMPLE_MODE, SamplingResultWriter.NONE))
+
+	/**
+	 * @param nodeId - of the presenter
+	 * @return maximum number of rows written by the presenter, if sampled
+	 */
+	def sampleSize(nodeId: String): Int =
+		getInt(sampleKey(nodeId, "size"), getInt(RESULT_SAMPLE_SIZE, SamplingResultWriter.DEFAULT_SIZE))
+
+	def isSampled(nodeId: String) = !SamplingResultWriter.NONE.equalsIgnoreCase(sampleMode(nodeId))
+
+	private def getLong(path: String, default: Long): Long = if (config.hasPath(path)) config.getLong(path) else default
+
+	private def getBoolean(path: String, default: Boolean): Boolean = if (config.hasPath(path)) config.getBoolean(path) else default
+
+	private def getInt(path: String, default: Int): Int = if (config.hasPath(path)) config.getInt(path) else default
+
+	private def getString(path: String, default: String): String = if (config.hasPath(path)) config.getString(path) else default
+}
+
+object DebugSettings {
+
+	val APPLICATION_CONF = "application.conf"
+
+	/** Prefix of all debug options in the application.conf */
+	val PREFIX = "dpu.debug."
+
+	val PROGRESS_FLUSH_INTERVAL = PREFIX + "progress.flushinterval"
+	val PROGRESS_BATCH_SIZE = PREFIX + "progress.batchsize"
+	val PROGRESS_FORMAT = PREFIX + "progress.format"
+
+	val FORMAT_TEXT = "text"
+	val FORMAT_BINARY = "binary"
+
+	/** file (default) or socket. Set in the launch configuration */
+	val PROGRESS_CHANNEL = PREFIX + "progress.channel"
+	/** Set by the launch delegate if the socket channel is selected */
+	val PROGRESS_ENDPOINT = PREFIX + "progress.endpoint"
+
+	val CHANNEL_SOCKET = "socket"
+	val CHANNEL_FILE = "file"
+
+	/** true or false */
+	val METRICS = PREFIX + "metrics"
+	/** true or false */
+	val TRACE = PREFIX + "trace"
+
+	val RESULT_FORMAT = PREFIX + "result.format"
+
+	val RESULT_ARFF = "arff"
+	val RESULT_COLUMNAR = "columnar"
+
+	/** true or false */
+	val RESULT_ASYNC = PREFIX + "result.async"
+	val RESULT_QUEUE_SIZE = PREFIX + "result.queuesize"
+	/** true or false */
+	val RESULT_LIVE = PREFIX + "result.live"
+
+	/** Set by the launch delegate for every launch */
+	val RUN_TOKEN = PREFIX + "run.token"
+
+	/** true or false */
+	val RESULT_STATS = PREFIX + "result.stats"
+
+	/** true or false */
+	val RESULT_AGGREGATE = PREFIX + "result.aggregate"
+
+	val RESULT_SORT_BUFFER = PREFIX + "result.sortbuffer"
+	/** true or false */
+	val RESULT_INDEX = PREFIX + "result.index"
+	val RESULT_INDEX_INTERVAL = PREFIX + "result.index.interval"
+
+	/** none, reservoir, head or tail */
+	val RESULT_SAMPLE_MODE = PREFIX + "result.sample.mode"
+	val RESULT_SAMPLE_SIZE = PREFIX + "result.sample.size"
+	/** Per presenter overrides, e.g. result.sample.node."nodeId".mode */
+	val RESULT_SAMPLE_NODE = PREFIX + "result.sample.node"
+
+	/**
+	 * @param setting - mode or size
+	 * @return path of a per presenter sample setting. The node id is quoted,
+	 *         as it may contain dots.
+	 */
+	def sampleKey(nodeId: String, setting: String): String = RESULT_SAMPLE_NODE + ".\"" + nodeId + "\"." + setting
+
+	/** true or false */
+	val WARM = PREFIX + "warm"
+	/** Set by the launch delegate when a warm runtime is started */
+	val WARM_ENDPOINT = PREFIX + "warm.endpoint"
+
+	def apply(config: Config): DebugSettings = new DebugSettings(config)
+
+	/**
+	 * @return key of the setting in the launch configuration's debug options
+	 */
+	def optionKey(setting: String): String = setting.stripPrefix(PREFIX)
+
+	/**
+	 * @param executionPath - containing the application.conf
+	 * @return settings with defaults if no application.conf is present
+	 */
+	def apply(executionPath: Path): DebugSettings = {
+		val appConf = executionPath.resolve(APPLICATION_CONF)
+		if (Files.exists(appConf))
+			new DebugSettings(ConfigFactory.parseURL(appConf.toUri.toURL))
+		else
+			new DebugSettings(ConfigFactory.empty)
+	}
+}
@@ -0,0 +1,251 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.io.{ BufferedInputStream, BufferedOutputStream, DataInputStream, DataOutputStream, IOException }
+import java.nio.charset.Charset
+import java.nio.file.{ Files, Path }
+import scala.collection.JavaConversions._
+import scala.collection.mutable.{ ArrayBuffer, HashSet, LinkedHashMap, Queue }
+import de.lmu.ifi.dbs.knowing.core.model.IDataProcessingUnit
+
+/**
+ * DPU compiled by the IDE for the launcher. Nodes are topologically
+ * ordered, the launch parameters are merged into the DPU parameters and
+ * the structure is checked. The launcher builds the DPU from the plan
+ * instead of parsing the DPU file.
+ *
+ * <pre>
+ * plan       := magic(int) version(int) name(str) parameters nodes edges
+ * parameters := count(int) (key(str) value(str)){count}
+ * nodes      := count(int) (id(str) factoryId(str) type(str) properties){count}
+ * edges      := count(int) (id(str) source(int) sourcePort(str) target(int) targetPort(str)){count}
+ * str        := length(int) utf8(byte){length}
+ * </pre>
+ *
+ * Ports, types and values are empty strings if not set. Edges reference
+ * nodes by their index in the plan. Ids and keys are never empty.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+class ExecutionPlan(val name: String, val parameters: Array[(String, String)], val nodes: Array[ExecutionPlan.Node], val edges: Array[ExecutionPlan.Edge]) {
+
+	/**
+	 * @return a new DPU with the nodes in execution order
+	 */
+	def toDPU: IDataProcessingUnit = {
+		val dpu = IDataProcessingUnit.TYPE.instantiate[IDataProcessingUnit]
+		dpu.setName(name)
+		for ((key, value) <- parameters) {
+			val p = dpu.getParameters.addNewElement
+			p.setKey(key)
+			p.setValue(value)
+		}
+		for (n <- nodes) {
+			val node = dpu.getNodes.addNewElement
+			node.setId(n.id)
+			node.setFactoryId(n.factoryId)
+			if (!n.nodeType.isEmpty) node.setType(n.nodeType)
+			for ((key, value) <- n.properties) {
+				val p = node.getProperties.addNewElement
+				p.setKey(key)
+				p.setValue(value)
+			}
+		}
+		for (e <- edges) {
+			val edge = dpu.getEdges.addNewElement
+			edge.setId(e.id)
+			edge.setSource(nodes(e.source).id)
+			edge.setTarget(nodes(e.target).id)
+			if (!e.sourcePort.isEmpty) edge.setSourcePort(e.sourcePort)
+			if (!e.targetPort.isEmpty) edge.setTargetPort(e.targetPort)
+		}
+		dpu
+	}
+
+	def write(file: Path) {
+		val out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))
+		try {
+			out.writeInt(ExecutionPlan.MAGIC)
+			out.writeInt(ExecutionPlan.VERSION)
+			writeString(out, name)
+			writePairs(out, parameters)
+			out.writeInt(nodes.length)
+			for (n <- nodes) {
+				writeString(out, n.id)
+				writeString(out, n.factoryId)
+				writeString(out, n.nodeType)
+				writePairs(out, n.properties)
+			}
+			out.writeInt(edges.length)
+			for (e <- edges) {
+				writeString(out, e.id)
+				out.writeInt(e.source)
+				writeString(out, e.sourcePort)
+				out.writeInt(e.target)
+				writeString(out, e.targetPort)
+			}
+		} finally {
+			out.close()
+		}
+	}
+
+	private def writePairs(out: DataOutputStream, pairs: Array[(String, String)]) {
+		out.writeInt(pairs.length)
+		for ((key, value) <- pairs) {
+			writeString(out, key)
+			writeString(out, value)
+		}
+	}
+
+	/** writeUTF is limited to 64 KB, property values aren't */
+	private def writeString(out: DataOutputStream, value: String) {
+		val bytes = value.getBytes(ExecutionPlan.UTF8)
+		out.writeInt(bytes.length)
+		out.write(bytes)
+	}
+}
+
+object ExecutionPlan {
+
+	val MAGIC = 0x4b504c4e // KPLN
+	val VERSION = 2
+
+	val UTF8 = Charset.forName("UTF-8")
+
+	/** File name in the execution path */
+	val PLAN_FILE = "dpu.plan"
+
+	/** application.conf key with the absolute path of the plan */
+	val PLAN_KEY = "dpu.plan"
+
+	class Node(val id: String, val factoryId: String, val nodeType: String, val properties: Array[(String, String)])
+
+	/** Source and target are node indices */
+	class Edge(val id: String, val source: Int, val sourcePort: String, val target: Int, val targetPort: String)
+
+	/**
+	 * @param dpu
+	 * @param parameters - launch parameters, override the DPU parameters
+	 * @throws IllegalArgumentException if ids, keys, nodes or edges are invalid
+	 */
+	def compile(dpu: IDataProcessingUnit, parameters: java.util.Map[String, String]): ExecutionPlan = {
+		val errors = ArrayBuffer[String]()
+		val merged = LinkedHashMap[String, String]()
+		for (p <- dpu.getParameters) {
+			val key = p.getKey.getContent
+			if (isEmpty(key)) errors += "Parameter without key"
+			else merged(key) = Option(p.getValue.getContent) getOrElse ""
+		}
+		if (parameters != null) {
+			for ((key, value) <- parameters) {
+				if (isEmpty(key)) errors += "Launch parameter without key"
+				else merged(key) = Option(value) getOrElse ""
+			}
+		}
+
+		val dpuNodes = dpu.getNodes.toIndexedSeq
+		val index = LinkedHashMap[String, Int]()
+		for ((node, i) <- dpuNodes.zipWithIndex) {
+			val id = node.getId.getContent
+			if (isEmpty(id)) errors += "Node without id"
+			else if (index contains id) errors += "Duplicate node " + id
+			else index(id) = i
+			if (isEmpty(node.getFactoryId.getContent)) errors += "Node " + id + " has no factory"
+			if (node.getProperties exists (p => isEmpty(p.getKey.getContent))) errors += "Node " + id + " has a property without key"
+		}
+
+		val dpuEdges = dpu.getEdges.toIndexedSeq
+		val edgeIds = HashSet[String]()
+		val links = dpuEdges map { e =>
+			val id = e.getId.getContent
+			val sourceId = e.getSource.getContent
+			val targetId = e.getTarget.getContent
+			if (isEmpty(id)) errors += "Edge from " + sourceId + " to " + targetId + " without id"
+			else if (!edgeIds.add(id)) errors += "Duplicate edge " + id
+			val source = if (isEmpty(sourceId)) None else index.get(sourceId)
+			val target = if (isEmpty(targetId)) None else index.get(targetId)
+			if (source.isEmpty) errors += "Edge " + id + " has unknown source " + sourceId
+			if (target.isEmpty) errors += "Edge " + id + " has unknown target " + targetId
+			(source getOrElse -1, target getOrElse -1)
+		}
+		if (!errors.isEmpty)
+			throw new IllegalArgumentException(errors.mkString("Invalid DPU " + dpu.getName.getContent + ": ", ", ", ""))
+
+		// Kahn's algorithm, ties in document order. Nodes on cycles are appended in document order
+		val incoming = new Array[Int](dpuNodes.size)
+		val outgoing = Array.fill(dpuNodes.size)(ArrayBuffer[Int]())
+		for ((source, target) <- links) {
+			incoming(target) += 1
+			outgoing(source) += target
+		}
+		val ready = Queue[Int]() ++ (0 until dpuNodes.size).filter(incoming(_) == 0)
+		val order = ArrayBuffer[Int]()
+		while (!ready.isEmpty) {
+			val n = ready.dequeue
+			order += n
+			for (t <- outgoing(n)) {
+				incoming(t) -= 1
+				if (incoming(t) == 0) ready += t
+			}
+		}
+		if (order.size < dpuNodes.size)
+			order ++= (0 until dpuNodes.size).filterNot(order.contains)
+
+		val position = new Array[Int](dpuNodes.size)
+		for ((n, i) <- order.zipWithIndex) position(n) = i
+
+		val nodes = order.map { i =>
+			val n = dpuNodes(i)
+			val properties = n.getProperties.map(p => (p.getKey.getContent, Option(p.getValue.getContent) getOrElse "")).toArray
+			new Node(n.getId.getContent, n.getFactoryId.getContent, Option(n.getType.getText) getOrElse "", properties)
+		}.toArray
+		val edges = dpuEdges.zip(links).map {
+			case (e, (source, target)) =>
+				new Edge(e.getId.getContent, position(source), port(e.getSourcePort.getContent), position(target), port(e.getTargetPort.getContent))
+		}.toArray
+		new ExecutionPlan(Option(dpu.getName.getContent) getOrElse "", merged.toArray, nodes, edges)
+	}
+
+	def planFile(executionPath: Path): Path = executionPath.resolve(PLAN_FILE)
+
+	def read(file: Path): ExecutionPlan = {
+		val in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))
+		try {
+			if (in.readInt != MAGIC)
+				throw new IOException("Not an execution plan: " + file)
+			val version = in.readInt
+			if (version != VERSION)
+				throw new IOException("Unsupported plan version " + version + ": " + file)
+			val name = readString(in)
+			val parameters = readPairs(in)
+			val nodes = Array.fill(in.readInt)(new Node(readString(in), readString(in), readString(in), readPairs(in)))
+			val edges = Array.fill(in.readInt)(new Edge(readString(in), in.readInt, readString(in), in.readInt, readString(in)))
+			new ExecutionPlan(name, parameters, nodes, edges)
+		} finally {
+			in.close()
+		}
+	}
+
+	private def readPairs(in: DataInputStream): Array[(String, String)] = Array.fill(in.readInt)((readString(in), readString(in)))
+
+	private def readString(in: DataInputStream): String = {
+		val bytes = new Array[Byte](in.readInt)
+		in.readFully(bytes)
+		new String(bytes, UTF8)
+	}
+
+	private def port(port: String): String = Option(port) getOrElse ""
+
+	private def isEmpty(value: String): Boolean = value == null || value.isEmpty
+}
@@ -0,0 +1,68 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.file.Path
+import scala.collection.mutable.ArrayBuffer
+import weka.core.{ Instance, Instances }
+
+/**
+ * Records the position of every <code>interval</code>th row while the
+ * container is written and stores the index on close. Must directly wrap
+ * the writer of the container format, so positions are exact. Columnar
+ * containers are indexed at the group containing the row.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-26
+ * @see ResultIndex
+ */
+class IndexingResultWriter(writer: ResultWriter, indexFile: Path, interval: Int) extends ResultWriter {
+
+	require(interval > 0, "Index interval must be positive")
+
+	private val rows = new ArrayBuffer[Long]
+	private val positions = new ArrayBuffer[Long]
+
+	/** Rows written */
+	private var count = 0L
+
+	def writeHeader(header: Instances) = writer.writeHeader(header)
+
+	def write(instance: Instance) {
+		// first row which is read from the current position
+		val start = count - writer.pending
+		if (rows.isEmpty || start - rows.last >= interval) {
+			val position = writer.position
+			if (rows.isEmpty || position != positions.last) {
+				rows += start
+				positions += position
+			}
+		}
+		writer.write(instance)
+		count += 1
+	}
+
+	def flush() = writer.flush()
+
+	def close() {
+		// the last row group is written on close
+		writer.close()
+		val end = writer.position
+		rows += count
+		positions += end
+		ResultIndex.write(indexFile, rows.toArray, positions.toArray)
+	}
+
+	def position: Long = writer.position
+
+	override def pending: Int = writer.pending
+}
@@ -0,0 +1,136 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.util.TreeMap
+import scala.collection.JavaConversions._
+import weka.core.{ DenseInstance, Instance, Instances, Utils }
+
+/**
+ * Merges overlapping and touching intervals of the same class and writes
+ * the merged intervals on close, carrying the number of merged intervals
+ * as weight. All other attributes are missing. This is all a time interval
+ * presenter needs.
+ * <p>
+ * The bounds are the attributes named <code>from</code> and
+ * <code>to</code>, or else the first two date or numeric attributes. The
+ * class is determined like in the ClassCountResultWriter. Without bounds,
+ * instances are passed through unchanged.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-24
+ */
+class IntervalMergeResultWriter(writer: ResultWriter) extends ResultWriter {
+
+	import IntervalMergeResultWriter._
+
+	private var header: Instances = _
+	private var from = -1
+	private var to = -1
+	private var classIndex = -1
+
+	/** Merged intervals per class value, last slot for missing */
+	private var intervals: Array[TreeMap[Double, Interval]] = _
+
+	def writeHeader(header: Instances) {
+		if (this.header != null)
+			return
+		this.header = new Instances(header, 0)
+		val bounds = boundIndices(header)
+		if (bounds.size == 2) {
+			from = bounds(0)
+			to = bounds(1)
+			classIndex = ClassCountResultWriter.classIndex(header)
+			val classes = if (classIndex < 0) 0 else header.attribute(classIndex).numValues
+			intervals = Array.fill(classes + 1)(new TreeMap[Double, Interval])
+		}
+		writer.writeHeader(header)
+	}
+
+	def write(instance: Instance) {
+		if (intervals == null) {
+			writer.write(instance)
+			return
+		}
+		if (instance.isMissing(from) || instance.isMissing(to))
+			return
+		val value = if (classIndex < 0 || instance.isMissing(classIndex)) intervals.length - 1 else instance.value(classIndex).toInt
+		insert(intervals(value), instance.value(from), instance.value(to))
+	}
+
+	/** Nothing is written before close */
+	def flush() = if (intervals == null) writer.flush()
+
+	def close() {
+		try {
+			if (intervals != null) {
+				for (value <- 0 until intervals.length; (start, interval) <- intervals(value)) {
+					val values = Array.fill(header.numAttributes)(Utils.missingValue)
+					values(from) = start
+					values(to) = interval.end
+					if (classIndex >= 0 && value < intervals.length - 1)
+						values(classIndex) = value
+					val instance = new DenseInstance(interval.merged, values)
+					instance.setDataset(header)
+					writer.write(instance)
+				}
+			}
+		} finally {
+			writer.close()
+		}
+	}
+
+	def position: Long = writer.position
+}
+
+object IntervalMergeResultWriter {
+
+	val FROM = "from"
+	val TO = "to"
+
+	class Interval(var end: Double, var merged: Double)
+
+	/**
+	 * @return indices of the from and to attribute, empty if there are none
+	 */
+	def boundIndices(header: Instances): Seq[Int] = {
+		val named = Option(header.attribute(FROM)) zip Option(header.attribute(TO)) map { case (f, t) => Seq(f.index, t.index) }
+		named.headOption getOrElse {
+			(0 until header.numAttributes).filter(i => header.attribute(i).isNumeric).take(2)
+		}
+	}
+
+	/**
+	 * Inserts [start, end] and merges it with all intervals it overlaps or
+	 * touches. Keeps the map free of overlapping intervals.
+	 */
+	def insert(intervals: TreeMap[Double, Interval], start: Double, end: Double) {
+		var first = math.min(start, end)
+		val merged = new Interval(math.max(start, end), 1)
+		val floor = intervals.floorEntry(first)
+		if (floor != null && floor.getValue.end >= first) {
+			first = floor.getKey
+			merged.end = math.max(merged.end, floor.getValue.end)
+			merged.merged += floor.getValue.merged
+			intervals.remove(first)
+		}
+		var next = intervals.ceilingEntry(first)
+		while (next != null && next.getKey <= merged.end) {
+			merged.end = math.max(merged.end, next.getValue.end)
+			merged.merged += next.getValue.merged
+			intervals.remove(next.getKey)
+			next = intervals.ceilingEntry(first)
+		}
+		intervals.put(first, merged)
+	}
+}
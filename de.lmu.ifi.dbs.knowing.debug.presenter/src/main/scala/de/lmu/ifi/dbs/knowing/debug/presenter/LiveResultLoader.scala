@@ -0,0 +1,125 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.file.{ Path, Paths }
+import java.util.{ ArrayList, Collections, Properties }
+import java.util.concurrent.ConcurrentHashMap
+import de.lmu.ifi.dbs.knowing.core.processing.{ INodeProperties, TLoader }
+import weka.core.{ Attribute, Instances }
+
+/**
+ * Loads the committed rows of a result container while the DPU is still
+ * running. Every data set contains the rows committed since the last one.
+ * Loading ends with the END commit, if nothing was committed for
+ * <code>timeout</code> milliseconds or if the loaders of the execution path
+ * are stopped.
+ * <p>
+ * A data set is returned after at most <code>MAX_WAIT</code> milliseconds,
+ * so the loader's thread isn't blocked while nothing is committed. Without
+ * new rows it's empty: the header of the container or, if nothing has been
+ * committed yet, a relation without attributes.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-21
+ * @see LiveResultReader
+ */
+class LiveResultLoader extends TLoader {
+
+	import LiveResultLoader._
+
+	private var reader: LiveResultReader = _
+	private var file: Path = _
+	private var executionPath: Path = _
+	private var timeout = DEFAULT_TIMEOUT
+	private var timedOut = false
+	@volatile private var stopped = false
+
+	/** Milliseconds. Last rows returned */
+	private var idleSince = 0L
+
+	def getDataSet(): Instances = {
+		val waitUntil = System.currentTimeMillis + MAX_WAIT
+		while (true) {
+			val rows = reader.poll()
+			val now = System.currentTimeMillis
+			if (rows != null) {
+				idleSince = now
+				return rows
+			}
+			if (reader.isFinished || stopped || now - idleSince > timeout) {
+				timedOut = !reader.isFinished
+				reader.close()
+				loaders.remove(this)
+				return noRows()
+			}
+			if (now >= waitUntil)
+				return noRows()
+			Thread.sleep(POLL_INTERVAL)
+		}
+		null
+	}
+
+	override def hasNextDataSet(): Boolean = !reader.isFinished && !timedOut
+
+	def configure(properties: Properties) {
+		file = Paths.get(properties.getProperty(INodeProperties.FILE))
+		val token = properties.getProperty(TOKEN, "0").toLong
+		timeout = properties.getProperty(TIMEOUT, DEFAULT_TIMEOUT.toString).toLong
+		reader = new LiveResultReader(file, token)
+		executionPath = file.toAbsolutePath.normalize.getParent
+		idleSince = System.currentTimeMillis
+		loaders.add(this)
+	}
+
+	private def noRows(): Instances = reader.empty match {
+		case null => new Instances(file.getFileName.toString, new ArrayList[Attribute], 0)
+		case empty => empty
+	}
+
+	def reset() {}
+
+}
+
+object LiveResultLoader {
+
+	/** Run token of the launch. Commit files of other runs are ignored */
+	val TOKEN = "live.token"
+
+	/** Milliseconds without a commit after which loading ends */
+	val TIMEOUT = "live.timeout"
+
+	val DEFAULT_TIMEOUT = 10 * 60 * 1000L
+
+	/** Milliseconds */
+	val POLL_INTERVAL = 250L
+
+	/** Milliseconds a single data set waits for commits */
+	val MAX_WAIT = 2000L
+
+	private val loaders = Collections.newSetFromMap(new ConcurrentHashMap[LiveResultLoader, java.lang.Boolean])
+
+	/**
+	 * Ends loading of all live loaders reading from the execution path, e.g.
+	 * because the launch terminated. Rows committed so far are returned.
+	 */
+	def stop(executionPath: Path) {
+		val path = executionPath.toAbsolutePath.normalize
+		val it = loaders.iterator
+		while (it.hasNext) {
+			val loader = it.next
+			if (loader.executionPath == path)
+				loader.stopped = true
+		}
+	}
+}
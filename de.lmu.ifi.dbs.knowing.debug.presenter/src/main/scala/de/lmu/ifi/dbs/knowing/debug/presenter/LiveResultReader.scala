@@ -0,0 +1,229 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.io.Closeable
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.{ Files, Path, StandardOpenOption }
+import weka.core.Instances
+import CommittingResultWriter._
+import LiveResultReader._
+
+/**
+ * Follows a result container while the DPU is running. Only rows up to
+ * the last commit record are read, each row exactly once.
+ * <p>
+ * Commit files with another token belong to a previous run and are
+ * ignored, until the DebugUIFactory recreates them.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-21
+ * @see CommittingResultWriter
+ */
+class LiveResultReader(container: Path, runToken: Long) extends Closeable {
+
+	private val commitFile = CommittingResultWriter.commitFile(container)
+	private val columnar = container.getFileName.toString.endsWith(ResultWriter.COLUMNAR_EXTENSION)
+
+	/** Bytes of the commit file read */
+	private var commitPosition = 0L
+	/** Container bytes already returned */
+	private var consumed = 0L
+	/** Container bytes committed */
+	private var committed = 0L
+
+	private var header: Instances = _
+	private var arffReader: ParallelArffReader = _
+	private var columnarReader: ColumnarReader = _
+
+	private var finished = false
+
+	/** true after the END record has been read and all rows returned */
+	def isFinished: Boolean = finished && consumed >= committed
+
+	/**
+	 * @return rows committed since the last call or null if none
+	 */
+	def poll(): Instances = {
+		readCommits()
+		if (committed <= consumed)
+			return null
+		if (header == null)
+			open()
+		val rows = if (columnar) {
+			val result = new Instances(header, 0)
+			consumed = columnarReader.read(consumed, committed, result)
+			result
+		} else {
+			val result = arffReader.read(header, consumed, committed) match {
+				case null => arffReader.readSequential(header, consumed, committed)
+				case instances => instances
+			}
+			consumed = committed
+			result
+		}
+		if (rows.numInstances == 0) null else rows
+	}
+
+	/**
+	 * @return container without rows or null if nothing has been
+	 *         committed yet
+	 */
+	def empty: Instances = if (header == null) null else new Instances(header, 0)
+
+	def close() {
+		if (columnarReader != null)
+			columnarReader.close()
+	}
+
+	private def readCommits() {
+		if (finished || !Files.exists(commitFile))
+			return
+		val channel = FileChannel.open(commitFile, StandardOpenOption.READ)
+		try {
+			val size = channel.size
+			if (commitPosition == 0) {
+				if (size < TOKEN_SIZE || read(channel, 0, TOKEN_SIZE).getLong != runToken)
+					return
+				commitPosition = TOKEN_SIZE
+			}
+			val complete = (size - commitPosition) / RECORD_SIZE * RECORD_SIZE
+			if (complete == 0)
+				return
+			val buffer = read(channel, commitPosition, complete.toInt)
+			while (buffer.remaining >= RECORD_SIZE) {
+				committed = math.max(committed, buffer.getLong)
+				if (buffer.getLong == END)
+					finished = true
+			}
+			commitPosition += complete
+		} finally {
+			channel.close()
+		}
+	}
+
+	/**
+	 * Reads the header of the container. The first commit follows the
+	 * header, so it's complete.
+	 */
+	private def open() {
+		if (columnar) {
+			columnarReader = new ColumnarReader(container)
+			header = columnarReader.header
+			consumed = columnarReader.dataStart
+		} else {
+			arffReader = new ParallelArffReader(container)
+			val (arffHeader, dataStart) = arffReader.readHeader()
+			header = arffHeader
+			consumed = dataStart
+		}
+	}
+}
+
+object LiveResultReader {
+
+	/**
+	 * @return true if the END record of the run has been committed
+	 */
+	def isComplete(container: Path, runToken: Long): Boolean = lastCommit(container, runToken) match {
+		case Some((_, rows)) => rows == END
+		case None => false
+	}
+
+	/**
+	 * @return container bytes committed by the run, 0 if none
+	 */
+	def committed(container: Path, runToken: Long): Long = lastCommit(container, runToken) match {
+		case Some((position, _)) => position
+		case None => 0
+	}
+
+	/**
+	 * Reads the rows after the last commit, which a live presentation
+	 * couldn't show. A row which was only written partially is skipped.
+	 *
+	 * @param start - committed container bytes
+	 */
+	def readUncommitted(container: Path, start: Long): Instances = {
+		val end = Files.size(container)
+		if (container.getFileName.toString.endsWith(ResultWriter.COLUMNAR_EXTENSION)) {
+			val reader = new ColumnarReader(container)
+			try {
+				val result = new Instances(reader.header, 0)
+				if (reader.hasHeader)
+					reader.read(math.max(start, reader.dataStart), end, result)
+				result
+			} finally {
+				reader.close()
+			}
+		} else {
+			val reader = new ParallelArffReader(container)
+			val (header, dataStart) = reader.readHeader()
+			val from = math.max(start, dataStart)
+			val to = lineEnd(container, from, end)
+			val rows = reader.read(header, from, to)
+			if (rows != null) rows else reader.readSequential(header, from, to)
+		}
+	}
+
+	/**
+	 * @return position after the last line break in [start, end)
+	 */
+	private def lineEnd(container: Path, start: Long, end: Long): Long = {
+		val channel = FileChannel.open(container, StandardOpenOption.READ)
+		try {
+			var to = end
+			while (to > start) {
+				val from = math.max(start, to - 4096)
+				val buffer = read(channel, from, (to - from).toInt)
+				var i = buffer.limit - 1
+				while (i >= 0) {
+					if (buffer.get(i) == '\n')
+						return from + i + 1
+					i -= 1
+				}
+				to = from
+			}
+			start
+		} finally {
+			channel.close()
+		}
+	}
+
+	/**
+	 * @return (position, rows) of the last commit record of the run
+	 */
+	private def lastCommit(container: Path, runToken: Long): Option[(Long, Long)] = {
+		val commitFile = CommittingResultWriter.commitFile(container)
+		if (!Files.exists(commitFile))
+			return None
+		val channel = FileChannel.open(commitFile, StandardOpenOption.READ)
+		try {
+			val records = (channel.size - TOKEN_SIZE) / RECORD_SIZE
+			if (records < 1 || read(channel, 0, TOKEN_SIZE).getLong != runToken)
+				return None
+			val record = read(channel, TOKEN_SIZE + (records - 1) * RECORD_SIZE, RECORD_SIZE)
+			Some((record.getLong(0), record.getLong(8)))
+		} finally {
+			channel.close()
+		}
+	}
+
+	private def read(channel: FileChannel, position: Long, size: Int): ByteBuffer = {
+		val buffer = ByteBuffer.allocate(size)
+		while (buffer.hasRemaining && channel.read(buffer, position + buffer.position) > 0) {}
+		buffer.flip()
+		buffer
+	}
+}
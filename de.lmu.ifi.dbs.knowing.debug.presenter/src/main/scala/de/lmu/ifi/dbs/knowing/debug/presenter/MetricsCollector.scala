@@ -0,0 +1,178 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.io.PrintWriter
+import java.nio.charset.Charset
+import java.nio.file.{ Files, Path }
+import scala.collection.mutable.LinkedHashMap
+import akka.actor.ActorRef
+import de.lmu.ifi.dbs.knowing.core.events._
+
+/**
+ * Times every node from the status events of a run. On close a compact
+ * metrics file is written, one line per node:
+ * <ul>
+ * <li>wall - first Running to last Finished in ms</li>
+ * <li>queued - sum of Ready to Running in ms</li>
+ * <li>events - number of status events</li>
+ * <li>rate.p50/p90/p99 - progress rate in worked units per second</li>
+ * </ul>
+ * The header contains the makespan of the whole DPU. Status of result
+ * writers isn't work of the node and is skipped.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-14
+ */
+class MetricsCollector(file: Path) extends ProgressAppender {
+
+	private val nodes = new LinkedHashMap[String, NodeMetrics]
+
+	private var first = Long.MaxValue
+	private var last = Long.MinValue
+
+	def append(actor: ActorRef, status: Status, timestamp: Long) {
+		val path = actor.path.toString
+		val node = nodes.getOrElseUpdate(path, new NodeMetrics(path))
+		node.update(status, timestamp)
+		first = math.min(first, timestamp)
+		last = math.max(last, timestamp)
+	}
+
+	/** Metrics are written on close */
+	def flush() {}
+
+	def close() {
+		val writer = new PrintWriter(Files.newBufferedWriter(file, Charset.defaultCharset))
+		try {
+			write(writer)
+		} finally {
+			writer.close()
+		}
+	}
+
+	/** Milliseconds from the first to the last event */
+	def makespan: Long = if (nodes.isEmpty) 0 else last - first
+
+	def metrics: Iterable[NodeMetrics] = nodes.values
+
+	def write(writer: PrintWriter) {
+		writer.println("# makespan=" + makespan + "ms nodes=" + nodes.size)
+		writer.println("# node\twall\tqueued\tevents\trate.p50\trate.p90\trate.p99")
+		nodes.values foreach { node =>
+			writer.println(node.path + "\t" + node.wallTime + "\t" + node.queuedTime + "\t" + node.events + "\t" +
+				node.rates.percentile(0.5) + "\t" + node.rates.percentile(0.9) + "\t" + node.rates.percentile(0.99))
+		}
+	}
+}
+
+object MetricsCollector {
+	val METRICS_FILENAME = "metrics"
+}
+
+/**
+ * Timings of a single node.
+ */
+class NodeMetrics(val path: String) {
+
+	var events = 0L
+
+	/** Progress rates in worked units per second */
+	val rates = new Histogram
+
+	private var firstRunning = -1L
+	private var lastFinished = -1L
+	private var lastEvent = -1L
+
+	private var readySince = -1L
+	private var queued = 0L
+
+	private var lastProgress = -1L
+	private var lastWorked = 0
+
+	def update(status: Status, timestamp: Long) {
+		if (WriterStatus.isWriterStatus(status))
+			return
+		events += 1
+		lastEvent = timestamp
+		status match {
+			case Ready() =>
+				readySince = timestamp
+			case Running() =>
+				running(timestamp)
+			case Progress(_, worked, _) =>
+				running(timestamp)
+				if (lastProgress >= 0 && timestamp > lastProgress && worked > lastWorked)
+					rates.add((worked - lastWorked) * 1000L / (timestamp - lastProgress))
+				lastProgress = timestamp
+				lastWorked = worked
+			case Finished() =>
+				lastFinished = timestamp
+				lastProgress = -1
+				lastWorked = 0
+			case _ =>
+		}
+	}
+
+	private def running(timestamp: Long) {
+		if (firstRunning < 0)
+			firstRunning = timestamp
+		if (readySince >= 0) {
+			queued += timestamp - readySince
+			readySince = -1
+		}
+	}
+
+	/** Milliseconds from the first Running to the last Finished or event */
+	def wallTime: Long = {
+		if (firstRunning < 0) 0
+		else math.max(lastFinished, lastEvent) - firstRunning
+	}
+
+	/** Milliseconds spent between Ready and Running */
+	def queuedTime: Long = queued
+}
+
+/**
+ * Histogram with power of two buckets. Percentiles are accurate
+ * up to a factor of two, which is enough to spot slow nodes.
+ */
+class Histogram {
+
+	private val buckets = new Array[Long](64)
+	private var count = 0L
+
+	def add(value: Long) {
+		val bucket = if (value <= 0) 0 else 64 - java.lang.Long.numberOfLeadingZeros(value)
+		buckets(bucket) += 1
+		count += 1
+	}
+
+	def size = count
+
+	/**
+	 * @param p - in [0, 1]
+	 * @return upper bound of the bucket containing the percentile, 0 if empty
+	 */
+	def percentile(p: Double): Long = {
+		if (count == 0)
+			return 0
+		val rank = math.max(1L, math.ceil(p * count).toLong)
+		var seen = 0L
+		var bucket = 0
+		while (seen + buckets(bucket) < rank) {
+			seen += buckets(bucket)
+			bucket += 1
+		}
+		if (bucket == 0) 0 else (1L << bucket) - 1
+	}
+}
@@ -0,0 +1,89 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.io.Closeable
+import java.nio.file.Path
+import weka.core.Instances
+
+/**
+ * Reads arbitrary row windows of a result container through its index.
+ * Only the index entries around the window are read, so memory depends on
+ * the window and the index interval, not on the container.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-26
+ * @see ResultIndex
+ */
+class PagedResultReader(container: Path) extends Closeable {
+
+	private val index = ResultIndex.read(ResultIndex.indexFile(container))
+	private val columnar = container.getFileName.toString.endsWith(ResultWriter.COLUMNAR_EXTENSION)
+
+	private val columnarReader = if (columnar) new ColumnarReader(container) else null
+	private val arffReader = if (columnar) null else new ParallelArffReader(container)
+
+	/** Structure of the container */
+	val header: Instances = if (columnar) columnarReader.header else arffReader.readHeader()._1
+
+	/** Rows in the container */
+	def size: Long = index.size
+
+	/**
+	 * @param first - row
+	 * @param count - rows
+	 * @return rows [first, first + count), fewer at the end of the container
+	 */
+	def read(first: Long, count: Int): Instances = {
+		val last = math.min(first + count, size)
+		if (first >= last)
+			return new Instances(header, 0)
+		val from = index.floor(first)
+		val to = index.ceiling(last)
+		val rows = read(index.positions(from), index.positions(to))
+		val offset = (first - index.rows(from)).toInt
+		new Instances(rows, offset, math.min((last - first).toInt, rows.numInstances - offset))
+	}
+
+	def close() {
+		if (columnarReader != null)
+			columnarReader.close()
+	}
+
+	private def read(start: Long, end: Long): Instances = if (columnar) {
+		val result = new Instances(header, 0)
+		columnarReader.read(start, end, result)
+		result
+	} else {
+		arffReader.read(header, start, end) match {
+			case null => arffReader.readSequential(header, start, end)
+			case instances => instances
+		}
+	}
+}
+
+object PagedResultReader {
+
+	def read(container: Path, first: Long, count: Int): Instances = {
+		val reader = new PagedResultReader(container)
+		try {
+			reader.read(first, count)
+		} finally {
+			reader.close()
+		}
+	}
+
+	/**
+	 * @return true if the container has an index
+	 */
+	def isIndexed(container: Path): Boolean = java.nio.file.Files.exists(ResultIndex.indexFile(container))
+}
@@ -0,0 +1,57 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.file.{ Path, Paths }
+import java.util.Properties
+import de.lmu.ifi.dbs.knowing.core.processing.{ INodeProperties, TLoader }
+import weka.core.Instances
+
+/**
+ * Loads a window of rows from an indexed result container. The
+ * <code>file</code> property must be the absolute path of the container.
+ * Only for presenters which request further windows themselves, the
+ * replay loads whole containers.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-26
+ * @see PagedResultReader
+ */
+class PagingLoader extends TLoader {
+
+	import PagingLoader._
+
+	private var file: Path = _
+	private var first = 0L
+	private var size = DEFAULT_PAGE_SIZE
+
+	def getDataSet(): Instances = PagedResultReader.read(file, first, size)
+
+	def configure(properties: Properties) {
+		file = Paths.get(properties.getProperty(INodeProperties.FILE))
+		first = properties.getProperty(FIRST, "0").toLong
+		size = properties.getProperty(SIZE, DEFAULT_PAGE_SIZE.toString).toInt
+	}
+
+	def reset() {}
+
+}
+
+object PagingLoader {
+
+	/** First row of the window */
+	val FIRST = "page.first"
+	/** Rows of the window */
+	val SIZE = "page.size"
+
+	val DEFAULT_PAGE_SIZE = 10000
+}
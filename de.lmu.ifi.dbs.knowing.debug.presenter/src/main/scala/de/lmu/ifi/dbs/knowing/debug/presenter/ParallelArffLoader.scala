@@ -0,0 +1,40 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.file.{ Path, Paths }
+import java.util.Properties
+import de.lmu.ifi.dbs.knowing.core.processing.{ INodeProperties, TLoader }
+import weka.core.Instances
+
+/**
+ * Loads an ARFF result container with the ParallelArffReader.
+ * The <code>file</code> property must be an absolute path, as set by the
+ * PresentationDPUBuilder.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-19
+ * @see ParallelArffReader
+ */
+class ParallelArffLoader extends TLoader {
+
+	private var file: Path = _
+
+	def getDataSet(): Instances = ParallelArffReader.read(file)
+
+	def configure(properties: Properties) {
+		file = Paths.get(properties.getProperty(INodeProperties.FILE))
+	}
+
+	def reset() {}
+
+}
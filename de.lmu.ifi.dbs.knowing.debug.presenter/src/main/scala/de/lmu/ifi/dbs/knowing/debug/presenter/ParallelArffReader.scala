@@ -0,0 +1,447 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.io.{ IOException, StringReader }
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.channels.FileChannel.MapMode
+import java.nio.charset.Charset
+import java.nio.file.{ Files, Path, StandardOpenOption }
+import java.text.ParseException
+import java.util.concurrent.{ Callable, ExecutionException, ForkJoinPool }
+import scala.collection.JavaConversions._
+import scala.collection.mutable.ArrayBuffer
+import org.slf4j.LoggerFactory
+import weka.core.{ Attribute, DenseInstance, Instances, Utils }
+import weka.core.converters.ArffLoader.ArffReader
+
+/**
+ * Reads dense ARFF files written by the ArffResultWriter. The file is
+ * memory mapped, the data section is split into line aligned chunks
+ * and the chunks are parsed in parallel on a fork-join pool shared by all
+ * readers.
+ * <p>
+ * Numeric and nominal values are decoded in parallel. String and date
+ * values are kept as text and added in file order afterwards, because
+ * adding them changes the shared attributes. Files with sparse rows or
+ * relational attributes are read with the sequential ArffReader.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-19
+ */
+class ParallelArffReader(file: Path, charset: Charset, chunkSize: Int) {
+
+	import ParallelArffReader._
+
+	def this(file: Path) = this(file, Charset.defaultCharset, DEFAULT_CHUNK_SIZE)
+
+	@throws(classOf[IOException])
+	def read(): Instances = {
+		val (header, dataStart) = readHeader()
+		if (!isSupported(header))
+			return readSequential()
+		read(header, dataStart, Files.size(file)) match {
+			case null => readSequential()
+			case instances => instances
+		}
+	}
+
+	/**
+	 * Reads the complete lines in [start, end) of the data section.
+	 *
+	 * @param header - as returned by readHeader
+	 * @return instances or null if the range must be read sequentially
+	 */
+	def read(header: Instances, start: Long, end: Long): Instances = {
+		if (!isSupported(header))
+			return null
+		val channel = FileChannel.open(file, StandardOpenOption.READ)
+		try {
+			val ranges = split(channel, start, end)
+			val tasks = ranges map {
+				case (from, to) => new Callable[Chunk] {
+					def call() = parse(channel, from, to, header)
+				}
+			}
+			val chunks = pool.invokeAll(tasks) map (_.get)
+			assemble(channel, header, chunks)
+		} catch {
+			case e: ExecutionException => e.getCause match {
+				case unsupported: UnsupportedRowException =>
+					log.debug("Falling back to sequential parser: " + unsupported.getMessage)
+					null
+				case io: IOException => throw io
+				case other => throw new IOException("Error parsing " + file, other)
+			}
+		} finally {
+			channel.close()
+		}
+	}
+
+	/**
+	 * @return (header, position of the first data line)
+	 */
+	def readHeader(): (Instances, Long) = {
+		val channel = FileChannel.open(file, StandardOpenOption.READ)
+		try {
+			readHeader(channel)
+		} finally {
+			channel.close()
+		}
+	}
+
+	private def readHeader(channel: FileChannel): (Instances, Long) = {
+		val headerText = new StringBuilder
+		var position = 0L
+		var found = false
+		val buffer = ByteBuffer.allocate(64 * 1024)
+		val line = new ArrayBuffer[Byte]
+		while (!found && { buffer.clear(); channel.read(buffer, position) > 0 }) {
+			buffer.flip()
+			while (!found && buffer.hasRemaining) {
+				val b = buffer.get
+				position += 1
+				if (b == '\n') {
+					val text = new String(line.toArray, charset)
+					headerText.append(text).append('\n')
+					found = text.trim.toLowerCase.startsWith("@data")
+					line.clear()
+				} else {
+					line += b
+				}
+			}
+		}
+		if (!found)
+			throw new IOException("No @data section in " + file)
+		(new Instances(new StringReader(headerText.toString)), position)
+	}
+
+	/**
+	 * Reads [start, end) of the data section with the sequential ArffReader.
+	 */
+	def readSequential(header: Instances, start: Long, end: Long): Instances = {
+		val channel = FileChannel.open(file, StandardOpenOption.READ)
+		try {
+			val data = charset.decode(channel.map(MapMode.READ_ONLY, start, end - start))
+			new ArffReader(new StringReader(new Instances(header, 0).toString + "\n" + data)).getData
+		} finally {
+			channel.close()
+		}
+	}
+
+	private def isSupported(header: Instances): Boolean = {
+		(0 until header.numAttributes) forall (header.attribute(_).`type` != Attribute.RELATIONAL)
+	}
+
+	/**
+	 * Splits [start, end) into ranges of about chunkSize, which end after
+	 * a line break.
+	 */
+	private def split(channel: FileChannel, start: Long, end: Long): Seq[(Long, Long)] = {
+		val ranges = new ArrayBuffer[(Long, Long)]
+		val probe = ByteBuffer.allocate(4096)
+		var from = start
+		while (from < end) {
+			var to = math.min(from + chunkSize, end)
+			var aligned = to == end
+			while (!aligned) {
+				probe.clear()
+				val read = channel.read(probe, to)
+				if (read <= 0) {
+					to = end
+					aligned = true
+				} else {
+					var i = 0
+					while (i < read && !aligned) {
+						if (probe.get(i) == '\n') {
+							to += i + 1
+							aligned = true
+						}
+						i += 1
+					}
+					if (!aligned)
+						to += read
+				}
+			}
+			ranges += ((from, to))
+			from = to
+		}
+		ranges
+	}
+
+	private def parse(channel: FileChannel, start: Long, end: Long, header: Instances): Chunk = {
+		val buffer = channel.map(MapMode.READ_ONLY, start, end - start)
+		val chunk = new Chunk(start)
+		val parser = new LineParser(header, charset)
+		var bytes = new Array[Byte](1024)
+		var length = 0
+		try {
+			while (buffer.hasRemaining) {
+				val b = buffer.get
+				if (b == '\n') {
+					parser.parse(bytes, length, chunk)
+					chunk.line += 1
+					length = 0
+				} else if (b != '\r') {
+					if (length == bytes.length)
+						bytes = java.util.Arrays.copyOf(bytes, bytes.length * 2)
+					bytes(length) = b
+					length += 1
+				}
+			}
+			if (length > 0)
+				parser.parse(bytes, length, chunk)
+		} catch {
+			case e: UnsupportedRowException => throw e
+			case e: IOException => throw lineError(channel, chunk, chunk.line, e)
+		}
+		chunk
+	}
+
+	private def assemble(channel: FileChannel, header: Instances, chunks: Seq[Chunk]): Instances = {
+		val instances = new Instances(header, chunks.map(_.rows.size).sum)
+		chunks foreach { chunk =>
+			for (row <- 0 until chunk.rows.size) {
+				val values = chunk.rows(row)
+				val texts = chunk.texts(row)
+				if (texts != null) {
+					for ((index, text) <- texts) {
+						val attribute = instances.attribute(index)
+						values(index) = if (attribute.isString) {
+							attribute.addStringValue(text)
+						} else try {
+							attribute.parseDate(text)
+						} catch {
+							case e: ParseException => throw lineError(channel, chunk, chunk.lines(row), e)
+						}
+					}
+				}
+				instances.add(new DenseInstance(chunk.weights(row), values))
+			}
+		}
+		instances
+	}
+
+	/**
+	 * Adds the line number to a parse error, as the ArffReader does. The
+	 * lines before the chunk are only counted if an error occurs.
+	 *
+	 * @param line - in the chunk, starting at 0
+	 */
+	private def lineError(channel: FileChannel, chunk: Chunk, line: Int, cause: Exception): IOException = {
+		val buffer = ByteBuffer.allocate(64 * 1024)
+		var lines = 1L + line
+		var position = 0L
+		while (position < chunk.start && { buffer.clear(); channel.read(buffer, position) > 0 }) {
+			val end = math.min(buffer.position, chunk.start - position).toInt
+			var i = 0
+			while (i < end) {
+				if (buffer.get(i) == '\n')
+					lines += 1
+				i += 1
+			}
+			position += end
+		}
+		new IOException(cause.getMessage + ", line " + lines + " of " + file, cause)
+	}
+
+	private def readSequential(): Instances = {
+		val reader = Files.newBufferedReader(file, charset)
+		try {
+			new ArffReader(reader).getData
+		} finally {
+			reader.close()
+		}
+	}
+}
+
+object ParallelArffReader {
+
+	val DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024
+
+	private val log = LoggerFactory.getLogger(classOf[ParallelArffReader])
+
+	/** Parses the chunks of all readers, including the live polls */
+	private val pool = new ForkJoinPool
+
+	def read(file: Path): Instances = new ParallelArffReader(file).read()
+
+	/** Rows of a single chunk, which begins at start */
+	private class Chunk(val start: Long) {
+		val rows = new ArrayBuffer[Array[Double]]
+		val weights = new ArrayBuffer[Double]
+		/** (attribute, text) of string and date values per row, null if none */
+		val texts = new ArrayBuffer[List[(Int, String)]]
+		/** line of each row in the chunk */
+		val lines = new ArrayBuffer[Int]
+		/** line being parsed */
+		var line = 0
+	}
+
+	private class UnsupportedRowException(message: String) extends IOException(message)
+
+	/**
+	 * Decodes dense rows. Only reads the header, so it can be used
+	 * concurrently.
+	 */
+	private class LineParser(header: Instances, charset: Charset) {
+
+		private val attributes = header.numAttributes
+		private val types = Array.tabulate(attributes)(header.attribute(_).`type`)
+
+		private var bytes: Array[Byte] = _
+		private var length = 0
+		private var position = 0
+
+		def parse(line: Array[Byte], length: Int, chunk: Chunk) {
+			this.bytes = line
+			this.length = length
+			position = 0
+			skipWhitespace()
+			if (position == length || bytes(position) == '%')
+				return
+			if (bytes(position) == '{')
+				throw new UnsupportedRowException("sparse row")
+
+			val values = new Array[Double](attributes)
+			var texts: List[(Int, String)] = null
+			var i = 0
+			while (i < attributes) {
+				if (i > 0)
+					expect(',')
+				skipWhitespace()
+				if (isMissing) {
+					values(i) = Utils.missingValue
+					position += 1
+				} else types(i) match {
+					case Attribute.NUMERIC =>
+						values(i) = number()
+					case Attribute.NOMINAL =>
+						val value = token()
+						val index = header.attribute(i).indexOfValue(value)
+						if (index < 0)
+							throw new IOException("Nominal value not declared in header: " + value)
+						values(i) = index
+					case _ =>
+						val text = token()
+						texts = if (texts == null) List((i, text)) else (i, text) :: texts
+				}
+				skipWhitespace()
+				i += 1
+			}
+			var weight = 1.0
+			if (position < length && bytes(position) == ',') {
+				position += 1
+				skipWhitespace()
+				expect('{')
+				val start = position
+				while (position < length && bytes(position) != '}')
+					position += 1
+				weight = parseDouble(new String(bytes, start, position - start, charset).trim)
+				expect('}')
+			}
+			chunk.rows += values
+			chunk.weights += weight
+			chunk.texts += texts
+			chunk.lines += chunk.line
+		}
+
+		private def isMissing: Boolean = {
+			if (position >= length || bytes(position) != '?')
+				return false
+			val next = position + 1
+			next == length || bytes(next) == ',' || bytes(next) == ' ' || bytes(next) == '\t'
+		}
+
+		/**
+		 * @return unquoted token up to the next separator
+		 */
+		private def token(): String = {
+			if (position < length && (bytes(position) == '\'' || bytes(position) == '"')) {
+				val quote = bytes(position)
+				val start = position
+				position += 1
+				while (position < length && bytes(position) != quote) {
+					if (bytes(position) == '\\')
+						position += 1
+					position += 1
+				}
+				position += 1
+				// Utils.unquote handles the escapes written by Utils.quote
+				return Utils.unquote(new String(bytes, start, position - start, charset))
+			}
+			val start = position
+			while (position < length && bytes(position) != ',')
+				position += 1
+			new String(bytes, start, position - start, charset).trim
+		}
+
+		/**
+		 * Decodes plain decimals with up to 15 digits in place. The result
+		 * is exact, as mantissa and power of ten are exact doubles. Other
+		 * numbers are decoded with Double.parseDouble.
+		 */
+		private def number(): Double = {
+			val start = position
+			val negative = position < length && bytes(position) == '-'
+			if (negative)
+				position += 1
+			var mantissa = 0L
+			var digits = 0
+			var scale = -1
+			var plain = true
+			while (plain && position < length && bytes(position) != ',' && bytes(position) != ' ' && bytes(position) != '\t') {
+				val c = bytes(position)
+				if (c >= '0' && c <= '9') {
+					mantissa = mantissa * 10 + (c - '0')
+					digits += 1
+					if (scale >= 0)
+						scale += 1
+				} else if (c == '.' && scale < 0) {
+					scale = 0
+				} else {
+					plain = false
+				}
+				position += 1
+			}
+			if (!plain || digits == 0 || digits > 15) {
+				position = start
+				return parseDouble(token())
+			}
+			val value = if (scale > 0) mantissa / POWERS_OF_TEN(scale) else mantissa.toDouble
+			if (negative) -value else value
+		}
+
+		private def parseDouble(text: String): Double = {
+			try {
+				java.lang.Double.parseDouble(text)
+			} catch {
+				case e: NumberFormatException => throw new IOException("Not a number: " + text)
+			}
+		}
+
+		private def skipWhitespace() {
+			while (position < length && (bytes(position) == ' ' || bytes(position) == '\t'))
+				position += 1
+		}
+
+		private def expect(c: Char) {
+			if (position >= length || bytes(position) != c)
+				throw new IOException("Expected '" + c + "' at column " + position)
+			position += 1
+		}
+	}
+
+	private val POWERS_OF_TEN = Array.iterate(1.0, 16)(_ * 10)
+}
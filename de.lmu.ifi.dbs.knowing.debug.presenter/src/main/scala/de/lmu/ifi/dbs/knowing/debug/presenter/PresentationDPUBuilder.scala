@@ -10,16 +10,17 @@
 \*                                                               */
 package de.lmu.ifi.dbs.knowing.debug.presenter
 
-import de.lmu.ifi.dbs.knowing.core.model.{ IDataProcessingUnit, NodeType }
+import de.lmu.ifi.dbs.knowing.core.model.{ IDataProcessingUnit, INode, NodeType }
 import de.lmu.ifi.dbs.knowing.core.util.{ DPUBuilder, DPUUtil }
 import de.lmu.ifi.dbs.knowing.core.processing.INodeProperties
+import de.lmu.ifi.dbs.knowing.presenter.ITablePresenter
 import weka.core.converters.ArffLoader
+import java.nio.file.{ Files, Path }
 import java.util.Properties
-import weka.core.converters.ArffLoader
 
 /**
  * Creates a DPU to present the results of the execution process.
- * [ArffLoader -> Original Presenter]
+ * [ArffLoader | ParallelArffLoader | ColumnarLoader | LiveResultLoader | UncommittedLoader | PyramidLoader -> Original Presenter]
  * 
  * @author Nepomuk Seiler
  * @version 0.1
@@ -27,16 +28,141 @@ import weka.core.converters.ArffLoader
  */
 object PresentationDPUBuilder {
 
-	def create(dpu: IDataProcessingUnit): IDataProcessingUnit = {
-		val presenterNodes = DPUUtil.presenterNodes(dpu)
+	def create(dpu: IDataProcessingUnit): IDataProcessingUnit = build(dpu, DPUUtil.presenterNodes(dpu).toSeq) {
+		n => (classOf[ArffLoader], fileProperties(n.getId.getContent + ".arff"))
+	}
+
+	/**
+	 * Loads the containers in the result format of the last launch
+	 * in the execution path.
+	 */
+	def create(dpu: IDataProcessingUnit, executionPath: Path): IDataProcessingUnit =
+		create(dpu, executionPath, DPUUtil.presenterNodes(dpu).toSeq)
+
+	private def create(dpu: IDataProcessingUnit, executionPath: Path, nodes: Seq[INode]): IDataProcessingUnit = {
+		val extension = ResultWriter.extension(DebugSettings(executionPath).resultFormat)
+		build(dpu, nodes)(n => containerLoader(executionPath.resolve(n.getId.getContent + extension)))
+	}
+
+	/**
+	 * @return loader for the whole container
+	 */
+	private def containerLoader(container: Path): (Class[_], Properties) = pyramidLoader(container) getOrElse {
+		val properties = fileProperties(container.toAbsolutePath.toString)
+		if (container.getFileName.toString.endsWith(ResultWriter.COLUMNAR_EXTENSION))
+			(classOf[ColumnarLoader], properties)
+		else
+			(classOf[ParallelArffLoader], properties)
+	}
+
+	/**
+	 * Time series presenters have a pyramid next to the container. Only the
+	 * level fitting the chart is loaded, or the container's rows if they fit.
+	 */
+	private def pyramidLoader(container: Path): Option[(Class[_], Properties)] = {
+		val pyramid = TimeSeriesPyramid.pyramidFile(container)
+		if (!Files.exists(pyramid))
+			return None
+		val properties = fileProperties(pyramid.toAbsolutePath.toString)
+		properties.setProperty(PyramidLoader.CONTAINER, container.toAbsolutePath.toString)
+		Some((classOf[PyramidLoader], properties))
+	}
+
+	/**
+	 * Presents the committed results while the DPU is running.
+	 *
+	 * @param runToken - of the launch. Containers of other runs are ignored.
+	 */
+	def createLive(dpu: IDataProcessingUnit, executionPath: Path, runToken: Long): IDataProcessingUnit = {
+		val extension = ResultWriter.extension(DebugSettings(executionPath).resultFormat)
+		build(dpu, DPUUtil.presenterNodes(dpu).toSeq) {
+			n =>
+				val container = executionPath.resolve(n.getId.getContent + extension)
+				val properties = fileProperties(container.toAbsolutePath.toString)
+				properties.setProperty(LiveResultLoader.TOKEN, runToken.toString)
+				(classOf[LiveResultLoader], properties)
+		}
+	}
+
+	/**
+	 * Presents the rows a live presentation couldn't show, because the run
+	 * ended without committing them. Containers with commits of the run
+	 * are resumed after the last commit, the others are replayed.
+	 *
+	 * @return None if all containers of the run are complete
+	 */
+	def createIncomplete(dpu: IDataProcessingUnit, executionPath: Path, runToken: Long): Option[IDataProcessingUnit] = {
+		val extension = ResultWriter.extension(DebugSettings(executionPath).resultFormat)
+		val incomplete = DPUUtil.presenterNodes(dpu).toSeq filterNot { n =>
+			LiveResultReader.isComplete(executionPath.resolve(n.getId.getContent + extension), runToken)
+		}
+		if (incomplete.isEmpty)
+			return None
+		Some(build(dpu, incomplete) {
+			n =>
+				val container = executionPath.resolve(n.getId.getContent + extension)
+				LiveResultReader.committed(container, runToken) match {
+					case 0L => containerLoader(container)
+					case committed =>
+						val properties = fileProperties(container.toAbsolutePath.toString)
+						properties.setProperty(UncommittedLoader.START, committed.toString)
+						(classOf[UncommittedLoader], properties)
+				}
+		})
+	}
+
+	/**
+	 * @return the container of each presenter node in the result format
+	 *         of the last launch
+	 */
+	def containers(dpu: IDataProcessingUnit, executionPath: Path): Seq[Path] = {
+		val extension = ResultWriter.extension(DebugSettings(executionPath).resultFormat)
+		DPUUtil.presenterNodes(dpu).toSeq map (n => executionPath.resolve(n.getId.getContent + extension))
+	}
+
+	/**
+	 * Shows the statistics of each presenter in a table, if present.
+	 * [ParallelArffLoader -> TablePresenter]
+	 *
+	 * @return None if no presenter has written statistics
+	 */
+	def createSummary(dpu: IDataProcessingUnit, executionPath: Path): Option[IDataProcessingUnit] = {
+		val extension = ResultWriter.extension(DebugSettings(executionPath).resultFormat)
+		val summaries = for {
+			n <- DPUUtil.presenterNodes(dpu)
+			stats = ResultStatistics.statsFile(executionPath.resolve(n.getId.getContent + extension))
+			if Files.exists(stats)
+		} yield (n.getId.getContent, stats)
+		if (summaries.isEmpty)
+			return None
+		val dpuBuilder = summaries.foldLeft(DPUBuilder(dpu.getName.getContent + " statistics")) {
+			case (b, (nodeId, stats)) =>
+				val loaderId = nodeId + ResultStatistics.STATS_EXTENSION + ".loader"
+				val presenterId = nodeId + ResultStatistics.STATS_EXTENSION
+				b.addNode(loaderId, classOf[ParallelArffLoader], NodeType.LOADER, fileProperties(stats.toAbsolutePath.toString))
+					.addNode(presenterId, classOf[ITablePresenter[_]], NodeType.PRESENTER, new Properties)
+					.addEdge(loaderId + "2" + presenterId, loaderId, presenterId)
+		}
+		Some(dpuBuilder.build())
+	}
+
+	/**
+	 * Adds a loader for each of the given presenter nodes.
+	 */
+	private def build(dpu: IDataProcessingUnit, presenterNodes: Seq[INode])(loader: INode => (Class[_], Properties)): IDataProcessingUnit = {
 		presenterNodes.foldLeft(DPUBuilder(dpu.getName.getContent)) {
 			(b, n) =>
 				val loaderId = n.getId.getContent + ".loader"
-				val properties = new Properties
-				properties.setProperty(INodeProperties.FILE, n.getId.getContent + ".arff")
-				b.addNode(loaderId, classOf[ArffLoader], NodeType.LOADER, properties)
+				val (loaderClass, properties) = loader(n)
+				b.addNode(loaderId, loaderClass, NodeType.LOADER, properties)
 					.addNode(n)
 					.addEdge(loaderId + "2" + n.getId.getContent, loaderId, n.getId.getContent)
 		}.build()
 	}
+
+	private def fileProperties(file: String): Properties = {
+		val properties = new Properties
+		properties.setProperty(INodeProperties.FILE, file)
+		properties
+	}
 }
\ No newline at end of file
@@ -0,0 +1,225 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.charset.Charset
+import scala.collection.mutable.ArrayBuffer
+import de.lmu.ifi.dbs.knowing.core.events._
+
+/**
+ * Parses the lines of the text progress protocol. The ProgressWriter
+ * defines an id for each actor path the first time it appears:
+ * <pre>
+ * @0;akka://system/user/supervisor/node
+ * 0;Running()
+ * </pre>
+ * The parser keeps the path table, so every event of an actor shares the
+ * same path instance. Lines with the full path are still understood.
+ * <p>
+ * Lines with an id can be parsed directly from a byte buffer. Status
+ * objects without fields are shared and the task of a Progress event is
+ * only decoded if it differs from the last one of the same actor, so
+ * the common case allocates nothing but the Progress itself. The results
+ * are equal to the ones of ProgressReader.parseStatus.
+ * </p>
+ * <p>
+ * A parser is bound to a single stream. Call reset() if the stream starts
+ * again, e.g. after the progress file was truncated.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-16
+ * @see ProgressWriter
+ */
+class ProgressLineParser(charset: Charset) {
+
+	import ProgressLineParser._
+
+	def this() = this(Charset.defaultCharset)
+
+	private val paths = new ArrayBuffer[String]
+	/** Last Progress task per path id */
+	private val tasks = new ArrayBuffer[String]
+
+	/**
+	 * @return (path, status) or null if the line is a path definition
+	 */
+	def parse(line: String): (String, Status) = {
+		val separator = line.indexOf(';')
+		if (line.charAt(0) == DEFINE) {
+			define(Integer.parseInt(line.substring(1, separator)), line.substring(separator + 1))
+			null
+		} else if (Character.isDigit(line.charAt(0))) {
+			(paths(Integer.parseInt(line.substring(0, separator))), ProgressReader.parseStatus(line.substring(separator + 1)))
+		} else {
+			ProgressReader.parseLine(line)
+		}
+	}
+
+	/**
+	 * Parses the line in <code>bytes[offset, offset + length)</code>. Falls
+	 * back to parse(String) for lines with a full path or an ExceptionEvent.
+	 *
+	 * @return (path, status) or null if the line is a path definition
+	 */
+	def parse(bytes: Array[Byte], offset: Int, length: Int): (String, Status) = {
+		val end = offset + length
+		val first = bytes(offset)
+		if (first == DEFINE) {
+			val separator = indexOf(bytes, offset, end, ';')
+			define(parseInt(bytes, offset + 1, separator), new String(bytes, separator + 1, end - separator - 1, charset))
+			return null
+		}
+		if (first < '0' || first > '9')
+			return parse(new String(bytes, offset, length, charset))
+
+		val separator = indexOf(bytes, offset, end, ';')
+		val id = parseInt(bytes, offset, separator)
+		val status = parseStatus(id, bytes, separator + 1, end)
+		if (status == null)
+			return parse(new String(bytes, offset, length, charset))
+		(paths(id), status)
+	}
+
+	def reset() {
+		paths.clear()
+		tasks.clear()
+	}
+
+	protected def define(id: Int, path: String) {
+		while (paths.size <= id) {
+			paths += null
+			tasks += null
+		}
+		paths(id) = path
+		tasks(id) = null
+	}
+
+	/**
+	 * @return status or null if it can't be decoded without a String
+	 */
+	private def parseStatus(id: Int, bytes: Array[Byte], start: Int, end: Int): Status = {
+		if (startsWith(bytes, start, end, PROGRESS_PREFIX) && bytes(end - 1) == ')')
+			return parseProgress(id, bytes, start + PROGRESS_PREFIX.length, end - 1)
+		var i = 0
+		while (i < STATES.length) {
+			if (matches(bytes, start, end, STATES(i)))
+				return STATE_INSTANCES(i)
+			i += 1
+		}
+		null
+	}
+
+	/**
+	 * Same fields as <code>content.split(",")</code> of the String parser.
+	 */
+	private def parseProgress(id: Int, bytes: Array[Byte], start: Int, end: Int): Status = {
+		val c1 = indexOf(bytes, start, end, ',')
+		val c2 = indexOf(bytes, c1 + 1, end, ',')
+		val c3 = indexOf(bytes, c2 + 1, end, ',')
+		if (c1 == end || c2 == end || !isInt(bytes, c1 + 1, c2) || !isInt(bytes, c2 + 1, c3))
+			return null
+		Progress(task(id, bytes, start, c1), parseInt(bytes, c1 + 1, c2), parseInt(bytes, c2 + 1, c3))
+	}
+
+	/**
+	 * @return the last task of the path if it has the same bytes
+	 */
+	private def task(id: Int, bytes: Array[Byte], start: Int, end: Int): String = {
+		val last = tasks(id)
+		if (last != null && asciiEquals(bytes, start, end, last))
+			return last
+		val task = new String(bytes, start, end - start, charset)
+		tasks(id) = task
+		task
+	}
+}
+
+object ProgressLineParser {
+
+	/** First character of a path definition */
+	val DEFINE = '@'
+
+	private val ASCII = Charset.forName("US-ASCII")
+
+	private val PROGRESS_PREFIX = "Progress(".getBytes(ASCII)
+
+	private val STATE_INSTANCES: Array[Status] = Array(Created(), Ready(), Waiting(), Running(), Finished(), Shutdown(), UpdateUI())
+	private val STATES = STATE_INSTANCES map (_.toString.getBytes(ASCII))
+
+	private def indexOf(bytes: Array[Byte], start: Int, end: Int, c: Char): Int = {
+		var i = start
+		while (i < end && bytes(i) != c)
+			i += 1
+		i
+	}
+
+	private def startsWith(bytes: Array[Byte], start: Int, end: Int, prefix: Array[Byte]): Boolean = {
+		if (end - start < prefix.length)
+			return false
+		var i = 0
+		while (i < prefix.length) {
+			if (bytes(start + i) != prefix(i))
+				return false
+			i += 1
+		}
+		true
+	}
+
+	private def matches(bytes: Array[Byte], start: Int, end: Int, other: Array[Byte]): Boolean = {
+		end - start == other.length && startsWith(bytes, start, end, other)
+	}
+
+	/** Only ASCII strings are compared, others are never equal */
+	private def asciiEquals(bytes: Array[Byte], start: Int, end: Int, s: String): Boolean = {
+		if (end - start != s.length)
+			return false
+		var i = 0
+		while (i < s.length) {
+			val c = s.charAt(i)
+			if (c >= 0x80 || bytes(start + i) != c)
+				return false
+			i += 1
+		}
+		true
+	}
+
+	/** Same syntax as Integer.parseInt */
+	private def isInt(bytes: Array[Byte], start: Int, end: Int): Boolean = {
+		val digits = if (start < end && (bytes(start) == '-' || bytes(start) == '+')) start + 1 else start
+		if (digits == end || end - digits > 9)
+			return false
+		var i = digits
+		while (i < end) {
+			if (bytes(i) < '0' || bytes(i) > '9')
+				return false
+			i += 1
+		}
+		true
+	}
+
+	private def parseInt(bytes: Array[Byte], start: Int, end: Int): Int = {
+		val negative = bytes(start) == '-'
+		var i = if (negative || bytes(start) == '+') start + 1 else start
+		if (i == end)
+			throw new NumberFormatException("No digits in " + new String(bytes, start, end - start, ASCII))
+		var value = 0
+		while (i < end) {
+			val digit = bytes(i) - '0'
+			if (digit < 0 || digit > 9)
+				throw new NumberFormatException("Not a number " + new String(bytes, start, end - start, ASCII))
+			value = value * 10 + digit
+			i += 1
+		}
+		if (negative) -value else value
+	}
+}
@@ -11,6 +11,7 @@
 package de.lmu.ifi.dbs.knowing.debug.presenter
 
 import java.io.{ LineNumberReader, Reader }
+import java.nio.file.Path
 import java.util.LinkedList
 import de.lmu.ifi.dbs.knowing.core.events._
 
@@ -22,39 +23,92 @@ import de.lmu.ifi.dbs.knowing.core.events._
  * @since 2012-05-01
  * @see ProgressWriter
  */
-class ProgressReader(r: Reader) extends LineNumberReader(r) {
-
-	def readNextStatus(): (String, Status) = readLine() match {
-		case null => null
-		case line => 
-			val classStatus = line.split(";")
-			val status = classStatus(1) match {
-				case "Created()" => Created()
-				case "Ready()" => Ready()
-				case "Waiting()" => Waiting()
-				case "Running()" => Running()
-				case "Finished()" => Finished()
-				case "Shutdown()" => Shutdown()
-				case "UpdateUI()" => UpdateUI()
-				case p if p.startsWith("Progress(") =>
-					val content = p.substring(9, p.length -1).split(",")
-					Progress(content(0), content(1).toInt, content(2).toInt)
-				case ex if ex.startsWith("ExceptionEvent(") =>
-					val content = ex.substring(9, ex.length -1).split(",")
-					new ExceptionEvent(new Exception(content(0)), content(1))
-			}
-		
-		(classStatus(0), status)
+class ProgressReader(r: Reader) extends LineNumberReader(r) with ProgressSource {
+
+	private val parser = new ProgressLineParser
+
+	def readNextStatus(): (String, Status) = {
+		var classStatus: (String, Status) = null
+		var line: String = null
+		while (classStatus == null && { line = readLine(); line != null }) {
+			if (!line.isEmpty)
+				classStatus = parser.parse(line)
+		}
+		classStatus
 	}
 
-	def readAllStatus(): java.util.List[(String, Status)] = {
+	/**
+	 * Blocks only for the first event, afterwards reads as long as
+	 * input is available. Suitable for files and streams.
+	 */
+	def readStatus(maxEvents: Int): java.util.List[(String, Status)] = {
 		val result = new LinkedList[(String, Status)]
-		var classStatus = readNextStatus()
-		while (classStatus != null) {
+		var classStatus: (String, Status) = null
+		while (result.size < maxEvents && (result.isEmpty || ready()) && { classStatus = readNextStatus(); classStatus != null }) {
 			result.add(classStatus)
-			classStatus = readNextStatus()
 		}
 		result
 	}
 
-}
\ No newline at end of file
+}
+
+object ProgressReader {
+
+	/**
+	 * Opens a reader, which follows the given progress file and
+	 * matches its format. The format is detected as soon as the file
+	 * contains the magic bytes, until then no events are read.
+	 */
+	def open(progressFile: Path): ProgressSource = new DetectingProgressSource(progressFile)
+
+	/**
+	 * Parses a line written by the ProgressWriter.
+	 */
+	def parseLine(line: String): (String, Status) = {
+		val classStatus = line.split(";")
+		(classStatus(0), parseStatus(classStatus(1)))
+	}
+
+	/**
+	 * Parses the toString representation of a status.
+	 */
+	def parseStatus(status: String): Status = status match {
+		case "Created()" => Created()
+		case "Ready()" => Ready()
+		case "Waiting()" => Waiting()
+		case "Running()" => Running()
+		case "Finished()" => Finished()
+		case "Shutdown()" => Shutdown()
+		case "UpdateUI()" => UpdateUI()
+		case p if p.startsWith("Progress(") =>
+			val content = p.substring(9, p.length -1).split(",")
+			Progress(content(0), content(1).toInt, content(2).toInt)
+		case ex if ex.startsWith("ExceptionEvent(") =>
+			val content = ex.substring(9, ex.length -1).split(",")
+			new ExceptionEvent(new Exception(content(0)), content(1))
+	}
+}
+
+/**
+ * Delegates to the reader of the format, once it's known.
+ */
+private class DetectingProgressSource(file: Path) extends ProgressSource {
+
+	private var source: ProgressSource = _
+
+	def readStatus(maxEvents: Int): java.util.List[(String, Status)] = {
+		if (source == null) {
+			BinaryProgressFormat.isBinary(file) match {
+				case Some(true) => source = new BinaryProgressReader(file)
+				case Some(false) => source = new TailingProgressReader(file)
+				case None => return new LinkedList[(String, Status)]
+			}
+		}
+		source.readStatus(maxEvents)
+	}
+
+	def close() {
+		if (source != null)
+			source.close()
+	}
+}
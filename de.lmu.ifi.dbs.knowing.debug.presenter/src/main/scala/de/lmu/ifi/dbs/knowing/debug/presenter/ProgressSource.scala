@@ -0,0 +1,36 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.io.Closeable
+import de.lmu.ifi.dbs.knowing.core.events.Status
+
+/**
+ * Source of status events written by a DebugUIFactory.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-05
+ */
+trait ProgressSource extends Closeable {
+
+	/**
+	 * @param maxEvents - upper bound of returned events. Call again to get the rest.
+	 * @return status events available since the last call
+	 */
+	def readStatus(maxEvents: Int): java.util.List[(String, Status)]
+
+	/**
+	 * @return all status events available since the last call
+	 */
+	def readAllStatus(): java.util.List[(String, Status)] = readStatus(Int.MaxValue)
+
+}
@@ -10,23 +10,45 @@
 \*                                                               */
 package de.lmu.ifi.dbs.knowing.debug.presenter
 
-import java.io.{PrintWriter, Writer}
+import java.io.Writer
+import scala.collection.mutable.HashMap
 import akka.actor.ActorRef
 import de.lmu.ifi.dbs.knowing.core.events.Status
 
 /**
- * Writes out status updates send to the UI factory.
+ * Writes out status updates send to the UI factory. Each actor path is
+ * written once with a new id, further events only carry the id.
+ * IOExceptions are passed on to the ProgressSink.
  * 
  * @author Nepomuk Seiler
  * @version 0.1
  * @since 2012-05-01
  * @see ProgressReader
  */
-class ProgressWriter(w: Writer) extends PrintWriter(w) {
+class ProgressWriter(out: Writer) extends ProgressAppender {
+
+	private val ids = new HashMap[ActorRef, Int]
 
 	def write(actor: ActorRef, status: Status) {
-		val clazz = actor.path
-		write(clazz + ";" + status + "\n")
+		val id = ids.getOrElse(actor, define(actor))
+		out.write(Integer.toString(id))
+		out.write(';')
+		out.write(status.toString)
+		out.write('\n')
+	}
+
+	private def define(actor: ActorRef): Int = {
+		val id = ids.size
+		ids(actor) = id
+		out.write(ProgressLineParser.DEFINE)
+		out.write(id + ";" + actor.path + "\n")
+		id
 	}
+
+	def append(actor: ActorRef, status: Status, timestamp: Long) = write(actor, status)
+
+	def flush() = out.flush()
+
+	def close() = out.close()
 	
 }
\ No newline at end of file
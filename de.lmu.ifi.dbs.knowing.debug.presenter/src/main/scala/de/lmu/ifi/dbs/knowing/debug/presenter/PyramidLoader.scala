@@ -0,0 +1,104 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.file.{ Files, Path, Paths }
+import java.util.Properties
+import de.lmu.ifi.dbs.knowing.core.processing.{ INodeProperties, TLoader }
+import weka.core.Instances
+
+/**
+ * Loads a time series from its pyramid. Only the finest level with at most
+ * <code>points</code> buckets in [from, to] is read. Without a range, the
+ * whole series is loaded.
+ * <p>
+ * If the range holds at most <code>points</code> rows, the rows are read
+ * from the sorted container instead, with the original attributes. This
+ * needs the container's index, unless the whole container fits. Otherwise
+ * the presenter gets the mean, min and max of each numeric attribute, see
+ * TimeSeriesPyramid.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-25
+ * @see TimeSeriesPyramid
+ */
+class PyramidLoader extends TLoader {
+
+	import PyramidLoader._
+
+	private var file: Path = _
+	private var container: Option[Path] = None
+	private var from = Double.NegativeInfinity
+	private var to = Double.PositiveInfinity
+	private var points = DEFAULT_POINTS
+
+	def getDataSet(): Instances = {
+		val pyramid = new TimeSeriesPyramid(file)
+		try {
+			val raw = container filter (Files.exists(_)) flatMap (readRows(pyramid, _))
+			raw getOrElse pyramid.read(from, to, points)
+		} finally {
+			pyramid.close()
+		}
+	}
+
+	def configure(properties: Properties) {
+		file = Paths.get(properties.getProperty(INodeProperties.FILE))
+		container = Option(properties.getProperty(CONTAINER)) map (Paths.get(_))
+		from = Option(properties.getProperty(FROM)) map (_.toDouble) getOrElse Double.NegativeInfinity
+		to = Option(properties.getProperty(TO)) map (_.toDouble) getOrElse Double.PositiveInfinity
+		points = properties.getProperty(POINTS, DEFAULT_POINTS.toString).toInt
+	}
+
+	def reset() {}
+
+	/**
+	 * @return rows of the buckets overlapping the range, if they fit
+	 */
+	private def readRows(pyramid: TimeSeriesPyramid, container: Path): Option[Instances] = {
+		val (first, last) = pyramid.rows(from, to)
+		if (last - first > points)
+			return None
+		val (_, total) = pyramid.rows(Double.NegativeInfinity, Double.PositiveInfinity)
+		if (PagedResultReader.isIndexed(container)) {
+			val reader = new PagedResultReader(container)
+			try {
+				// A sampled container doesn't match the pyramid's row numbers
+				if (reader.size >= total)
+					return Some(reader.read(first, (last - first).toInt))
+			} finally {
+				reader.close()
+			}
+		}
+		if (total > points)
+			None
+		else if (container.getFileName.toString.endsWith(ResultWriter.COLUMNAR_EXTENSION))
+			Some(ColumnarReader.read(container))
+		else
+			Some(ParallelArffReader.read(container))
+	}
+}
+
+object PyramidLoader {
+
+	/** Sorted result container the pyramid was built from, optional */
+	val CONTAINER = "pyramid.container"
+	/** Start of the visible range, milliseconds for dates */
+	val FROM = "range.from"
+	/** End of the visible range, milliseconds for dates */
+	val TO = "range.to"
+	/** Maximum number of points, usually the chart width */
+	val POINTS = "range.points"
+
+	val DEFAULT_POINTS = 2000
+}
@@ -0,0 +1,102 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.io.{ BufferedInputStream, BufferedOutputStream, DataInputStream, DataOutputStream, IOException }
+import java.nio.file.{ Files, Path }
+
+/**
+ * Sparse row offset index of a result container.
+ *
+ * <pre>
+ * index := magic(int) version(int) entries(int) (row(long) position(long)){entries}
+ * </pre>
+ *
+ * Reading the container at <code>position</code> returns rows starting at
+ * <code>row</code>. Entries are ascending, the last one is the number of
+ * rows and the end of the container.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-26
+ * @see IndexingResultWriter
+ * @see PagedResultReader
+ */
+class ResultIndex(val rows: Array[Long], val positions: Array[Long]) {
+
+	/** Rows in the container */
+	def size: Long = if (rows.isEmpty) 0 else rows.last
+
+	/**
+	 * @return entry with the largest row less or equal than row
+	 */
+	def floor(row: Long): Int = {
+		val i = java.util.Arrays.binarySearch(rows, row)
+		if (i >= 0) i else math.max(0, -i - 2)
+	}
+
+	/**
+	 * @return entry with the smallest row greater or equal than row, the
+	 *         last entry if none
+	 */
+	def ceiling(row: Long): Int = {
+		val i = java.util.Arrays.binarySearch(rows, row)
+		if (i >= 0) i else math.min(rows.length - 1, -i - 1)
+	}
+}
+
+object ResultIndex {
+
+	val MAGIC = 0x4b494458 // KIDX
+	val VERSION = 1
+
+	val INDEX_EXTENSION = ".index"
+
+	val DEFAULT_INTERVAL = 1024
+
+	def indexFile(container: Path): Path = container.resolveSibling(ResultWriter.nodeId(container) + INDEX_EXTENSION)
+
+	def write(file: Path, rows: Array[Long], positions: Array[Long]) {
+		val out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))
+		try {
+			out.writeInt(MAGIC)
+			out.writeInt(VERSION)
+			out.writeInt(rows.length)
+			for (i <- 0 until rows.length) {
+				out.writeLong(rows(i))
+				out.writeLong(positions(i))
+			}
+		} finally {
+			out.close()
+		}
+	}
+
+	def read(file: Path): ResultIndex = {
+		val in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))
+		try {
+			if (in.readInt != MAGIC)
+				throw new IOException("Not a result index: " + file)
+			val version = in.readInt
+			if (version != VERSION)
+				throw new IOException("Unsupported index version " + version + ": " + file)
+			val entries = in.readInt
+			val rows = new Array[Long](entries)
+			val positions = new Array[Long](entries)
+			for (i <- 0 until entries) {
+				rows(i) = in.readLong
+				positions(i) = in.readLong
+			}
+			new ResultIndex(rows, positions)
+		} finally {
+			in.close()
+		}
+	}
+}
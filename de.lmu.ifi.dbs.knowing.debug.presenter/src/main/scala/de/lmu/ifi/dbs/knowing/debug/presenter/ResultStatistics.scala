@@ -0,0 +1,288 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.file.Path
+import java.util.{ ArrayList, Arrays, Random }
+import weka.core.{ Attribute, DenseInstance, Instance, Instances }
+
+/**
+ * Summary of all instances a presenter received, computed in one pass.
+ * Per attribute:
+ * <ul>
+ * <li>count, missing</li>
+ * <li>min, max, mean, stddev (Welford) - numeric and date</li>
+ * <li>p25, p50, p75 - approximate, see QuantileSketch</li>
+ * <li>distinct - approximate, see HyperLogLog. Exact for nominal</li>
+ * <li>values - counts of the nominal values</li>
+ * </ul>
+ * The summary is an Instances with one row per attribute, so it can be
+ * stored as ARFF and shown by any table presenter.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-23
+ */
+class ResultStatistics(header: Instances) {
+
+	private val attributes = Array.tabulate(header.numAttributes)(i => new AttributeStatistics(header.attribute(i)))
+
+	/** Rows received */
+	var rows = 0L
+
+	def add(instance: Instance) {
+		var i = 0
+		while (i < attributes.length) {
+			if (instance.isMissing(i))
+				attributes(i).addMissing()
+			else if (attributes(i).isString)
+				attributes(i).add(instance.stringValue(i))
+			else
+				attributes(i).add(instance.value(i))
+			i += 1
+		}
+		rows += 1
+	}
+
+	def statistics: Seq[AttributeStatistics] = attributes
+
+	def summary: Instances = {
+		val result = new Instances(header.relationName + " statistics", ResultStatistics.summaryAttributes, attributes.length)
+		attributes foreach { a => result.add(a.summary(result)) }
+		result
+	}
+}
+
+object ResultStatistics {
+
+	val STATS_EXTENSION = ".stats"
+
+	val NUMERIC_COLUMNS = Array("count", "missing", "min", "max", "mean", "stddev", "p25", "p50", "p75", "distinct")
+
+	/** Nominal values with their counts, most frequent first */
+	val MAX_VALUES = 20
+
+	def statsFile(container: Path): Path = container.resolveSibling(ResultWriter.nodeId(container) + STATS_EXTENSION)
+
+	private def summaryAttributes: ArrayList[Attribute] = {
+		val attributes = new ArrayList[Attribute]
+		attributes.add(new Attribute("attribute", null.asInstanceOf[java.util.List[String]]))
+		attributes.add(new Attribute("type", null.asInstanceOf[java.util.List[String]]))
+		NUMERIC_COLUMNS foreach { c => attributes.add(new Attribute(c)) }
+		attributes.add(new Attribute("values", null.asInstanceOf[java.util.List[String]]))
+		attributes
+	}
+}
+
+/**
+ * Statistics of a single attribute.
+ */
+class AttributeStatistics(val attribute: Attribute) {
+
+	val isString = attribute.isString
+
+	var count = 0L
+	var missing = 0L
+	var min = Double.PositiveInfinity
+	var max = Double.NegativeInfinity
+
+	private var mean = 0.0
+	private var m2 = 0.0
+
+	private val counts = if (attribute.isNominal) new Array[Long](attribute.numValues) else null
+	private val quantiles = if (attribute.isNumeric) new QuantileSketch else null
+	private val distinct = if (attribute.isNumeric || isString) new HyperLogLog else null
+
+	def addMissing() = missing += 1
+
+	def add(value: Double) {
+		count += 1
+		if (counts != null) {
+			counts(value.toInt) += 1
+			return
+		}
+		// relational
+		if (quantiles == null)
+			return
+		if (value < min) min = value
+		if (value > max) max = value
+		val delta = value - mean
+		mean += delta / count
+		m2 += delta * (value - mean)
+		quantiles.add(value)
+		distinct.add(value)
+	}
+
+	def add(value: String) {
+		count += 1
+		distinct.add(value)
+	}
+
+	def average: Double = if (count == 0 || !attribute.isNumeric) Double.NaN else mean
+
+	def variance: Double = if (count < 2 || !attribute.isNumeric) Double.NaN else m2 / (count - 1)
+
+	def quantile(q: Double): Double = if (quantiles == null) Double.NaN else quantiles.quantile(q)
+
+	def distinctCount: Double = {
+		if (counts != null) counts.count(_ > 0)
+		else if (distinct != null) distinct.estimate
+		else Double.NaN
+	}
+
+	/** value=count, most frequent first */
+	def valueCounts: Seq[(String, Long)] = {
+		if (counts == null)
+			return Nil
+		(0 until counts.length).filter(counts(_) > 0).sortBy(-counts(_)).take(ResultStatistics.MAX_VALUES)
+			.map(i => (attribute.value(i), counts(i)))
+	}
+
+	def summary(dataset: Instances): Instance = {
+		val values = new Array[Double](dataset.numAttributes)
+		values(0) = dataset.attribute(0).addStringValue(attribute.name)
+		values(1) = dataset.attribute(1).addStringValue(Attribute.typeToString(attribute))
+		val numeric = Array[Double](count, missing, bound(min), bound(max), average, math.sqrt(variance),
+			quantile(0.25), quantile(0.5), quantile(0.75), distinctCount)
+		System.arraycopy(numeric, 0, values, 2, numeric.length)
+		values(values.length - 1) = dataset.attribute(values.length - 1)
+			.addStringValue(valueCounts.map { case (v, c) => v + "=" + c }.mkString(", "))
+		val instance = new DenseInstance(1.0, values)
+		// missing instead of NaN
+		for (i <- 2 until values.length - 1 if values(i).isNaN)
+			instance.setMissing(i)
+		instance
+	}
+
+	private def bound(value: Double) = if (value.isInfinite) Double.NaN else value
+}
+
+/**
+ * Approximate quantiles in O(k log(n/k)) memory. Values are collected in
+ * levels of at most k values. A full level is sorted and every second
+ * value is promoted with twice the weight, starting at a random offset
+ * (KLL sketch with equal level capacities).
+ */
+class QuantileSketch(k: Int, random: Random) {
+
+	def this() = this(QuantileSketch.DEFAULT_K, new Random)
+
+	private var levels = Array(new Array[Double](k))
+	private var sizes = Array(0)
+
+	def add(value: Double) = put(0, value)
+
+	private def put(level: Int, value: Double) {
+		if (level == levels.length) {
+			levels = levels :+ new Array[Double](k)
+			sizes = sizes :+ 0
+		}
+		levels(level)(sizes(level)) = value
+		sizes(level) += 1
+		if (sizes(level) == k)
+			compact(level)
+	}
+
+	private def compact(level: Int) {
+		val values = levels(level)
+		Arrays.sort(values, 0, k)
+		sizes(level) = 0
+		var i = random.nextInt(2)
+		while (i < k) {
+			put(level + 1, values(i))
+			i += 2
+		}
+	}
+
+	/**
+	 * @param q - in [0, 1]
+	 * @return approximate q-quantile, NaN if empty
+	 */
+	def quantile(q: Double): Double = {
+		val weighted = for (l <- 0 until levels.length; i <- 0 until sizes(l)) yield (levels(l)(i), 1L << l)
+		if (weighted.isEmpty)
+			return Double.NaN
+		val sorted = weighted.sortBy(_._1)
+		val rank = q * sorted.map(_._2).sum
+		var seen = 0L
+		sorted find {
+			case (_, weight) =>
+				seen += weight
+				seen >= rank
+		} map (_._1) getOrElse sorted.last._1
+	}
+}
+
+object QuantileSketch {
+	val DEFAULT_K = 256
+}
+
+/**
+ * Distinct count estimate with 2^p one byte registers. The standard error
+ * is about 1.04 / sqrt(2^p), 1.6% for the default p = 12.
+ */
+class HyperLogLog(p: Int) {
+
+	def this() = this(HyperLogLog.DEFAULT_P)
+
+	private val m = 1 << p
+	private val registers = new Array[Byte](m)
+
+	def add(value: Double) = addHash(HyperLogLog.mix(java.lang.Double.doubleToLongBits(value + 0.0)))
+
+	def add(value: String) = {
+		// FNV-1a
+		var hash = 0xcbf29ce484222325L
+		var i = 0
+		while (i < value.length) {
+			hash = (hash ^ value.charAt(i)) * 0x100000001b3L
+			i += 1
+		}
+		addHash(HyperLogLog.mix(hash))
+	}
+
+	private def addHash(hash: Long) {
+		val index = (hash >>> (64 - p)).toInt
+		val rank = (java.lang.Long.numberOfLeadingZeros((hash << p) | (1L << (p - 1))) + 1).toByte
+		if (rank > registers(index))
+			registers(index) = rank
+	}
+
+	def estimate: Long = {
+		var sum = 0.0
+		var zeros = 0
+		for (r <- registers) {
+			sum += 1.0 / (1L << r)
+			if (r == 0) zeros += 1
+		}
+		val alpha = 0.7213 / (1 + 1.079 / m)
+		val raw = alpha * m * m / sum
+		if (raw <= 2.5 * m && zeros > 0)
+			math.round(m * math.log(m.toDouble / zeros))
+		else
+			math.round(raw)
+	}
+}
+
+object HyperLogLog {
+
+	val DEFAULT_P = 12
+
+	/** Murmur3 finalizer */
+	def mix(value: Long): Long = {
+		var h = value
+		h ^= h >>> 33
+		h *= 0xff51afd7ed558ccdL
+		h ^= h >>> 33
+		h *= 0xc4ceb9fe1a85ec53L
+		h ^ (h >>> 33)
+	}
+}
@@ -0,0 +1,160 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.io.{ Closeable, Flushable }
+import java.nio.file.{ Files, Path }
+import weka.core.{ Instance, Instances }
+
+/**
+ * Writes the results a DebugPresenter receives into its container file.
+ * The header is written once, before the first instance.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-18
+ * @see DebugPresenter
+ */
+trait ResultWriter extends Closeable with Flushable {
+
+	/**
+	 * Only the first call writes the header, further calls are ignored.
+	 *
+	 * @param header - structure of all following instances
+	 */
+	def writeHeader(header: Instances)
+
+	def write(instance: Instance)
+
+	def write(instances: Instances) {
+		for (i <- 0 until instances.size)
+			write(instances.get(i))
+	}
+
+	/** Bytes written so far */
+	def position: Long
+
+	/** Rows written, but not yet contained in position */
+	def pending: Int = 0
+
+}
+
+object ResultWriter {
+
+	val ARFF_EXTENSION = ".arff"
+	val COLUMNAR_EXTENSION = ColumnarFormat.EXTENSION
+	val DONE_SUFFIX = ".done"
+
+	/** Milliseconds between two checks for done markers */
+	private val DONE_POLL_INTERVAL = 100L
+
+	/**
+	 * @param file - container created by the DebugUIFactory
+	 * @return writer matching the file extension
+	 */
+	def open(file: Path): ResultWriter = open(file, false)
+
+	/**
+	 * @param file - container created by the DebugUIFactory
+	 * @param live - the container is committed while it's written
+	 * @return writer matching the file extension
+	 */
+	def open(file: Path, live: Boolean): ResultWriter = {
+		if (file.getFileName.toString.endsWith(COLUMNAR_EXTENSION))
+			new ColumnarResultWriter(file, live)
+		else
+			new ArffResultWriter(file)
+	}
+
+	/**
+	 * @param file - container created by the DebugUIFactory
+	 * @param settings - of the launch
+	 * @return writer matching the file extension, indexing, sampling,
+	 *         summarizing and running on its own thread if configured
+	 */
+	def open(file: Path, settings: DebugSettings): ResultWriter = open(file, settings, (w: ResultWriter) => w)
+
+	/**
+	 * @param file - container created by the DebugUIFactory
+	 * @param settings - of the launch
+	 * @param reduce - wraps the container writer with an aggregation or sort. The
+	 *            statistics still summarize all rows.
+	 * @return writer matching the file extension, indexing, sampling,
+	 *         summarizing and running on its own thread if configured
+	 */
+	def open(file: Path, settings: DebugSettings, reduce: ResultWriter => ResultWriter): ResultWriter = {
+		val id = nodeId(file)
+		val indexed = if (settings.resultIndex)
+			new IndexingResultWriter(open(file, settings.resultLive), ResultIndex.indexFile(file), settings.resultIndexInterval)
+		else
+			open(file, settings.resultLive)
+		val container = reduce(if (settings.isSampled(id))
+			new SamplingResultWriter(indexed, settings.sampleMode(id).toLowerCase, settings.sampleSize(id))
+		else
+			indexed)
+		val summarized = if (settings.resultStats)
+			new StatisticsResultWriter(container, ResultStatistics.statsFile(file))
+		else
+			container
+		val writer = if (settings.resultLive)
+			new CommittingResultWriter(summarized, CommittingResultWriter.commitFile(file), settings.runToken)
+		else
+			summarized
+		if (settings.resultAsync)
+			new AsyncResultWriter(writer, settings.resultQueueSize)
+		else
+			writer
+	}
+
+	/**
+	 * Empty marker the DebugPresenter creates after closing the container.
+	 * Writers may write the last rows on close, so the container is only
+	 * complete if the marker exists.
+	 */
+	def doneFile(container: Path): Path = container.resolveSibling(container.getFileName + DONE_SUFFIX)
+
+	/**
+	 * Waits until all created containers have a done marker. Containers
+	 * which don't exist are not waited for.
+	 *
+	 * @param containers
+	 * @param timeout - milliseconds
+	 * @return false if a container wasn't closed within the timeout
+	 */
+	@throws(classOf[InterruptedException])
+	def awaitDone(containers: Seq[Path], timeout: Long): Boolean = {
+		val deadline = System.currentTimeMillis + timeout
+		def pending = containers exists (c => Files.exists(c) && !Files.exists(doneFile(c)))
+		while (pending) {
+			if (System.currentTimeMillis >= deadline)
+				return false
+			Thread.sleep(DONE_POLL_INTERVAL)
+		}
+		true
+	}
+
+	/**
+	 * @return id of the presenter node writing the container
+	 */
+	def nodeId(file: Path): String = {
+		val name = file.getFileName.toString
+		val dot = name.lastIndexOf('.')
+		if (dot > 0) name.substring(0, dot) else name
+	}
+
+	/**
+	 * @return file extension of the container for the given format
+	 */
+	def extension(format: String): String = format match {
+		case DebugSettings.RESULT_COLUMNAR => COLUMNAR_EXTENSION
+		case _ => ARFF_EXTENSION
+	}
+}
@@ -0,0 +1,135 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.util.Random
+import weka.core.{ Instance, Instances }
+
+/**
+ * Keeps at most <code>size</code> rows of all instances and writes them
+ * when closed.
+ * <ul>
+ * <li>reservoir - uniform random sample (Li's Algorithm L)</li>
+ * <li>head - first rows</li>
+ * <li>tail - last rows</li>
+ * </ul>
+ * If rows were dropped, the relation name of the written header is labeled
+ * with the mode and the number of rows received, e.g.
+ * <code>iris [reservoir 1000 of 50000]</code>, so presenters show it in
+ * their title.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-22
+ */
+class SamplingResultWriter(writer: ResultWriter, mode: String, size: Int, random: Random) extends ResultWriter {
+
+	import SamplingResultWriter._
+
+	def this(writer: ResultWriter, mode: String, size: Int) = this(writer, mode, size, new Random)
+
+	require(size > 0, "Sample size must be positive")
+	require(mode == RESERVOIR || mode == HEAD || mode == TAIL, "Unknown sample mode " + mode)
+
+	private val sample = new Array[Instance](size)
+	private var header: Instances = _
+	/** Sampled rows are detached from their batch, unless string values refer to it */
+	private var detach = false
+
+	/** Rows received */
+	private var seen = 0L
+
+	/** Algorithm L state. Index of the next row to replace a sampled one */
+	private var next = 0L
+	private var w = 0.0
+
+	def writeHeader(header: Instances) {
+		if (this.header == null) {
+			this.header = new Instances(header, 0)
+			detach = ColumnarFormat.stringAttributes(header).isEmpty
+		}
+	}
+
+	def write(instance: Instance) {
+		mode match {
+			case HEAD =>
+				if (seen < size)
+					sample(seen.toInt) = keep(instance)
+			case TAIL =>
+				sample((seen % size).toInt) = keep(instance)
+			case RESERVOIR =>
+				if (seen < size) {
+					sample(seen.toInt) = keep(instance)
+					if (seen == size - 1) {
+						w = math.exp(math.log(uniform) / size)
+						skip()
+					}
+				} else if (seen == next) {
+					sample(random.nextInt(size)) = keep(instance)
+					w *= math.exp(math.log(uniform) / size)
+					skip()
+				}
+		}
+		seen += 1
+	}
+
+	/** Nothing is written before close */
+	def flush() {}
+
+	def close() {
+		try {
+			if (header != null) {
+				val rows = math.min(seen, size).toInt
+				if (seen > size)
+					header.setRelationName(label(header.relationName, mode, rows, seen))
+				writer.writeHeader(header)
+				// tail starts with the oldest row
+				val first = if (mode == TAIL && seen > size) (seen % size).toInt else 0
+				for (i <- 0 until rows)
+					writer.write(sample((first + i) % size))
+			}
+		} finally {
+			writer.close()
+		}
+	}
+
+	def position: Long = writer.position
+
+	/**
+	 * A sampled row must not keep the whole batch it was received with
+	 * reachable.
+	 */
+	private def keep(instance: Instance): Instance = if (detach) {
+		val copy = instance.copy.asInstanceOf[Instance]
+		copy.setDataset(header)
+		copy
+	} else instance
+
+	/** Geometric number of rows until the next replacement */
+	private def skip() {
+		next = seen + 1 + (math.log(uniform) / math.log(1 - w)).toLong
+	}
+
+	/** (0, 1] */
+	private def uniform = 1.0 - random.nextDouble
+}
+
+object SamplingResultWriter {
+
+	val NONE = "none"
+	val RESERVOIR = "reservoir"
+	val HEAD = "head"
+	val TAIL = "tail"
+
+	val DEFAULT_SIZE = 10000
+
+	def label(relation: String, mode: String, rows: Int, total: Long): String = "%s [%s %d of %d]".format(relation, mode, rows, total)
+}
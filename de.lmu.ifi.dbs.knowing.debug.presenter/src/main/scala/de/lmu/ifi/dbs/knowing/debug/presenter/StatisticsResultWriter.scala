@@ -0,0 +1,66 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.file.Path
+import weka.core.{ Instance, Instances }
+
+/**
+ * Computes the ResultStatistics of all instances passed to the writer and
+ * stores them as ARFF in the stats file when closed. Wraps a sampling
+ * writer, so the statistics cover all rows.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-23
+ * @see ResultStatistics
+ */
+class StatisticsResultWriter(writer: ResultWriter, statsFile: Path) extends ResultWriter {
+
+	private var statistics: ResultStatistics = _
+
+	def writeHeader(header: Instances) {
+		if (statistics == null)
+			statistics = new ResultStatistics(header)
+		writer.writeHeader(header)
+	}
+
+	def write(instance: Instance) {
+		statistics.add(instance)
+		writer.write(instance)
+	}
+
+	override def write(instances: Instances) {
+		for (i <- 0 until instances.size)
+			statistics.add(instances.get(i))
+		writer.write(instances)
+	}
+
+	def flush() = writer.flush()
+
+	def close() {
+		writer.close()
+		if (statistics == null)
+			return
+		val stats = new ArffResultWriter(statsFile)
+		try {
+			val summary = statistics.summary
+			stats.writeHeader(summary)
+			stats.write(summary)
+		} finally {
+			stats.close()
+		}
+	}
+
+	def position: Long = writer.position
+
+	def rows: Long = if (statistics == null) 0 else statistics.rows
+}
@@ -0,0 +1,130 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.Charset
+import java.nio.file.{ Files, Path, StandardOpenOption }
+import java.nio.file.attribute.BasicFileAttributes
+import java.util.{ ArrayList, List => JList }
+import de.lmu.ifi.dbs.knowing.core.events.Status
+
+/**
+ * Follows a text progress file while it's written. Only complete lines
+ * appended since the last call are parsed. A partial trailing line is read
+ * again on the next call.
+ * <p>
+ * The DebugUIFactory deletes and recreates the progress file for every run.
+ * If the file is truncated or replaced the reader starts from the beginning.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-08
+ * @see ProgressWriter
+ */
+class TailingProgressReader(file: Path, charset: Charset) extends ProgressSource {
+
+	def this(file: Path) = this(file, Charset.defaultCharset)
+
+	private var channel: FileChannel = _
+	private var fileKey: AnyRef = _
+
+	/** Position after the last complete line */
+	private var offset = 0L
+
+	private val buffer = ByteBuffer.allocate(64 * 1024)
+	private var line = new Array[Byte](256)
+
+	def readStatus(maxEvents: Int): JList[(String, Status)] = {
+		val result = new ArrayList[(String, Status)]
+		if (!reopenIfChanged())
+			return result
+
+		val bytes = buffer.array
+		var position = offset
+		var lineLength = 0
+		var read = 0
+		while (result.size < maxEvents && { read = channel.read(buffer, position); read > 0 }) {
+			var i = 0
+			while (i < read && result.size < maxEvents) {
+				val b = bytes(i)
+				i += 1
+				if (b == '\n') {
+					if (lineLength > 0) {
+						val classStatus = parse(line, lineLength)
+						if (classStatus != null)
+							result.add(classStatus)
+					}
+					lineLength = 0
+					offset = position + i
+				} else if (b != '\r') {
+					if (lineLength == line.length)
+						line = java.util.Arrays.copyOf(line, line.length * 2)
+					line(lineLength) = b
+					lineLength += 1
+				}
+			}
+			position += i
+			buffer.clear()
+		}
+		result
+	}
+
+	/** Byte offset of the next unread line */
+	def position: Long = offset
+
+	def close() = closeChannel()
+
+	private val parser = new ProgressLineParser(charset)
+
+	/**
+	 * @return (path, status) or null if the line only defines a path
+	 */
+	protected def parse(bytes: Array[Byte], length: Int): (String, Status) = {
+		parser.parse(bytes, 0, length)
+	}
+
+	/**
+	 * Resets the reader if the file was truncated or recreated.
+	 *
+	 * @return false if the file doesn't exist
+	 */
+	private def reopenIfChanged(): Boolean = {
+		if (!Files.exists(file)) {
+			closeChannel()
+			return false
+		}
+		val attributes = Files.readAttributes(file, classOf[BasicFileAttributes])
+		val key = Option(attributes.fileKey).getOrElse(attributes.creationTime)
+		if (channel == null || key != fileKey) {
+			closeChannel()
+			channel = FileChannel.open(file, StandardOpenOption.READ)
+			fileKey = key
+			reset()
+		} else if (channel.size < offset) {
+			reset()
+		}
+		true
+	}
+
+	protected def reset() {
+		offset = 0
+		parser.reset()
+	}
+
+	private def closeChannel() {
+		if (channel != null)
+			channel.close()
+		channel = null
+	}
+}
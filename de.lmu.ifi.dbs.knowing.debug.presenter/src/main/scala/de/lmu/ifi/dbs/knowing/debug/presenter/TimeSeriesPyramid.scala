@@ -0,0 +1,228 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.io.Closeable
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.{ Path, StandardOpenOption }
+import java.util.ArrayList
+import weka.core.{ Attribute, DenseInstance, Instances, Utils }
+
+/**
+ * Reads a time series pyramid written by the TimeSeriesPyramidWriter. Each
+ * level aggregates <code>fanout</code> buckets of the level below into one,
+ * level 0 aggregates <code>fanout</code> rows. Buckets are fixed size and
+ * sorted by time, so a range of a level is found by binary search and read
+ * with a single positional read.
+ *
+ * <pre>
+ * pyramid := magic(int) version(int) fanout(int) values(int) levels(int)
+ *            headerLength(int) header level{levels} bucket*
+ * header  := utf-8 ARFF header of the presented Instances
+ * level   := buckets(long) offset(long)
+ * bucket  := start end count (min max sum n){values} - all double
+ * </pre>
+ *
+ * The presented Instances have the time attribute and per value attribute
+ * its mean, min and max as <code>name</code>, <code>name_min</code> and
+ * <code>name_max</code>. Other attributes of the results, e.g. nominal
+ * ones, can't be aggregated and are left out. Level 0 bucket
+ * <code>i</code> aggregates the rows <code>[i * fanout, i * fanout +
+ * count)</code> of the sorted container.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-25
+ * @see TimeSeriesPyramidWriter
+ */
+class TimeSeriesPyramid(file: Path) extends Closeable {
+
+	import TimeSeriesPyramid._
+
+	private val channel = FileChannel.open(file, StandardOpenOption.READ)
+
+	val (fanout, values, header, levels) = readHeader()
+
+	private val recordSize = TimeSeriesPyramid.recordSize(values)
+
+	/** Number of levels */
+	def depth = levels.length
+
+	def buckets(level: Int): Long = levels(level)._1
+
+	/**
+	 * Selects the finest level with at most maxPoints buckets in the range.
+	 *
+	 * @param from - inclusive
+	 * @param to - inclusive
+	 * @param maxPoints - width of the chart
+	 * @return buckets overlapping [from, to]
+	 */
+	def read(from: Double, to: Double, maxPoints: Int): Instances = {
+		val result = new Instances(header, 0)
+		if (levels.isEmpty)
+			return result
+		val ranges = levels.indices map (l => (l, range(l, from, to)))
+		val (level, (first, last)) = ranges find {
+			case (_, (first, last)) => last - first <= maxPoints
+		} getOrElse ranges.last
+		if (last > first)
+			readBuckets(level, first, last, result)
+		result
+	}
+
+	/**
+	 * @param from - inclusive
+	 * @param to - inclusive
+	 * @return [first, last) of the container rows aggregated by the level 0
+	 *         buckets overlapping [from, to]. Rows without time are sorted
+	 *         last and not part of the pyramid.
+	 */
+	def rows(from: Double, to: Double): (Long, Long) = {
+		if (levels.isEmpty)
+			return (0, 0)
+		val (first, last) = range(0, from, to)
+		if (last <= first)
+			return (0, 0)
+		(first * fanout, (last - 1) * fanout + readDouble(0, last - 1, 2).toLong)
+	}
+
+	def close() = channel.close()
+
+	/**
+	 * @return [first, last) of the buckets overlapping [from, to]
+	 */
+	private def range(level: Int, from: Double, to: Double): (Long, Long) = {
+		val count = buckets(level)
+		// first bucket which ends at or after from
+		var low = 0L
+		var high = count
+		while (low < high) {
+			val mid = (low + high) >>> 1
+			if (readDouble(level, mid, 1) < from) low = mid + 1 else high = mid
+		}
+		val first = low
+		// first bucket which starts after to
+		high = count
+		while (low < high) {
+			val mid = (low + high) >>> 1
+			if (readDouble(level, mid, 0) <= to) low = mid + 1 else high = mid
+		}
+		(first, low)
+	}
+
+	private def readDouble(level: Int, bucket: Long, field: Int): Double = {
+		val buffer = ByteBuffer.allocate(8)
+		readFully(buffer, levels(level)._2 + bucket * recordSize + field * 8)
+		buffer.getDouble(0)
+	}
+
+	private def readBuckets(level: Int, first: Long, last: Long, result: Instances) {
+		val buffer = ByteBuffer.allocate(((last - first) * recordSize).toInt)
+		readFully(buffer, levels(level)._2 + first * recordSize)
+		buffer.flip()
+		val row = new Array[Double](1 + 3 * values)
+		while (buffer.hasRemaining) {
+			row(0) = buffer.getDouble
+			buffer.getDouble // end
+			buffer.getDouble // count
+			for (v <- 0 until values) {
+				val min = buffer.getDouble
+				val max = buffer.getDouble
+				val sum = buffer.getDouble
+				val n = buffer.getDouble
+				row(1 + 3 * v) = if (n == 0) Utils.missingValue else sum / n
+				row(2 + 3 * v) = if (n == 0) Utils.missingValue else min
+				row(3 + 3 * v) = if (n == 0) Utils.missingValue else max
+			}
+			result.add(new DenseInstance(1.0, row.clone))
+		}
+	}
+
+	private def readFully(buffer: ByteBuffer, position: Long) {
+		var offset = position
+		while (buffer.hasRemaining) {
+			val read = channel.read(buffer, offset)
+			if (read < 0)
+				throw new java.io.EOFException("Truncated pyramid " + file)
+			offset += read
+		}
+	}
+
+	private def readHeader(): (Int, Int, Instances, IndexedSeq[(Long, Long)]) = {
+		val preamble = ByteBuffer.allocate(PREAMBLE_SIZE)
+		readFully(preamble, 0)
+		preamble.flip()
+		if (preamble.getInt != MAGIC)
+			throw new java.io.IOException("Not a time series pyramid " + file)
+		val version = preamble.getInt
+		if (version != VERSION)
+			throw new java.io.IOException("Unsupported pyramid version " + version)
+		val fanout = preamble.getInt
+		val values = preamble.getInt
+		val depth = preamble.getInt
+		val headerBytes = ByteBuffer.allocate(preamble.getInt)
+		readFully(headerBytes, PREAMBLE_SIZE)
+		val header = ColumnarFormat.decodeHeader(headerBytes.array)
+		val levelTable = ByteBuffer.allocate(depth * 16)
+		readFully(levelTable, PREAMBLE_SIZE + headerBytes.capacity)
+		levelTable.flip()
+		val levels = (0 until depth) map (_ => (levelTable.getLong, levelTable.getLong))
+		(fanout, values, header, levels)
+	}
+}
+
+object TimeSeriesPyramid {
+
+	val MAGIC = 0x4b505952 // KPYR
+	val VERSION = 1
+
+	/** magic, version, fanout, values, levels and header length */
+	val PREAMBLE_SIZE = 24
+
+	val DEFAULT_FANOUT = 16
+
+	val EXTENSION = ".pyramid"
+
+	/** Suffixes of the aggregated value attributes */
+	val MIN_SUFFIX = "_min"
+	val MAX_SUFFIX = "_max"
+
+	def recordSize(values: Int): Int = (3 + 4 * values) * 8
+
+	def pyramidFile(container: Path): Path = container.resolveSibling(ResultWriter.nodeId(container) + EXTENSION)
+
+	/**
+	 * @param time - date or numeric attribute
+	 * @param values - numeric attributes
+	 * @return header of the presented Instances
+	 */
+	def header(relationName: String, time: Attribute, values: Seq[Attribute]): Instances = {
+		val attributes = new ArrayList[Attribute]
+		attributes.add(time.copy(time.name))
+		values foreach { v =>
+			attributes.add(new Attribute(v.name))
+			attributes.add(new Attribute(v.name + MIN_SUFFIX))
+			attributes.add(new Attribute(v.name + MAX_SUFFIX))
+		}
+		new Instances(relationName, attributes, 0)
+	}
+
+	def read(file: Path, from: Double, to: Double, maxPoints: Int): Instances = {
+		val pyramid = new TimeSeriesPyramid(file)
+		try {
+			pyramid.read(from, to, maxPoints)
+		} finally {
+			pyramid.close()
+		}
+	}
+}
@@ -0,0 +1,325 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.io.{ BufferedInputStream, BufferedOutputStream, DataInputStream, DataOutputStream, EOFException }
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.{ Files, Path, StandardOpenOption }
+import java.util.{ Arrays, Comparator, PriorityQueue }
+import scala.collection.mutable.ArrayBuffer
+import weka.core.{ DenseInstance, Instance, Instances }
+
+/**
+ * Sorts the results by time and writes them sorted into the container on
+ * close. While the sorted rows are written, a min/max/mean pyramid is built
+ * and stored in <code>nodeId.pyramid</code>, see TimeSeriesPyramid.
+ * <p>
+ * At most <code>sortBuffer</code> rows are kept in memory. Larger results
+ * are sorted in runs, spilled next to the container and merged on close.
+ * </p>
+ * The time is the first date attribute or else the first numeric one, the
+ * values are all other numeric attributes. Results with string attributes
+ * or without a time are passed through unchanged.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-25
+ */
+class TimeSeriesPyramidWriter(writer: ResultWriter, pyramidFile: Path, sortBuffer: Int, fanout: Int) extends ResultWriter {
+
+	import TimeSeriesPyramidWriter._
+
+	def this(writer: ResultWriter, pyramidFile: Path) = this(writer, pyramidFile, DEFAULT_SORT_BUFFER, TimeSeriesPyramid.DEFAULT_FANOUT)
+
+	private var header: Instances = _
+	private var time = -1
+	private var values: Array[Int] = _
+
+	/** Rows as values and weight */
+	private val buffer = new ArrayBuffer[Array[Double]]
+	private val runs = new ArrayBuffer[Path]
+
+	def writeHeader(header: Instances) {
+		if (this.header != null)
+			return
+		this.header = new Instances(header, 0)
+		if (ColumnarFormat.stringAttributes(header).isEmpty) {
+			val attributes = 0 until header.numAttributes
+			time = attributes find (header.attribute(_).isDate) orElse (attributes find (header.attribute(_).isNumeric)) getOrElse -1
+			values = attributes.filter(i => i != time && header.attribute(i).isNumeric).toArray
+		}
+		writer.writeHeader(header)
+	}
+
+	def write(instance: Instance) {
+		if (time < 0) {
+			writer.write(instance)
+			return
+		}
+		val row = new Array[Double](header.numAttributes + 1)
+		for (i <- 0 until header.numAttributes)
+			row(i) = instance.value(i)
+		row(header.numAttributes) = instance.weight
+		buffer += row
+		if (buffer.size >= sortBuffer)
+			spill()
+	}
+
+	/** Nothing is written before close */
+	def flush() = if (time < 0) writer.flush()
+
+	def close() {
+		try {
+			if (time >= 0)
+				merge()
+		} finally {
+			try {
+				runs foreach (Files.deleteIfExists(_))
+			} finally {
+				writer.close()
+			}
+		}
+	}
+
+	def position: Long = writer.position
+
+	private def sorted: Array[Array[Double]] = {
+		val rows = buffer.toArray
+		buffer.clear()
+		Arrays.sort(rows, byTime(time))
+		rows
+	}
+
+	private def spill() {
+		val run = pyramidFile.resolveSibling(pyramidFile.getFileName + ".run" + runs.size)
+		runs += run
+		val out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))
+		try {
+			for (row <- sorted; value <- row)
+				out.writeDouble(value)
+		} finally {
+			out.close()
+		}
+	}
+
+	/**
+	 * Merges the runs and the buffer, writes the sorted rows and builds the
+	 * pyramid.
+	 */
+	private def merge() {
+		val width = header.numAttributes + 1
+		val sources = new ArrayBuffer[RowSource]
+		try {
+			runs foreach { run => sources += new RunSource(run, width) }
+			sources += new ArraySource(sorted)
+			val queue = new PriorityQueue[RowSource](math.max(1, sources.size), new Comparator[RowSource] {
+				def compare(a: RowSource, b: RowSource) = java.lang.Double.compare(a.current(time), b.current(time))
+			})
+			sources filter (_.next()) foreach (queue.add)
+
+			val pyramid = new PyramidBuilder(pyramidFile, fanout, values.length)
+			try {
+				val aggregate = new Array[Double](values.length)
+				while (!queue.isEmpty) {
+					val source = queue.poll()
+					val row = source.current
+					val instance = new DenseInstance(row(width - 1), Arrays.copyOf(row, width - 1))
+					instance.setDataset(header)
+					writer.write(instance)
+					for (v <- 0 until values.length)
+						aggregate(v) = row(values(v))
+					if (!row(time).isNaN)
+						pyramid.add(row(time), aggregate)
+					if (source.next())
+						queue.add(source)
+				}
+				pyramid.finish(TimeSeriesPyramid.header(header.relationName, header.attribute(time), values.map(header.attribute(_: Int))))
+			} finally {
+				pyramid.close()
+			}
+		} finally {
+			sources foreach (_.close())
+		}
+	}
+}
+
+object TimeSeriesPyramidWriter {
+
+	val DEFAULT_SORT_BUFFER = 1000000
+
+	def byTime(time: Int) = new Comparator[Array[Double]] {
+		def compare(a: Array[Double], b: Array[Double]) = java.lang.Double.compare(a(time), b(time))
+	}
+
+	/** Sorted rows of a run or the buffer */
+	trait RowSource {
+		/** @return false if exhausted */
+		def next(): Boolean
+		def current: Array[Double]
+		def close() {}
+	}
+
+	class ArraySource(rows: Array[Array[Double]]) extends RowSource {
+		private var index = -1
+		def next() = { index += 1; index < rows.length }
+		def current = rows(index)
+	}
+
+	class RunSource(run: Path, width: Int) extends RowSource {
+		private val in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16))
+		val current = new Array[Double](width)
+
+		def next(): Boolean = try {
+			for (i <- 0 until width)
+				current(i) = in.readDouble()
+			true
+		} catch {
+			case e: EOFException => false
+		}
+
+		override def close() = in.close()
+	}
+
+	/**
+	 * Builds all levels in one pass over the sorted rows. Every level is
+	 * spilled to its own temporary file, which are concatenated on finish.
+	 */
+	class PyramidBuilder(file: Path, fanout: Int, values: Int) {
+
+		private val recordSize = TimeSeriesPyramid.recordSize(values)
+		private val levels = new ArrayBuffer[Level]
+
+		/** Rows are buckets of one with count 1 */
+		private val row = new Array[Double](3 + 4 * values)
+
+		def add(time: Double, aggregate: Array[Double]) {
+			row(0) = time
+			row(1) = time
+			row(2) = 1
+			for (v <- 0 until values) {
+				val value = aggregate(v)
+				val missing = value.isNaN
+				row(3 + 4 * v) = if (missing) Double.PositiveInfinity else value
+				row(4 + 4 * v) = if (missing) Double.NegativeInfinity else value
+				row(5 + 4 * v) = if (missing) 0 else value
+				row(6 + 4 * v) = if (missing) 0 else 1
+			}
+			level(0).add(row, false)
+		}
+
+		/**
+		 * Completes all levels and writes the pyramid file.
+		 *
+		 * @param header - of the presented Instances
+		 */
+		def finish(header: Instances) {
+			if (!levels.isEmpty)
+				levels(0).finish()
+			val headerBytes = ColumnarFormat.encodeHeader(header)
+			val out = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)
+			try {
+				val tableSize = TimeSeriesPyramid.PREAMBLE_SIZE + headerBytes.length + levels.size * 16
+				val table = ByteBuffer.allocate(tableSize)
+				table.putInt(TimeSeriesPyramid.MAGIC).putInt(TimeSeriesPyramid.VERSION).putInt(fanout)
+					.putInt(values).putInt(levels.size).putInt(headerBytes.length).put(headerBytes)
+				var offset = tableSize.toLong
+				for (level <- levels) {
+					table.putLong(level.buckets).putLong(offset)
+					offset += level.buckets * recordSize
+				}
+				table.flip()
+				while (table.hasRemaining)
+					out.write(table)
+				for (level <- levels) {
+					level.out.close()
+					val in = FileChannel.open(level.file, StandardOpenOption.READ)
+					try {
+						var transferred = 0L
+						while (transferred < in.size)
+							transferred += in.transferTo(transferred, in.size - transferred, out)
+					} finally {
+						in.close()
+					}
+				}
+			} finally {
+				out.close()
+			}
+		}
+
+		/** Deletes the temporary level files */
+		def close() = levels foreach { level =>
+			level.out.close()
+			Files.deleteIfExists(level.file)
+		}
+
+		private def level(index: Int): Level = {
+			if (index == levels.size)
+				levels += new Level(index)
+			levels(index)
+		}
+
+		class Level(index: Int) {
+
+			val file = PyramidBuilder.this.file.resolveSibling(PyramidBuilder.this.file.getFileName + ".level" + index)
+			val out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))
+
+			private val bucket = new Array[Double](3 + 4 * values)
+			private var children = 0
+
+			/** Buckets written */
+			var buckets = 0L
+
+			/** Only levels which emit a full bucket get a parent */
+			private var hasParent = false
+
+			def add(child: Array[Double], last: Boolean) {
+				if (children == 0)
+					System.arraycopy(child, 0, bucket, 0, bucket.length)
+				else
+					merge(child)
+				children += 1
+				if (children == fanout)
+					emit(last)
+			}
+
+			def finish() {
+				if (children > 0)
+					emit(true)
+				if (hasParent)
+					levels(index + 1).finish()
+			}
+
+			private def merge(child: Array[Double]) {
+				bucket(0) = math.min(bucket(0), child(0))
+				bucket(1) = math.max(bucket(1), child(1))
+				bucket(2) += child(2)
+				for (v <- 0 until values) {
+					bucket(3 + 4 * v) = math.min(bucket(3 + 4 * v), child(3 + 4 * v))
+					bucket(4 + 4 * v) = math.max(bucket(4 + 4 * v), child(4 + 4 * v))
+					bucket(5 + 4 * v) += child(5 + 4 * v)
+					bucket(6 + 4 * v) += child(6 + 4 * v)
+				}
+			}
+
+			private def emit(last: Boolean) {
+				bucket foreach out.writeDouble
+				buckets += 1
+				children = 0
+				if (!last)
+					hasParent = true
+				if (hasParent)
+					level(index + 1).add(bucket, last)
+			}
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.io.{ IOException, Writer }
+import java.nio.charset.Charset
+import java.nio.file.{ Files, Path }
+import scala.collection.mutable.HashMap
+import akka.actor.ActorRef
+import de.lmu.ifi.dbs.knowing.core.events._
+
+/**
+ * Writes the run as a timeline in the Chrome trace-event format, which
+ * can be opened with chrome://tracing and other trace viewers.
+ * <p>
+ * Each actor is a track. Every status transition closes the span of the
+ * previous state (Created, Ready, Waiting, Running) and Progress events
+ * become counters. Counters belong to the process in the trace format, so
+ * they are named by actor path and task, otherwise actors running the same
+ * task would share one counter. Events are streamed, only the open span
+ * per actor is kept in memory. The closing bracket is written on close,
+ * but viewers accept an unterminated trace of an aborted run, too.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-15
+ */
+class TraceWriter(w: Writer) extends ProgressAppender {
+
+	@throws(classOf[IOException])
+	def this(file: Path) = this(Files.newBufferedWriter(file, Charset.forName("UTF-8")))
+
+	private val tracks = new HashMap[ActorRef, Track]
+
+	/** Milliseconds. Timestamps are relative to the first event */
+	private var origin = -1L
+	private var first = true
+
+	w.write("[")
+
+	def append(actor: ActorRef, status: Status, timestamp: Long) {
+		if (origin < 0)
+			origin = timestamp
+		val ts = (timestamp - origin) * 1000
+		val track = tracks.getOrElseUpdate(actor, newTrack(actor, ts))
+		status match {
+			case Progress(task, worked, work) =>
+				event("{\"name\":" + quote(track.path + " " + task) + ",\"ph\":\"C\",\"pid\":1,\"tid\":" + track.id + ",\"ts\":" + ts +
+					",\"args\":{\"worked\":" + worked + ",\"work\":" + work + "}}")
+			case ExceptionEvent(throwable, details) =>
+				event("{\"name\":\"Exception\",\"ph\":\"i\",\"s\":\"t\",\"pid\":1,\"tid\":" + track.id + ",\"ts\":" + ts +
+					",\"args\":{\"details\":" + quote(String.valueOf(details)) + "}}")
+			case UpdateUI() =>
+			case Finished() | Shutdown() =>
+				// Closes the running span, no span for the final state
+				endSpan(track, ts)
+				track.state = status.getClass.getSimpleName
+			case _ =>
+				val state = status.getClass.getSimpleName
+				if (state != track.state) {
+					endSpan(track, ts)
+					track.state = state
+					track.since = ts
+				}
+		}
+	}
+
+	def flush() = w.flush()
+
+	def close() {
+		w.write("\n]\n")
+		w.close()
+	}
+
+	private def newTrack(actor: ActorRef, ts: Long): Track = {
+		val track = new Track(tracks.size + 1, actor.path.toString)
+		event("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + track.id +
+			",\"args\":{\"name\":" + quote(actor.path.toString) + "}}")
+		track
+	}
+
+	/** Writes the span of the current state as a complete event */
+	private def endSpan(track: Track, ts: Long) {
+		if (track.state == null || track.since < 0)
+			return
+		event("{\"name\":\"" + track.state + "\",\"ph\":\"X\",\"pid\":1,\"tid\":" + track.id + ",\"ts\":" + track.since +
+			",\"dur\":" + (ts - track.since) + "}")
+		track.since = -1
+	}
+
+	private def event(json: String) {
+		if (!first)
+			w.write(",")
+		w.write("\n")
+		w.write(json)
+		first = false
+	}
+
+	private def quote(s: String): String = {
+		val sb = new StringBuilder(s.length + 2)
+		sb.append('"')
+		s foreach {
+			case '"' => sb.append("\\\"")
+			case '\\' => sb.append("\\\\")
+			case '\n' => sb.append("\\n")
+			case '\r' => sb.append("\\r")
+			case '\t' => sb.append("\\t")
+			case c if c < ' ' => sb.append("\\u%04x".format(c.toInt))
+			case c => sb.append(c)
+		}
+		sb.append('"').toString
+	}
+
+	private class Track(val id: Int, val path: String) {
+		var state: String = null
+		/** Microseconds. Start of the current span, -1 if none is open */
+		var since = -1L
+	}
+}
+
+object TraceWriter {
+	val TRACE_FILENAME = "trace.json"
+}
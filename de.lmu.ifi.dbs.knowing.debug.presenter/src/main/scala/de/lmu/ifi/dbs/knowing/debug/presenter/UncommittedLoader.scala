@@ -0,0 +1,50 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import java.nio.file.{ Path, Paths }
+import java.util.Properties
+import de.lmu.ifi.dbs.knowing.core.processing.{ INodeProperties, TLoader }
+import weka.core.Instances
+
+/**
+ * Loads the rows of a result container written after its last commit,
+ * the ones a live presentation couldn't show because the run ended. The
+ * <code>file</code> property must be the absolute path of the container.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ * @see LiveResultReader
+ */
+class UncommittedLoader extends TLoader {
+
+	import UncommittedLoader._
+
+	private var file: Path = _
+	private var start = 0L
+
+	def getDataSet(): Instances = LiveResultReader.readUncommitted(file, start)
+
+	def configure(properties: Properties) {
+		file = Paths.get(properties.getProperty(INodeProperties.FILE))
+		start = properties.getProperty(START, "0").toLong
+	}
+
+	def reset() {}
+
+}
+
+object UncommittedLoader {
+
+	/** Container bytes already committed */
+	val START = "uncommitted.start"
+}
@@ -0,0 +1,41 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.presenter
+
+import de.lmu.ifi.dbs.knowing.core.events.{ Progress, Status }
+
+/**
+ * Status of the result writer of a DebugPresenter. The status types of the
+ * core can't be extended and the progress formats only encode those, so it
+ * is sent as a Progress with a reserved task. It doesn't describe the work
+ * of the node, consumers measuring work progress skip it.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-30
+ */
+object WriterStatus {
+
+	/** worked = batches in the queue, work = queue capacity */
+	val QUEUE = "Result queue"
+
+	/** worked = KB/s written since the previous report, work = 0 */
+	val RATE = "Result rate"
+
+	def queue(depth: Int, capacity: Int): Progress = Progress(QUEUE, depth, capacity)
+
+	def rate(bytesPerSecond: Double): Progress = Progress(RATE, math.round(bytesPerSecond / 1024).toInt, 0)
+
+	def isWriterStatus(status: Status): Boolean = status match {
+		case Progress(task, _, _) => task == QUEUE || task == RATE
+		case _ => false
+	}
+}
@@ -102,7 +102,8 @@ public class DPURunHandler extends SapphireActionHandler {
         configuration.setAttribute(IPDELauncherConstants.AUTOMATIC_VALIDATE, Boolean.TRUE);
         configuration.setAttribute(IPDELauncherConstants.BOOTSTRAP_ENTRIES, "");
         configuration.setAttribute(IPDELauncherConstants.TRACING_CHECKED, IPDELauncherConstants.TRACING_NONE);
-        configuration.setAttribute(IPDELauncherConstants.CONFIG_CLEAR_AREA, Boolean.TRUE);
+        // Cleared by the launch delegate if the bundles changed
+        configuration.setAttribute(IPDELauncherConstants.CONFIG_CLEAR_AREA, Boolean.FALSE);
         configuration.setAttribute(IPDELauncherConstants.CONFIG_LOCATION, "${workspace_loc}/.metadata/.plugins/org.eclipse.pde.core/"
                 + dpu.getName().getContent());
         configuration.setAttribute(IPDELauncherConstants.USE_DEFAULT, Boolean.TRUE);
@@ -10,20 +10,22 @@
 \*                                                               */
 package de.lmu.ifi.dbs.knowing.debug.ui.launching;
 
+import static de.lmu.ifi.dbs.knowing.debug.core.launching.DPULaunchConfigurationDelegate.DPU_DEBUG_OPTIONS;
 import static de.lmu.ifi.dbs.knowing.debug.core.launching.DPULaunchConfigurationDelegate.DPU_EXECUTION_PATH;
 import static de.lmu.ifi.dbs.knowing.debug.core.launching.DPULaunchConfigurationDelegate.DPU_PARAMETERS;
 import static de.lmu.ifi.dbs.knowing.debug.core.launching.DPULaunchConfigurationDelegate.DPU_PATH;
 import static de.lmu.ifi.dbs.knowing.debug.core.launching.DPULaunchConfigurationDelegate.DPU_PROJECT;
 import static de.lmu.ifi.dbs.knowing.debug.core.launching.DPULaunchConfigurationDelegate.findDPUFile;
-import static de.lmu.ifi.dbs.knowing.debug.core.launching.DPULaunchConfigurationDelegate.loadDPU;
 import static de.lmu.ifi.dbs.knowing.debug.core.launching.DPULaunchConfigurationDelegate.parametersToString;
 import static de.lmu.ifi.dbs.knowing.debug.core.launching.DPULaunchConfigurationDelegate.stringToParameters;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
@@ -46,6 +48,7 @@ import org.eclipse.swt.layout.FillLayout;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.DirectoryDialog;
 import org.eclipse.swt.widgets.Group;
@@ -54,7 +57,12 @@ import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.dialogs.ResourceListSelectionDialog;
 
 import de.lmu.ifi.dbs.knowing.core.model.IDataProcessingUnit;
+import de.lmu.ifi.dbs.knowing.core.model.INode;
 import de.lmu.ifi.dbs.knowing.core.model.IParameter;
+import de.lmu.ifi.dbs.knowing.core.model.NodeType;
+import de.lmu.ifi.dbs.knowing.debug.core.launching.DPUModelCache;
+import de.lmu.ifi.dbs.knowing.debug.presenter.DebugSettings;
+import de.lmu.ifi.dbs.knowing.debug.presenter.SamplingResultWriter;
 import de.lmu.ifi.dbs.knowing.debug.ui.editor.ParameterTableViewer;
 
 /**
@@ -75,6 +83,18 @@ public class DPULaunchConfigurationTab extends AbstractLaunchConfigurationTab {
 	private IFile					dpuFile;
 	private IDataProcessingUnit		dpu;
 
+	/** Sample option of a presenter which keeps the global setting */
+	private static final String		SAMPLE_DEFAULT	= "default";
+
+	private Map<String, String>		debugOptions	= new HashMap<>();
+	private List<Combo>				optionCombos	= new ArrayList<>();
+
+	private Combo					cmbSampleNode;
+	private Combo					cmbSampleNodeMode;
+	private Combo					cmbSampleNodeSize;
+	/** Set while combos are filled programmatically */
+	private boolean					updating;
+
 	@Override
 	public void createControl(Composite parent) {
 		Composite container = new Composite(parent, SWT.NONE);
@@ -156,6 +176,29 @@ public class DPULaunchConfigurationTab extends AbstractLaunchConfigurationTab {
 			}
 		});
 
+		/* === Debug Options === */
+
+		Group debugGroup = new Group(container, SWT.BORDER);
+		debugGroup.setText("Debug");
+		debugGroup.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		debugGroup.setLayout(new GridLayout(2, false));
+
+		createOptionCombo(debugGroup, "Progress format: ", DebugSettings.PROGRESS_FORMAT(), DebugSettings.FORMAT_TEXT(),
+				DebugSettings.FORMAT_BINARY());
+		createOptionCombo(debugGroup, "Progress channel: ", DebugSettings.PROGRESS_CHANNEL(), DebugSettings.CHANNEL_FILE(),
+				DebugSettings.CHANNEL_SOCKET());
+		createOptionCombo(debugGroup, "Node metrics: ", DebugSettings.METRICS(), "true", "false");
+		createOptionCombo(debugGroup, "Timeline trace: ", DebugSettings.TRACE(), "true", "false");
+		createOptionCombo(debugGroup, "Result format: ", DebugSettings.RESULT_FORMAT(), DebugSettings.RESULT_ARFF(),
+				DebugSettings.RESULT_COLUMNAR());
+		createOptionCombo(debugGroup, "Async result writing: ", DebugSettings.RESULT_ASYNC(), "false", "true");
+		createOptionCombo(debugGroup, "Live results: ", DebugSettings.RESULT_LIVE(), "false", "true");
+		createOptionCombo(debugGroup, "Result sampling: ", DebugSettings.RESULT_SAMPLE_MODE(), SamplingResultWriter.NONE(),
+				SamplingResultWriter.RESERVOIR(), SamplingResultWriter.HEAD(), SamplingResultWriter.TAIL());
+		createOptionCombo(debugGroup, "Sample size: ", DebugSettings.RESULT_SAMPLE_SIZE(), "10000", "1000", "100000");
+		createNodeSampleOptions(debugGroup);
+		createOptionCombo(debugGroup, "Warm runtime: ", DebugSettings.WARM(), "false", "true");
+
 		/* === Sapphire DPU Configuration === */
 
 		dpuConfigGroup = new Group(container, SWT.BORDER);
@@ -197,6 +240,7 @@ public class DPULaunchConfigurationTab extends AbstractLaunchConfigurationTab {
 			update();
 			updateExecutionPath(executionPath);
 			syncParameters(stringToParameters(configuration.getAttribute(DPU_PARAMETERS, new HashMap<>())));
+			syncDebugOptions(configuration.getAttribute(DPU_DEBUG_OPTIONS, new HashMap<>()));
 		} catch (CoreException e) {
 			e.printStackTrace();
 		}
@@ -214,6 +258,7 @@ public class DPULaunchConfigurationTab extends AbstractLaunchConfigurationTab {
 		configuration.setAttribute(DPU_PATH, dpuFile.getProjectRelativePath().toOSString());
 		configuration.setAttribute(DPU_EXECUTION_PATH, txtExecutionPath.getText());
 		configuration.setAttribute(DPU_PARAMETERS, parametersToString(parameters));
+		configuration.setAttribute(DPU_DEBUG_OPTIONS, debugOptions);
 		setDirty(false);
 	}
 
@@ -221,10 +266,11 @@ public class DPULaunchConfigurationTab extends AbstractLaunchConfigurationTab {
 		if (dpuFile == null)
 			return;
 		try {
-			dpu = loadDPU(dpuFile);
+			dpu = DPUModelCache.get(dpuFile);
 			txtDPU.setText(dpu.getName().getContent());
 			txtDPUPath.setText(dpuFile.getFullPath().toOSString());
 			syncParameters(dpu.getParameters());
+			updateSampleNodes();
 		} catch (ResourceStoreException e) {
 			e.printStackTrace();
 		}
@@ -252,6 +298,148 @@ public class DPULaunchConfigurationTab extends AbstractLaunchConfigurationTab {
 		propertyViewer.setInput(parameters);
 	}
 	
+	private void syncDebugOptions(Map<String, String> loadedOptions) {
+		debugOptions = new HashMap<>(loadedOptions);
+		updating = true;
+		try {
+			for (Combo combo : optionCombos) {
+				String key = (String) combo.getData();
+				int index = combo.indexOf(debugOptions.containsKey(key) ? debugOptions.get(key) : "");
+				combo.select(Math.max(index, 0));
+			}
+		} finally {
+			updating = false;
+		}
+		showNodeSampleOptions();
+	}
+
+	/**
+	 * Creates a read-only combo for a dpu.debug.* option. The first value is
+	 * the default.
+	 */
+	private Combo createOptionCombo(Composite parent, String label, String setting, String... values) {
+		Label lblOption = new Label(parent, SWT.NONE);
+		lblOption.setText(label);
+		final Combo combo = new Combo(parent, SWT.READ_ONLY);
+		combo.setItems(values);
+		combo.select(0);
+		combo.setData(DebugSettings.optionKey(setting));
+		combo.addModifyListener(new ModifyListener() {
+
+			@Override
+			public void modifyText(ModifyEvent e) {
+				if (updating)
+					return;
+				debugOptions.put((String) combo.getData(), combo.getText());
+				setDirty(true);
+				updateLaunchConfigurationDialog();
+			}
+		});
+		optionCombos.add(combo);
+		return combo;
+	}
+
+	/**
+	 * Creates the combos overriding sample mode and size of a single
+	 * presenter, stored as result.sample.node."nodeId".* options.
+	 */
+	private void createNodeSampleOptions(Composite parent) {
+		Label lblNode = new Label(parent, SWT.NONE);
+		lblNode.setText("Presenter sampling: ");
+		Composite composite = new Composite(parent, SWT.NONE);
+		GridLayout layout = new GridLayout(3, false);
+		layout.marginWidth = 0;
+		layout.marginHeight = 0;
+		composite.setLayout(layout);
+
+		cmbSampleNode = new Combo(composite, SWT.READ_ONLY);
+		cmbSampleNode.addModifyListener(new ModifyListener() {
+
+			@Override
+			public void modifyText(ModifyEvent e) {
+				showNodeSampleOptions();
+			}
+		});
+		cmbSampleNodeMode = createNodeSampleCombo(composite, "mode", SAMPLE_DEFAULT, SamplingResultWriter.NONE(),
+				SamplingResultWriter.RESERVOIR(), SamplingResultWriter.HEAD(), SamplingResultWriter.TAIL());
+		cmbSampleNodeSize = createNodeSampleCombo(composite, "size", SAMPLE_DEFAULT, "1000", "10000", "100000");
+		showNodeSampleOptions();
+	}
+
+	/**
+	 * @param setting - mode or size
+	 * @return combo for a setting of the selected presenter. The first value
+	 *         removes the override.
+	 */
+	private Combo createNodeSampleCombo(Composite parent, final String setting, String... values) {
+		final Combo combo = new Combo(parent, SWT.READ_ONLY);
+		combo.setItems(values);
+		combo.select(0);
+		combo.addModifyListener(new ModifyListener() {
+
+			@Override
+			public void modifyText(ModifyEvent e) {
+				if (updating || cmbSampleNode.getSelectionIndex() < 0)
+					return;
+				String key = nodeSampleKey(setting);
+				if (combo.getSelectionIndex() == 0)
+					debugOptions.remove(key);
+				else
+					debugOptions.put(key, combo.getText());
+				setDirty(true);
+				updateLaunchConfigurationDialog();
+			}
+		});
+		return combo;
+	}
+
+	/**
+	 * Lists the presenters of the dpu.
+	 */
+	private void updateSampleNodes() {
+		List<String> presenters = new ArrayList<>();
+		for (INode node : dpu.getNodes()) {
+			if (node.getType().getContent() == NodeType.PRESENTER)
+				presenters.add(node.getId().getContent());
+		}
+		updating = true;
+		try {
+			cmbSampleNode.setItems(presenters.toArray(new String[presenters.size()]));
+			if (!presenters.isEmpty())
+				cmbSampleNode.select(0);
+		} finally {
+			updating = false;
+		}
+		showNodeSampleOptions();
+	}
+
+	/**
+	 * Shows the overrides of the selected presenter.
+	 */
+	private void showNodeSampleOptions() {
+		boolean selected = cmbSampleNode.getSelectionIndex() >= 0;
+		cmbSampleNodeMode.setEnabled(selected);
+		cmbSampleNodeSize.setEnabled(selected);
+		updating = true;
+		try {
+			selectNodeSampleOption(cmbSampleNodeMode, selected ? debugOptions.get(nodeSampleKey("mode")) : null);
+			selectNodeSampleOption(cmbSampleNodeSize, selected ? debugOptions.get(nodeSampleKey("size")) : null);
+		} finally {
+			updating = false;
+		}
+	}
+
+	private static void selectNodeSampleOption(Combo combo, String value) {
+		combo.select(value == null ? 0 : Math.max(combo.indexOf(value), 0));
+	}
+
+	/**
+	 * @return option key of a sample setting of the selected presenter
+	 */
+	private String nodeSampleKey(String setting) {
+		return DebugSettings.optionKey(DebugSettings.sampleKey(cmbSampleNode.getText(), setting));
+	}
+
 	/* ============================================= */
 	/* ============ Validation Methods ============= */
 	/* ============================================= */
@@ -15,8 +15,12 @@ import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
@@ -32,7 +36,9 @@ import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.debug.core.DebugException;
@@ -41,7 +47,9 @@ import org.eclipse.debug.core.ILaunchConfigurationType;
 import org.eclipse.debug.core.ILaunchesListener2;
 import org.eclipse.jface.dialogs.ErrorDialog;
 import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.sapphire.modeling.ResourceStoreException;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.SashForm;
 import org.eclipse.swt.layout.FillLayout;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.ui.PartInitException;
@@ -49,6 +57,7 @@ import org.eclipse.ui.part.ViewPart;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import scala.Option;
 import scala.Tuple2;
 
 import com.typesafe.config.Config;
@@ -60,9 +69,16 @@ import de.lmu.ifi.dbs.knowing.core.model.IDataProcessingUnit;
 import de.lmu.ifi.dbs.knowing.core.swt.factory.UIFactories;
 import de.lmu.ifi.dbs.knowing.core.util.DPUUtil;
 import de.lmu.ifi.dbs.knowing.debug.core.launching.DPULaunchConfigurationDelegate;
+import de.lmu.ifi.dbs.knowing.debug.core.launching.DPUModelCache;
+import de.lmu.ifi.dbs.knowing.debug.core.launching.ProgressChannels;
+import de.lmu.ifi.dbs.knowing.debug.core.launching.WarmRuntimes;
+import de.lmu.ifi.dbs.knowing.debug.presenter.DebugSettings;
 import de.lmu.ifi.dbs.knowing.debug.presenter.DebugUIFactory;
+import de.lmu.ifi.dbs.knowing.debug.presenter.LiveResultLoader;
 import de.lmu.ifi.dbs.knowing.debug.presenter.PresentationDPUBuilder;
 import de.lmu.ifi.dbs.knowing.debug.presenter.ProgressReader;
+import de.lmu.ifi.dbs.knowing.debug.presenter.ProgressSource;
+import de.lmu.ifi.dbs.knowing.debug.presenter.ResultWriter;
 import de.lmu.ifi.dbs.knowing.debug.ui.interal.Activator;
 
 public class DebugPresenterView extends ViewPart implements ILaunchesListener2, UncaughtExceptionHandler {
@@ -70,8 +86,28 @@ public class DebugPresenterView extends ViewPart implements ILaunchesListener2,
     public static final String ID = "de.lmu.ifi.dbs.knowing.debug.ui.views.DebugPresenterView"; //$NON-NLS-1$
     private static final Logger log = LoggerFactory.getLogger(ID);
 
+    /** Maximum number of status events read at once */
+    private static final int MAX_EVENTS = 1024;
+
+    /** Milliseconds to wait for the launch delegate to open the channel */
+    private static final long CHANNEL_OPEN_TIMEOUT = 30000;
+    /** Milliseconds to wait for the runtime to connect */
+    private static final int CHANNEL_ACCEPT_TIMEOUT = 30000;
+    /** Milliseconds to wait for the presenters to close their containers */
+    private static final long RESULT_CLOSE_TIMEOUT = 30000;
+
     private ILaunch currentLaunch;
     private UIFactory<Composite> uiFactory;
+    private ProgressTableViewer progressTable;
+
+    /** Identifies the commit files of the current launch */
+    private volatile long runToken;
+    /** Live presentation is checked with the first status event */
+    private final AtomicBoolean liveChecked = new AtomicBoolean();
+    private volatile boolean liveStarted;
+    /** The runtime streams the status events, the progress file stays empty */
+    private volatile boolean channelConnected;
+    private StatusCoalescer statusCoalescer;
 
     /**
      * Create contents of the view part.
@@ -80,10 +116,16 @@ public class DebugPresenterView extends ViewPart implements ILaunchesListener2,
      */
     @Override
     public void createPartControl(Composite parent) {
-        Composite container = new Composite(parent, SWT.NONE);
+        SashForm sashForm = new SashForm(parent, SWT.VERTICAL);
+
+        progressTable = new ProgressTableViewer(sashForm, SWT.BORDER | SWT.FULL_SELECTION);
+        statusCoalescer = new StatusCoalescer(parent.getDisplay(), progressTable);
+
+        Composite container = new Composite(sashForm, SWT.NONE);
         container.setLayout(new FillLayout(SWT.HORIZONTAL));
 
         uiFactory = UIFactories.newTabUIFactoryInstance(container, ID);
+        sashForm.setWeights(new int[] { 1, 2 });
 
         // FIXME issue #61
         // DebugPlugin.getDefault().getLaunchManager().addLaunchListener(this);
@@ -93,6 +135,13 @@ public class DebugPresenterView extends ViewPart implements ILaunchesListener2,
     public void setFocus() {
     }
 
+    @Override
+    public void dispose() {
+        if (statusCoalescer != null)
+            statusCoalescer.dispose();
+        super.dispose();
+    }
+
     @Override
     public void launchesAdded(ILaunch[] launches) {
         try {
@@ -118,15 +167,38 @@ public class DebugPresenterView extends ViewPart implements ILaunchesListener2,
                 });
 
                 // Ask what to do. Stop current or new launch
+                ProgressChannels.close(launch);
                 launch.terminate();
                 return;
             }
 
+            liveChecked.set(false);
+            liveStarted = false;
+            channelConnected = false;
+
+            // Cleared before any event of this launch is posted
+            getSite().getShell().getDisplay().asyncExec(new Runnable() {
+
+                @Override
+                public void run() {
+                    if (!progressTable.getTable().isDisposed())
+                        progressTable.clear();
+                }
+            });
+
             String executionPath = launch.getLaunchConfiguration().getAttribute(DPULaunchConfigurationDelegate.DPU_EXECUTION_PATH, "");
             ExecutionWatcherRunnable watcherRunnable = new ExecutionWatcherRunnable(executionPath, launch);
             Thread thread = new Thread(watcherRunnable);
             thread.setName("ExecutionWatcherThread");
             thread.start();
+
+            // The delegate may not have opened the channel yet
+            if (ProgressChannels.isEnabled(launch.getLaunchConfiguration())) {
+                Thread channelThread = new Thread(new ProgressChannelRunnable(launch));
+                channelThread.setName("ProgressChannelThread");
+                channelThread.setDaemon(true);
+                channelThread.start();
+            }
             currentLaunch = launch;
 
         } catch (CoreException | IOException e) {
@@ -150,23 +222,33 @@ public class DebugPresenterView extends ViewPart implements ILaunchesListener2,
     /**
      * <ol>
      * <li>Read DPU</li>
+     * <li>Show the statistics of each presenter, if present</li>
      * <li>Create DPU with ArffLoader -> Presenter for each file</li>
      * <li>Execute DPU in the IDE</li>
      * </ol>
+     * The results are skipped if they are already presented live. Only the
+     * live loaders are stopped and the rows the run didn't commit are
+     * presented, resuming after the last commit.
      */
     private void handleTermination(ILaunch launch) {
         currentLaunch = null;
         try {
-            String executionPathString = launch.getLaunchConfiguration()
-                    .getAttribute(DPULaunchConfigurationDelegate.DPU_EXECUTION_PATH, "");
-            Path executionPath = Paths.get(executionPathString);
-            Path appConf = executionPath.resolve("application.conf");
-
-            Config config = ConfigFactory.parseURL(appConf.toUri().toURL());
-            String dpuUriString = config.getString("dpu.uri");
-
-            IDataProcessingUnit dpu = DPUUtil.deserialize(new URI(dpuUriString).toURL());
-            IDataProcessingUnit presentation = PresentationDPUBuilder.create(dpu);
+            Path executionPath = executionPath(launch);
+            IDataProcessingUnit dpu = loadDPU(executionPath);
+
+            // Small, shown before the results are loaded
+            Option<IDataProcessingUnit> summary = PresentationDPUBuilder.createSummary(dpu, executionPath);
+            if (summary.isDefined())
+                Activator.getEvaluateService().evaluate(summary.get(), executionPath.toUri(), uiFactory, null, null, null, null);
+
+            if (liveStarted) {
+                LiveResultLoader.stop(executionPath);
+                Option<IDataProcessingUnit> incomplete = PresentationDPUBuilder.createIncomplete(dpu, executionPath, runToken);
+                if (incomplete.isDefined())
+                    Activator.getEvaluateService().evaluate(incomplete.get(), executionPath.toUri(), uiFactory, null, null, null, null);
+                return;
+            }
+            IDataProcessingUnit presentation = PresentationDPUBuilder.create(dpu, executionPath);
 
             Activator.getEvaluateService().evaluate(presentation, executionPath.toUri(), uiFactory, null, null, null, null);
         } catch (CoreException | MalformedURLException | URISyntaxException e) {
@@ -176,6 +258,49 @@ public class DebugPresenterView extends ViewPart implements ILaunchesListener2,
         }
     }
 
+    /**
+     * Presents the results while the DPU is running, if enabled for the
+     * launch. Called with the first status event, when the launch delegate
+     * has written the application.conf.
+     */
+    private void startLivePresentation(ILaunch launch) {
+        if (launch == null || !liveChecked.compareAndSet(false, true))
+            return;
+        try {
+            Path executionPath = executionPath(launch);
+            DebugSettings settings = DebugSettings.apply(executionPath);
+            if (!settings.resultLive())
+                return;
+            runToken = settings.runToken();
+            IDataProcessingUnit dpu = loadDPU(executionPath);
+            IDataProcessingUnit presentation = PresentationDPUBuilder.createLive(dpu, executionPath, runToken);
+            Activator.getEvaluateService().evaluate(presentation, executionPath.toUri(), uiFactory, null, null, null, null);
+            liveStarted = true;
+        } catch (Exception e) {
+            log.error("Error on starting live presentation", e);
+        }
+    }
+
+    private static Path executionPath(ILaunch launch) throws CoreException {
+        String executionPath = launch.getLaunchConfiguration().getAttribute(DPULaunchConfigurationDelegate.DPU_EXECUTION_PATH, "");
+        return Paths.get(executionPath);
+    }
+
+    /**
+     * @return the DPU referenced by the application.conf in the execution path.
+     *         Shared cached model if the DPU is in the workspace.
+     */
+    private static IDataProcessingUnit loadDPU(Path executionPath) throws MalformedURLException, URISyntaxException,
+            ResourceStoreException {
+        Path appConf = executionPath.resolve(DebugSettings.APPLICATION_CONF());
+        Config config = ConfigFactory.parseURL(appConf.toUri().toURL());
+        URI dpuUri = new URI(config.getString("dpu.uri"));
+        IFile dpuFile = DPUModelCache.findFile(dpuUri);
+        if (dpuFile != null && dpuFile.exists())
+            return DPUModelCache.snapshot(dpuFile);
+        return DPUUtil.deserialize(dpuUri.toURL());
+    }
+
     @Override
     public void launchesChanged(ILaunch[] launches) {
     }
@@ -190,6 +315,68 @@ public class DebugPresenterView extends ViewPart implements ILaunchesListener2,
         // TODO implement exception handler
     }
 
+    /**
+     * Called after the Shutdown event. Waits for the results to be closed. A
+     * warm runtime keeps running, so the results are presented right away
+     * and only the process of the run is terminated. Otherwise the launch is
+     * terminated, which presents the results.
+     */
+    private void finish(ILaunch launch) throws DebugException {
+        awaitResults(launch);
+        if (!WarmRuntimes.isWarm(launch)) {
+            log.info("Terminating launch");
+            launch.terminate();
+            return;
+        }
+        synchronized (this) {
+            if (currentLaunch != launch)
+                return;
+            log.info("Run finished, keeping warm runtime");
+            handleTermination(launch);
+        }
+        WarmRuntimes.finished(launch);
+    }
+
+    /**
+     * The presenters write their last results when they are stopped, after
+     * the Shutdown event. Waits until each has closed its container.
+     */
+    private static void awaitResults(ILaunch launch) {
+        try {
+            Path executionPath = executionPath(launch);
+            IDataProcessingUnit dpu = loadDPU(executionPath);
+            if (!ResultWriter.awaitDone(PresentationDPUBuilder.containers(dpu, executionPath), RESULT_CLOSE_TIMEOUT))
+                log.warn("Presenters didn't close their results within " + RESULT_CLOSE_TIMEOUT + "ms. Results may be incomplete.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error on waiting for results", e);
+        }
+    }
+
+    /**
+     * @param status
+     * @return true if status contains the Shutdown event
+     */
+    private boolean updateProgress(List<Tuple2<String, Status>> status) {
+        if (status.isEmpty())
+            return false;
+        startLivePresentation(currentLaunch);
+
+        // Update UI, merged with other events of the same frame
+        statusCoalescer.offer(status);
+
+        // check for termination
+        for (Tuple2<String, Status> classStatus : status) {
+            Status s = classStatus._2();
+            if (s instanceof de.lmu.ifi.dbs.knowing.core.events.Shutdown) {
+                return true;
+            }
+
+        }
+        return false;
+    }
+
     /* =================================================== */
     /* ============== Execution Thread Class ============ */
     /* =================================================== */
@@ -206,7 +393,7 @@ public class DebugPresenterView extends ViewPart implements ILaunchesListener2,
 
         private final Path executionPath;
         private final ILaunch launch;
-        private ProgressReader progressReader;
+        private ProgressSource progressReader;
 
         ExecutionWatcherRunnable(String executionPath, ILaunch launch) throws IOException {
             this.launch = launch;
@@ -223,8 +410,10 @@ public class DebugPresenterView extends ViewPart implements ILaunchesListener2,
                     // TODO make the timeout configurable
                     WatchKey watchKey = watchService.poll(5, TimeUnit.SECONDS);
                     if (watchKey == null) {
-                        // inform user
-                        return;
+                        // The progress channel or the termination handles the launch
+                        if (channelConnected || launch.isTerminated())
+                            return;
+                        continue;
                     }
                     List<WatchEvent<?>> events = watchKey.pollEvents();
                     for (WatchEvent<?> event : events) {
@@ -236,8 +425,7 @@ public class DebugPresenterView extends ViewPart implements ILaunchesListener2,
                     }
                 }
 
-                log.info("Terminating launch");
-                launch.terminate();
+                finish(launch);
             } catch (IOException | InterruptedException | ExecutionException | TimeoutException e) {
                 log.error("Error on waiting for progress", e);
                 throw new RuntimeException(e);
@@ -300,43 +488,34 @@ public class DebugPresenterView extends ViewPart implements ILaunchesListener2,
             if (!openReader(event))
                 return false;
 
-            // Read from .progress file
-            final List<Tuple2<String, Status>> status = progressReader.readAllStatus();
-
-            // Update UI
-            getSite().getShell().getDisplay().asyncExec(new Runnable() {
-                @Override
-                public void run() {
-                    for (Tuple2<String, Status> classStatus : status) {
-                        // TODO update dialog here
-                    }
-                }
-            });
-
-            // check for termination
-            for (Tuple2<String, Status> classStatus : status) {
-                Status s = classStatus._2();
-                if (s instanceof de.lmu.ifi.dbs.knowing.core.events.Shutdown) {
-                    return true;
-                }
-
-            }
-            return false;
+            // Read only the new events from .progress file, in bounded chunks
+            boolean shutdown = false;
+            List<Tuple2<String, Status>> status;
+            do {
+                status = progressReader.readStatus(MAX_EVENTS);
+                shutdown |= updateProgress(status);
+            } while (status.size() == MAX_EVENTS);
+            return shutdown;
         }
 
+        /**
+         * The text reader follows truncation and recreation of the file
+         * itself. The binary reader is reopened if the file is deleted.
+         */
         private boolean openReader(WatchEvent<Path> event) throws IOException {
-            if (progressReader != null)
-                return true;
             if (event.kind().equals(StandardWatchEventKinds.ENTRY_DELETE) && progressReader != null) {
                 progressReader.close();
                 progressReader = null;
                 return false;
             }
+            if (progressReader != null)
+                return true;
             try {
                 Path progressFile = this.executionPath.resolve(DebugUIFactory.PROGRESS_FILENAME);
-                if (!Files.exists(progressFile))
+                // Format can't be detected on an empty file
+                if (!Files.exists(progressFile) || Files.size(progressFile) == 0)
                     return false;
-                progressReader = new ProgressReader(Files.newBufferedReader(progressFile, Charset.defaultCharset()));
+                progressReader = ProgressReader.open(progressFile);
             } catch (IOException e) {
                 log.error("IOError on reading progress file", e);
                 return false;
@@ -350,4 +529,58 @@ public class DebugPresenterView extends ViewPart implements ILaunchesListener2,
 
     }
 
+    /**
+     * Receives status events streamed by the SocketUIFactory. If the runtime
+     * doesn't connect, it writes the progress file, which is handled by the
+     * ExecutionWatcherRunnable.
+     * 
+     * @author Nepomuk Seiler
+     * 
+     */
+    private class ProgressChannelRunnable implements Runnable {
+
+        private final ILaunch launch;
+
+        ProgressChannelRunnable(ILaunch launch) {
+            this.launch = launch;
+        }
+
+        @Override
+        public void run() {
+            ServerSocket channel;
+            try {
+                channel = ProgressChannels.take(launch, CHANNEL_OPEN_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (channel == null) {
+                log.info("No progress channel opened. Watching progress file.");
+                return;
+            }
+            try (ServerSocket server = channel) {
+                server.setSoTimeout(CHANNEL_ACCEPT_TIMEOUT);
+                try (Socket socket = server.accept();
+                        ProgressReader reader = new ProgressReader(new InputStreamReader(socket.getInputStream(),
+                                Charset.defaultCharset()))) {
+                    channelConnected = true;
+                    log.info("Progress channel connected " + socket.getRemoteSocketAddress());
+                    boolean shutdown = false;
+                    List<Tuple2<String, Status>> status;
+                    do {
+                        status = reader.readStatus(MAX_EVENTS);
+                        shutdown = updateProgress(status);
+                    } while (!shutdown && !status.isEmpty());
+                }
+                finish(launch);
+            } catch (SocketTimeoutException e) {
+                log.info("Runtime didn't connect to progress channel. Watching progress file.");
+            } catch (IOException e) {
+                log.error("IOError on progress channel", e);
+            } catch (DebugException e) {
+                log.error("Error on termination", e);
+            }
+        }
+    }
+
 }
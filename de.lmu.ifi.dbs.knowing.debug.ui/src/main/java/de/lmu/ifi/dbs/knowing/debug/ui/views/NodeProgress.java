@@ -0,0 +1,180 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.ui.views;
+
+import de.lmu.ifi.dbs.knowing.core.events.Created;
+import de.lmu.ifi.dbs.knowing.core.events.ExceptionEvent;
+import de.lmu.ifi.dbs.knowing.core.events.Finished;
+import de.lmu.ifi.dbs.knowing.core.events.Progress;
+import de.lmu.ifi.dbs.knowing.core.events.Ready;
+import de.lmu.ifi.dbs.knowing.core.events.Running;
+import de.lmu.ifi.dbs.knowing.core.events.Shutdown;
+import de.lmu.ifi.dbs.knowing.core.events.Status;
+import de.lmu.ifi.dbs.knowing.core.events.Waiting;
+import de.lmu.ifi.dbs.knowing.debug.presenter.WriterStatus;
+
+/**
+ * Row of the {@link ProgressTableViewer}. Holds the last known state of
+ * a single actor. Only accessed in the UI thread.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-13
+ *
+ */
+public class NodeProgress {
+
+    private final String path;
+
+    private String state = "";
+    private String task = "";
+    private int worked;
+    private int work;
+
+    /** Milliseconds. First Running or Progress event */
+    private long started;
+    /** Milliseconds. Last event */
+    private long updated;
+    /** Milliseconds. Finished, Shutdown or ExceptionEvent */
+    private long stopped;
+
+    /** Batches waiting for the result writer of a presenter */
+    private int queueDepth;
+    private int queueCapacity;
+    /** KB/s of the result writer since its previous report, -1 if unknown */
+    private int writerRate = -1;
+
+    public NodeProgress(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @param status
+     * @param timestamp - milliseconds
+     */
+    public void update(Status status, long timestamp) {
+        updated = timestamp;
+        if (status instanceof Progress) {
+            Progress progress = (Progress) status;
+            task = progress.task();
+            worked = progress.worked();
+            work = progress.work();
+            start(timestamp);
+            state = "Running";
+        } else if (status instanceof Running) {
+            start(timestamp);
+            state = "Running";
+        } else if (status instanceof Created) {
+            state = "Created";
+        } else if (status instanceof Ready) {
+            state = "Ready";
+        } else if (status instanceof Waiting) {
+            state = "Waiting";
+        } else if (status instanceof Finished) {
+            stop(timestamp);
+            state = "Finished";
+        } else if (status instanceof Shutdown) {
+            stop(timestamp);
+            state = "Shutdown";
+        } else if (status instanceof ExceptionEvent) {
+            stop(timestamp);
+            state = "Error";
+        }
+    }
+
+    /**
+     * @param status - result writer status of a presenter
+     * @see WriterStatus
+     */
+    public void updateWriter(Progress status) {
+        if (WriterStatus.QUEUE().equals(status.task())) {
+            queueDepth = status.worked();
+            queueCapacity = status.work();
+        } else if (WriterStatus.RATE().equals(status.task())) {
+            writerRate = status.worked();
+        }
+    }
+
+    /**
+     * Records a start, which was followed by other events before it could
+     * be shown.
+     *
+     * @param timestamp - milliseconds
+     */
+    public void started(long timestamp) {
+        start(timestamp);
+    }
+
+    private void start(long timestamp) {
+        if (started == 0)
+            started = timestamp;
+        stopped = 0;
+    }
+
+    private void stop(long timestamp) {
+        if (stopped == 0)
+            stopped = timestamp;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public String getTask() {
+        return task;
+    }
+
+    public int getWorked() {
+        return worked;
+    }
+
+    public int getWork() {
+        return work;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return KB/s of the result writer, -1 if it didn't report
+     */
+    public int getWriterRate() {
+        return writerRate;
+    }
+
+    /**
+     * @return milliseconds since the first Running or Progress event
+     */
+    public long getElapsed() {
+        if (started == 0)
+            return 0;
+        long end = stopped != 0 ? stopped : updated;
+        return Math.max(0, end - started);
+    }
+
+    /**
+     * @return worked units per second
+     */
+    public double getRate() {
+        long elapsed = getElapsed();
+        return elapsed == 0 ? 0 : worked * 1000.0 / elapsed;
+    }
+
+}
@@ -0,0 +1,187 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.ui.views;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.TableViewerColumn;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Composite;
+
+import de.lmu.ifi.dbs.knowing.core.events.Progress;
+import de.lmu.ifi.dbs.knowing.debug.ui.views.StatusCoalescer.CoalescedStatus;
+
+/**
+ * Live progress of a running DPU, one row per actor. The table is virtual,
+ * so items are only created for visible rows. Updates are applied to the
+ * changed rows only.
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-13
+ *
+ */
+public class ProgressTableViewer extends TableViewer implements StatusCoalescer.Listener {
+
+    private static final String[] columns = new String[] { "Node", "State", "Task", "Progress", "Rate", "Elapsed",
+            "Result queue", "Result rate" };
+    private static final int[] width = new int[] { 300, 80, 150, 100, 80, 80, 90, 90 };
+
+    private final List<NodeProgress> rows = new ArrayList<>();
+    private final Map<String, NodeProgress> nodes = new HashMap<>();
+
+    public ProgressTableViewer(Composite parent, int style) {
+        super(parent, style | SWT.VIRTUAL);
+        init();
+    }
+
+    private void init() {
+        initColumns();
+        initProvider();
+    }
+
+    private void initColumns() {
+        getTable().setHeaderVisible(true);
+        getTable().setLinesVisible(true);
+        for (int i = 0; i < columns.length; i++) {
+            TableViewerColumn viewerColumn = new TableViewerColumn(this, SWT.LEAD);
+            viewerColumn.getColumn().setText(columns[i]);
+            viewerColumn.getColumn().setWidth(width[i]);
+            viewerColumn.getColumn().setResizable(true);
+            viewerColumn.getColumn().setMoveable(true);
+        }
+    }
+
+    private void initProvider() {
+        setUseHashlookup(true);
+        setContentProvider(new LazyContentProvider());
+        setLabelProvider(new ProgressLabelProvider());
+        setInput(rows);
+        setItemCount(0);
+    }
+
+    /**
+     * Applies the coalesced events. New actors are appended, existing rows
+     * are only refreshed if they are materialized.
+     */
+    @Override
+    public void statusChanged(Map<String, CoalescedStatus> status) {
+        if (getTable().isDisposed())
+            return;
+        List<NodeProgress> changed = new ArrayList<>(status.size());
+        int oldSize = rows.size();
+        for (Map.Entry<String, CoalescedStatus> classStatus : status.entrySet()) {
+            NodeProgress node = nodes.get(classStatus.getKey());
+            if (node == null) {
+                node = new NodeProgress(classStatus.getKey());
+                nodes.put(node.getPath(), node);
+                rows.add(node);
+            } else {
+                changed.add(node);
+            }
+            CoalescedStatus coalesced = classStatus.getValue();
+            if (coalesced.getStarted() != 0)
+                node.started(coalesced.getStarted());
+            if (coalesced.getStatus() != null)
+                node.update(coalesced.getStatus(), coalesced.getTimestamp());
+            for (Progress writerStatus : coalesced.getWriterStatus())
+                node.updateWriter(writerStatus);
+        }
+        if (rows.size() != oldSize)
+            setItemCount(rows.size());
+        for (NodeProgress node : changed)
+            update(node, null);
+    }
+
+    /**
+     * Removes all rows, e.g. for a new launch.
+     */
+    public void clear() {
+        rows.clear();
+        nodes.clear();
+        setItemCount(0);
+        refresh();
+    }
+
+    private class LazyContentProvider implements ILazyContentProvider {
+
+        @Override
+        public void updateElement(int index) {
+            replace(rows.get(index), index);
+        }
+
+        @Override
+        public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+
+    private static class ProgressLabelProvider extends LabelProvider implements ITableLabelProvider {
+
+        @Override
+        public Image getColumnImage(Object element, int columnIndex) {
+            return null;
+        }
+
+        @Override
+        public String getColumnText(Object element, int columnIndex) {
+            NodeProgress node = (NodeProgress) element;
+            switch (columnIndex) {
+            case 0:
+                return node.getPath();
+            case 1:
+                return node.getState();
+            case 2:
+                return node.getTask();
+            case 3:
+                if (node.getWork() <= 0)
+                    return "";
+                return node.getWorked() + " / " + node.getWork();
+            case 4:
+                if (node.getRate() == 0)
+                    return "";
+                return String.format("%.1f/s", node.getRate());
+            case 5:
+                return formatElapsed(node.getElapsed());
+            case 6:
+                if (node.getQueueCapacity() <= 0)
+                    return "";
+                return node.getQueueDepth() + " / " + node.getQueueCapacity();
+            case 7:
+                if (node.getWriterRate() < 0)
+                    return "";
+                return String.format("%.1f MB/s", node.getWriterRate() / 1024.0);
+            default:
+                return "";
+            }
+        }
+
+        private static String formatElapsed(long millis) {
+            if (millis == 0)
+                return "";
+            long seconds = millis / 1000;
+            return String.format("%d:%02d.%d", seconds / 60, seconds % 60, (millis % 1000) / 100);
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+/*                                                               *\
+ ** |¯¯|/¯¯/|¯¯ \|¯¯| /¯¯/\¯¯\'|¯¯|  |¯¯||¯¯||¯¯ \|¯¯| /¯¯/|__|  **
+ ** | '| '( | '|\  '||  |  | '|| '|/\| '|| '|| '|\  '||  | ,---, **
+ ** |__|\__\|__|'|__| \__\/__/'|__,/\'__||__||__|'|__| \__\/__|  **
+ **                                                              **
+ ** Knowing Framework                                            **
+ ** Apache License - http://www.apache.org/licenses/             **
+ ** LMU Munich - Database Systems Group                          **
+ ** http://www.dbs.ifi.lmu.de/                                   **
+\*                                                               */
+package de.lmu.ifi.dbs.knowing.debug.ui.views;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.swt.widgets.Display;
+
+import scala.Tuple2;
+import de.lmu.ifi.dbs.knowing.core.events.Progress;
+import de.lmu.ifi.dbs.knowing.core.events.Running;
+import de.lmu.ifi.dbs.knowing.core.events.Status;
+import de.lmu.ifi.dbs.knowing.debug.presenter.WriterStatus;
+
+/**
+ * Sits between the progress readers and the UI. Only the latest status per
+ * actor path is kept, and at most <code>frameRate</code> UI refreshes per
+ * second are posted to the display. Bursts of events between two frames
+ * result in a single refresh.
+ * <p>
+ * Events are timestamped when they are offered, not when the frame runs.
+ * The first Running or Progress event of an actor within a frame is kept
+ * next to the latest status, so an actor which starts and finishes between
+ * two frames still has a start time. The status of a result writer is kept
+ * apart as well, so it doesn't hide the work progress of its presenter.
+ * </p>
+ * <p>
+ * {@link #offer(List)} can be called from any thread. The {@link Listener} is
+ * always called in the UI thread.
+ * </p>
+ *
+ * @author Nepomuk Seiler
+ * @version 0.1
+ * @since 2012-06-12
+ *
+ */
+public class StatusCoalescer {
+
+    /** UI refreshes per second */
+    public static final int DEFAULT_FRAME_RATE = 10;
+
+    private final Display display;
+    private final Listener listener;
+    private final long frameInterval;
+
+    /** Latest status per actor path, guarded by this */
+    private Map<String, CoalescedStatus> pending = new LinkedHashMap<>();
+
+    /** At most one frame is queued on the display */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /** Start of the last frame. Only accessed in the UI thread */
+    private long lastFrame;
+
+    private volatile boolean disposed;
+
+    private final Runnable schedule = new Runnable() {
+
+        @Override
+        public void run() {
+            if (disposed || display.isDisposed())
+                return;
+            long wait = lastFrame + frameInterval - System.currentTimeMillis();
+            if (wait > 0)
+                display.timerExec((int) wait, frame);
+            else
+                frame.run();
+        }
+    };
+
+    private final Runnable frame = new Runnable() {
+
+        @Override
+        public void run() {
+            Map<String, CoalescedStatus> changed;
+            synchronized (StatusCoalescer.this) {
+                changed = pending;
+                pending = new LinkedHashMap<>();
+                scheduled.set(false);
+            }
+            if (disposed || changed.isEmpty())
+                return;
+            lastFrame = System.currentTimeMillis();
+            listener.statusChanged(Collections.unmodifiableMap(changed));
+        }
+    };
+
+    public StatusCoalescer(Display display, Listener listener) {
+        this(display, listener, DEFAULT_FRAME_RATE);
+    }
+
+    /**
+     * @param display
+     * @param listener
+     * @param frameRate - maximum UI refreshes per second
+     */
+    public StatusCoalescer(Display display, Listener listener, int frameRate) {
+        if (frameRate <= 0)
+            throw new IllegalArgumentException("frameRate must be positive");
+        this.display = display;
+        this.listener = listener;
+        this.frameInterval = 1000 / frameRate;
+    }
+
+    /**
+     * Merges the events into the next frame. Never blocks on the UI thread.
+     *
+     * @param status
+     */
+    public void offer(List<Tuple2<String, Status>> status) {
+        if (status.isEmpty() || disposed)
+            return;
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (Tuple2<String, Status> classStatus : status) {
+                CoalescedStatus coalesced = pending.get(classStatus._1());
+                if (coalesced == null) {
+                    coalesced = new CoalescedStatus();
+                    pending.put(classStatus._1(), coalesced);
+                }
+                coalesced.add(classStatus._2(), now);
+            }
+        }
+        if (scheduled.compareAndSet(false, true) && !display.isDisposed())
+            display.asyncExec(schedule);
+    }
+
+    /**
+     * Discards pending events. No further frames are posted.
+     */
+    public void dispose() {
+        disposed = true;
+        synchronized (this) {
+            pending.clear();
+        }
+    }
+
+    /**
+     * Receives the coalesced events in the UI thread.
+     */
+    public interface Listener {
+
+        /**
+         * @param status - latest status per actor path since the last frame
+         */
+        void statusChanged(Map<String, CoalescedStatus> status);
+    }
+
+    /**
+     * Events of one actor within a frame.
+     */
+    public static class CoalescedStatus {
+
+        private Status status;
+        private long timestamp;
+        private long started;
+        /** Latest writer status per task */
+        private Map<String, Progress> writerStatus;
+
+        void add(Status status, long timestamp) {
+            if (WriterStatus.isWriterStatus(status)) {
+                if (writerStatus == null)
+                    writerStatus = new LinkedHashMap<>();
+                Progress progress = (Progress) status;
+                writerStatus.put(progress.task(), progress);
+                return;
+            }
+            if (started == 0 && (status instanceof Running || status instanceof Progress))
+                started = timestamp;
+            this.status = status;
+            this.timestamp = timestamp;
+        }
+
+        /**
+         * @return latest status, null if only writer status was offered
+         */
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return milliseconds the latest status was offered
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return milliseconds the first Running or Progress event was
+         *         offered, 0 if none
+         */
+        public long getStarted() {
+            return started;
+        }
+
+        /**
+         * @return latest status of the result writer per task
+         */
+        public Collection<Progress> getWriterStatus() {
+            if (writerStatus == null)
+                return Collections.emptyList();
+            return writerStatus.values();
+        }
+    }
+
+}